@@ -0,0 +1,622 @@
+/*
+ * SPDX-License-Identifier: MPL-2.0
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0.  If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * Copyright 2024, 2025 MonetDB Foundation;
+ * Copyright August 2008 - 2023 MonetDB B.V.;
+ * Copyright 1997 - July 2008 CWI.
+ */
+
+package org.monetdb.jdbc;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *<pre>
+ * A bulk loader which loads rows into a table of a MonetDB database
+ * with a COPY INTO ... ON CLIENT statement.
+ *
+ * A MonetBulkLoader is created with {@link MonetConnection#bulkLoader(String, String...)}.
+ * The values of a row are written with the writeXxx() methods, in the
+ * order of the columns, after which endRow() ends the row.  finish()
+ * completes the load and returns the number of loaded rows.
+ *
+ * The values are encoded directly into CSV text in chunks of bytes.
+ * A full chunk is handed to a separate thread, which executes the
+ * COPY INTO statement and writes the chunks to the server, while the
+ * next chunk is filled.  The connection must not be used by other
+ * statements until finish() or close() returns.
+ *
+ * Example:
+ *   try (MonetBulkLoader loader = con.bulkLoader("sys.measurements", "id", "name", "ts")) {
+ *       for (Measurement m : measurements) {
+ *           loader.writeInt(m.id);
+ *           loader.writeString(m.name);
+ *           loader.writeTimestamp(m.ts);
+ *           loader.endRow();
+ *       }
+ *       loader.finish();
+ *   }
+ *</pre>
+ */
+public final class MonetBulkLoader implements AutoCloseable {
+	/** The size of the chunks of encoded rows */
+	private static final int CHUNK_SIZE = 128 * 1024;
+	/** The chunk which tells the upload thread that all rows are written */
+	private static final Chunk END = new Chunk(0);
+	/** The chunk which tells the upload thread that the load is aborted */
+	private static final Chunk ABORT = new Chunk(0);
+
+	private final MonetConnection connection;
+	private final String table;
+	private final String[] columns;
+
+	/** The chunks filled with rows, to be written to the server */
+	private final LinkedBlockingQueue<Chunk> filled = new LinkedBlockingQueue<Chunk>();
+	/** The chunks written to the server, to be filled again */
+	private final LinkedBlockingQueue<Chunk> free = new LinkedBlockingQueue<Chunk>();
+	/** The chunk currently being filled */
+	private Chunk chunk;
+	/** The position in the chunk where the current row starts */
+	private int rowStart;
+	/** The number of values written in the current row */
+	private int fields;
+	/** The number of values of each row, -1 until the first row ended when no columns are given */
+	private int rowFields;
+
+	private boolean bestEffort;
+	/** The thread executing the COPY INTO statement, started when the first chunk is full */
+	private Thread uploader;
+	/** Whether finish() or close() was called */
+	private boolean finished;
+	private long rows;
+	private long loadedRows = -1;
+	private long rejectedRows;
+
+	/** Set when the COPY INTO statement has completed */
+	private volatile boolean done;
+	/** The failure of the COPY INTO statement, if any */
+	private volatile SQLException failure;
+	/** The failure of writing to the server, if any */
+	private volatile String uploadError;
+
+	/**
+	 * Constructor of a MonetBulkLoader.
+	 *
+	 * @param connection the connection to load the rows with
+	 * @param table the name of the table, used as is in the COPY INTO statement
+	 * @param columns the names of the columns to load, used as is, or
+	 *        none to load all columns of the table
+	 */
+	MonetBulkLoader(final MonetConnection connection, final String table, final String[] columns) {
+		this.connection = connection;
+		this.table = table;
+		this.columns = columns;
+		rowFields = (columns.length > 0) ? columns.length : -1;
+		chunk = new Chunk(CHUNK_SIZE);
+		free.add(new Chunk(CHUNK_SIZE));
+	}
+
+	/**
+	 * Sets whether rows the server can not load are skipped instead of
+	 * failing the whole load.  The number of skipped rows is returned by
+	 * getRejectedRows() after finish().  The rejected rows of earlier
+	 * loads in the session are cleared before the load starts.  This must
+	 * be set before the first chunk of rows is sent to the server.
+	 *
+	 * @param bestEffort true to skip rows which can not be loaded
+	 * @throws SQLException if the load has already started
+	 */
+	public void setBestEffort(final boolean bestEffort) throws SQLException {
+		if (uploader != null || finished)
+			throw new SQLException("The bulk load has already started", "M1M05");
+		this.bestEffort = bestEffort;
+	}
+
+	/**
+	 * Writes a NULL value.
+	 *
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeNull() throws SQLException {
+		startField(0);
+	}
+
+	/**
+	 * Writes an int value.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeInt(final int x) throws SQLException {
+		writeLong(x);
+	}
+
+	/**
+	 * Writes a long value.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeLong(final long x) throws SQLException {
+		startField(20);
+		if (x == Long.MIN_VALUE) {
+			writeAscii("-9223372036854775808");
+			return;
+		}
+		long v = x;
+		if (v < 0) {
+			chunk.data[chunk.len++] = '-';
+			v = -v;
+		}
+		appendDigits(v, 1);
+	}
+
+	/**
+	 * Writes a double value.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the value is NaN or infinite, or the load
+	 *         failed or is finished
+	 */
+	public void writeDouble(final double x) throws SQLException {
+		if (Double.isNaN(x) || Double.isInfinite(x))
+			throw new SQLException("Invalid double value: " + x, "22003");
+		startField(0);
+		writeAscii(Double.toString(x));
+	}
+
+	/**
+	 * Writes a boolean value.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeBoolean(final boolean x) throws SQLException {
+		startField(0);
+		writeAscii(x ? "true" : "false");
+	}
+
+	/**
+	 * Writes a decimal value, or NULL if x is null.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeBigDecimal(final BigDecimal x) throws SQLException {
+		startField(0);
+		if (x != null)
+			writeAscii(x.toPlainString());
+	}
+
+	/**
+	 * Writes a string value, or NULL if x is null.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeString(final String x) throws SQLException {
+		startField(2);
+		if (x == null)
+			return;
+
+		chunk.data[chunk.len++] = '"';
+		final int len = x.length();
+		for (int i = 0; i < len; i++) {
+			ensure(4);
+			final byte[] data = chunk.data;
+			int c = x.charAt(i);
+			switch (c) {
+				case '"':
+				case '\\':
+					data[chunk.len++] = '\\';
+					data[chunk.len++] = (byte) c;
+					continue;
+				case '\n':
+					data[chunk.len++] = '\\';
+					data[chunk.len++] = 'n';
+					continue;
+				case '\r':
+					data[chunk.len++] = '\\';
+					data[chunk.len++] = 'r';
+					continue;
+			}
+			// encode the character in UTF-8
+			if (c < 0x80) {
+				data[chunk.len++] = (byte) c;
+			} else if (c < 0x800) {
+				data[chunk.len++] = (byte) (0xC0 | (c >> 6));
+				data[chunk.len++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate((char) c) && i + 1 < len && Character.isLowSurrogate(x.charAt(i + 1))) {
+				c = Character.toCodePoint((char) c, x.charAt(++i));
+				data[chunk.len++] = (byte) (0xF0 | (c >> 18));
+				data[chunk.len++] = (byte) (0x80 | ((c >> 12) & 0x3F));
+				data[chunk.len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				data[chunk.len++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate((char) c)) {
+				// an unpaired surrogate can not be encoded
+				data[chunk.len++] = '?';
+			} else {
+				data[chunk.len++] = (byte) (0xE0 | (c >> 12));
+				data[chunk.len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				data[chunk.len++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		ensure(1);
+		chunk.data[chunk.len++] = '"';
+	}
+
+	/**
+	 * Writes a date value, or NULL if x is null.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeDate(final LocalDate x) throws SQLException {
+		startField(16);
+		if (x != null)
+			appendDate(x.getYear(), x.getMonthValue(), x.getDayOfMonth());
+	}
+
+	/**
+	 * Writes a timestamp value, or NULL if x is null.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeTimestamp(final LocalDateTime x) throws SQLException {
+		startField(40);
+		if (x == null)
+			return;
+
+		appendDate(x.getYear(), x.getMonthValue(), x.getDayOfMonth());
+		chunk.data[chunk.len++] = ' ';
+		appendDigits(x.getHour(), 2);
+		chunk.data[chunk.len++] = ':';
+		appendDigits(x.getMinute(), 2);
+		chunk.data[chunk.len++] = ':';
+		appendDigits(x.getSecond(), 2);
+		final int micros = x.getNano() / 1000;
+		if (micros != 0) {
+			chunk.data[chunk.len++] = '.';
+			appendDigits(micros, 6);
+		}
+	}
+
+	/**
+	 * Writes a timestamp value, or NULL if x is null.
+	 *
+	 * @param x the value
+	 * @throws SQLException if the load failed or is finished
+	 */
+	public void writeTimestamp(final Timestamp x) throws SQLException {
+		writeTimestamp(x != null ? x.toLocalDateTime() : null);
+	}
+
+	/**
+	 * Ends the current row.
+	 *
+	 * @throws SQLException if the row does not have the expected number
+	 *         of values, or the load failed or is finished
+	 */
+	public void endRow() throws SQLException {
+		checkNotFinished();
+		if (rowFields < 0 && fields > 0)
+			rowFields = fields;
+		if (fields != rowFields) {
+			final int got = fields;
+			// discard the row
+			chunk.len = rowStart;
+			fields = 0;
+			throw new SQLException("Row has " + got + " values, expected " + rowFields, "M1M05");
+		}
+		ensure(1);
+		chunk.data[chunk.len++] = '\n';
+		rowStart = chunk.len;
+		fields = 0;
+		rows++;
+	}
+
+	/**
+	 * Sends the remaining rows to the server and waits for the COPY INTO
+	 * statement to complete.
+	 *
+	 * @return the number of rows loaded by the server
+	 * @throws SQLException if a row is not ended or the load failed
+	 */
+	public long finish() throws SQLException {
+		checkNotFinished();
+		if (fields > 0)
+			throw new SQLException("The last row is not ended", "M1M05");
+		finished = true;
+
+		startUploader();
+		if (chunk.len > 0)
+			filled.add(chunk);
+		filled.add(END);
+		awaitUploader();
+		if (failure != null)
+			throw failure;
+		if (uploadError != null)
+			throw new SQLException(uploadError, "08000");
+
+		if (bestEffort) {
+			try (Statement st = connection.createStatement()) {
+				try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM \"sys\".\"rejects\"")) {
+					if (rs.next())
+						rejectedRows = rs.getLong(1);
+				}
+				st.execute("CALL \"sys\".\"clearrejects\"()");
+			}
+		}
+		return loadedRows;
+	}
+
+	/**
+	 * Aborts the load if finish() was not called.  When no rows have
+	 * been sent to the server yet, the COPY INTO statement fails and
+	 * no rows are loaded.  Otherwise the upload is broken off, which
+	 * also closes the connection.
+	 */
+	@Override
+	public void close() {
+		if (finished)
+			return;
+		finished = true;
+		if (uploader != null) {
+			filled.add(ABORT);
+			try {
+				awaitUploader();
+			} catch (SQLException e) {
+				// ignore, the load is aborted anyway
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of rows ended with endRow().
+	 *
+	 * @return the number of rows written
+	 */
+	public long getRowCount() {
+		return rows;
+	}
+
+	/**
+	 * Returns the number of rows loaded by the server.
+	 *
+	 * @return the number of loaded rows, or -1 if the load is not finished
+	 */
+	public long getLoadedRows() {
+		return loadedRows;
+	}
+
+	/**
+	 * Returns the number of rows which the server could not load, when
+	 * best effort is enabled.
+	 *
+	 * @return the number of rejected rows
+	 */
+	public long getRejectedRows() {
+		return rejectedRows;
+	}
+
+
+	//== internal helper methods
+
+	private void checkNotFinished() throws SQLException {
+		if (finished)
+			throw new SQLException("The bulk load is finished", "M1M20");
+	}
+
+	/**
+	 * Starts a new value in the current row: adds the field separator
+	 * and makes sure the chunk has room for at least room more bytes.
+	 */
+	private void startField(final int room) throws SQLException {
+		checkNotFinished();
+		ensure(room + 1);
+		if (fields > 0)
+			chunk.data[chunk.len++] = ',';
+		fields++;
+	}
+
+	private void writeAscii(final String s) throws SQLException {
+		final int len = s.length();
+		ensure(len);
+		for (int i = 0; i < len; i++)
+			chunk.data[chunk.len++] = (byte) s.charAt(i);
+	}
+
+	/**
+	 * Adds a non-negative number, padded with zeros to at least width digits.
+	 * The caller must have ensured there is room for it.
+	 */
+	private void appendDigits(long v, final int width) {
+		final byte[] data = chunk.data;
+		int n = 1;
+		for (long t = v; t >= 10; t /= 10)
+			n++;
+		if (n < width) {
+			for (int i = n; i < width; i++)
+				data[chunk.len++] = '0';
+		}
+		int pos = chunk.len + n;
+		chunk.len = pos;
+		do {
+			data[--pos] = (byte) ('0' + (v % 10));
+			v /= 10;
+		} while (v > 0);
+	}
+
+	private void appendDate(final int year, final int month, final int day) {
+		if (year < 0) {
+			chunk.data[chunk.len++] = '-';
+			appendDigits(-(long) year, 4);
+		} else {
+			appendDigits(year, 4);
+		}
+		chunk.data[chunk.len++] = '-';
+		appendDigits(month, 2);
+		chunk.data[chunk.len++] = '-';
+		appendDigits(day, 2);
+	}
+
+	/**
+	 * Makes sure the current chunk has room for n more bytes.  When the
+	 * chunk is full, its complete rows are handed to the upload thread
+	 * and the current row continues in the next chunk.
+	 */
+	private void ensure(final int n) throws SQLException {
+		if (chunk.len + n <= chunk.data.length)
+			return;
+		if (rowStart == 0) {
+			// a single row which does not fit in a chunk
+			chunk.data = Arrays.copyOf(chunk.data, Math.max(chunk.data.length * 2, chunk.len + n));
+			return;
+		}
+
+		final Chunk next = takeFreeChunk();
+		final int partial = chunk.len - rowStart;
+		if (next.data.length < partial + n)
+			next.data = new byte[Math.max(next.data.length, partial + n)];
+		System.arraycopy(chunk.data, rowStart, next.data, 0, partial);
+		next.len = partial;
+		chunk.len = rowStart;
+		filled.add(chunk);
+		chunk = next;
+		rowStart = 0;
+	}
+
+	private Chunk takeFreeChunk() throws SQLException {
+		startUploader();
+		try {
+			while (true) {
+				final Chunk c = free.poll(100, TimeUnit.MILLISECONDS);
+				if (uploadError != null)
+					throw new SQLException(uploadError, "08000");
+				if (c != null)
+					return c;
+				if (done) {
+					if (failure != null)
+						throw failure;
+					throw new SQLException("The bulk load ended unexpectedly", "M0M10");
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new SQLException("Interrupted while waiting for the bulk load", "HY008", e);
+		}
+	}
+
+	private void startUploader() {
+		if (uploader != null)
+			return;
+
+		final StringBuilder sql = new StringBuilder(128);
+		sql.append("COPY INTO ").append(table);
+		if (columns.length > 0) {
+			sql.append(" (");
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0)
+					sql.append(", ");
+				sql.append(columns[i]);
+			}
+			sql.append(')');
+		}
+		final String name = connection.addInternalUpload(this::upload);
+		sql.append(" FROM '").append(name).append("' ON CLIENT USING DELIMITERS ',', E'\\n', '\"' NULL AS ''");
+		if (bestEffort)
+			sql.append(" BEST EFFORT");
+
+		uploader = new Thread(() -> {
+			try (Statement st = connection.createStatement()) {
+				// sys.rejects holds the rejected rows of the whole session,
+				// only those of this load are to be counted by finish()
+				if (bestEffort)
+					st.execute("CALL \"sys\".\"clearrejects\"()");
+				st.execute(sql.toString());
+				loadedRows = st.getLargeUpdateCount();
+			} catch (SQLException e) {
+				failure = e;
+			} catch (RuntimeException e) {
+				// for instance when the connection was closed by an abort
+				failure = new SQLException("The bulk load failed: " + e, "M0M10", e);
+			} finally {
+				connection.removeInternalUpload(name);
+				done = true;
+			}
+		}, "MonetDB bulk loader");
+		uploader.setDaemon(true);
+		uploader.start();
+	}
+
+	private void awaitUploader() throws SQLException {
+		try {
+			uploader.join();
+		} catch (InterruptedException e) {
+			throw new SQLException("Interrupted while waiting for the bulk load", "HY008", e);
+		}
+	}
+
+	/**
+	 * The UploadHandler of the COPY INTO statement, called on the upload
+	 * thread.  It writes the filled chunks to the server until the end.
+	 */
+	private void upload(final MonetConnection.Upload handle, final String name, final boolean textMode, final long linesToSkip)
+		throws IOException
+	{
+		PrintStream out = null;
+		try {
+			while (true) {
+				final Chunk c = filled.take();
+				if (c == ABORT) {
+					if (out == null) {
+						handle.sendError("The bulk load was aborted");
+						return;
+					}
+					// the upload can not be ended without loading the rows
+					// sent so far, so break off the connection instead
+					connection.close();
+					throw new IOException("The bulk load was aborted");
+				}
+				if (out == null)
+					out = handle.getStream();
+				if (c == END)
+					return;
+				if (uploadError == null) {
+					out.write(c.data, 0, c.len);
+					if (out.checkError())
+						uploadError = "Server aborted the upload";
+				}
+				c.len = 0;
+				free.add(c);
+			}
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while uploading", e);
+		}
+	}
+
+	/** A buffer of encoded rows */
+	private static final class Chunk {
+		byte[] data;
+		int len;
+
+		Chunk(final int size) {
+			data = new byte[size];
+		}
+	}
+}
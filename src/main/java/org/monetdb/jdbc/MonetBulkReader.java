@@ -0,0 +1,741 @@
+/*
+ * SPDX-License-Identifier: MPL-2.0
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0.  If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * Copyright 2024, 2025 MonetDB Foundation;
+ * Copyright August 2008 - 2023 MonetDB B.V.;
+ * Copyright 1997 - July 2008 CWI.
+ */
+
+package org.monetdb.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *<pre>
+ * A bulk reader which reads the result of a query with a
+ * COPY ... INTO ... ON CLIENT statement.
+ *
+ * A MonetBulkReader is created with {@link MonetConnection#bulkReader(String)}.
+ * Like a ResultSet, next() moves to the next row, after which the values
+ * of the row are retrieved with the getXxx() methods.  Column indexes
+ * start at 1.
+ *
+ * The server sends the rows as CSV text in one stream, instead of in
+ * blocks of tuple lines requested with Xexport commands.  A separate
+ * thread executes the COPY statement and receives the stream in chunks
+ * of bytes, while the previous chunk is parsed.  The values are parsed
+ * directly from the bytes when they are retrieved; no String is created
+ * per line.  The connection must not be used by other statements until
+ * all rows are read or close() returns.
+ *
+ * Example:
+ *   try (MonetBulkReader reader = con.bulkReader("SELECT id, name, ts FROM sys.measurements")) {
+ *       while (reader.next()) {
+ *           int id = reader.getInt(1);
+ *           String name = reader.getString(2);
+ *           LocalDateTime ts = reader.getTimestamp(3);
+ *       }
+ *   }
+ *</pre>
+ */
+public final class MonetBulkReader implements AutoCloseable {
+	/** The size of the chunks in which the stream is received */
+	private static final int CHUNK_SIZE = 128 * 1024;
+	/** The chunk which tells the reader that the stream has ended */
+	private static final Chunk END = new Chunk(0);
+
+	/** Field flag: the value was quoted */
+	private static final byte QUOTED = 1;
+	/** Field flag: the quoted value contains backslash escapes */
+	private static final byte ESCAPED = 2;
+
+	private final MonetConnection connection;
+	private final String query;
+
+	/** The chunks received from the server, to be parsed */
+	private final LinkedBlockingQueue<Chunk> filled = new LinkedBlockingQueue<Chunk>();
+	/** The chunks parsed, to be received into again */
+	private final LinkedBlockingQueue<Chunk> free = new LinkedBlockingQueue<Chunk>();
+
+	/** The bytes holding the current row: the data of current, or spill */
+	private byte[] buf;
+	/** The position in buf after the current row */
+	private int pos;
+	/** The number of valid bytes in buf */
+	private int limit;
+	/** The chunk being parsed, null if none */
+	private Chunk current;
+	/** The position in current to continue at when buf is spill */
+	private int resume;
+	/** The bytes of a row which spans chunks */
+	private byte[] spill = new byte[256];
+	/** Whether the end of the stream has been added to buf */
+	private boolean eof;
+
+	/** The number of values in the current row */
+	private int fields;
+	/** The start, end and flags of each value of the current row */
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private byte[] flags = new byte[16];
+	/** Scratch space for unescaping values */
+	private byte[] scratch = new byte[64];
+
+	private long rows;
+	private boolean wasNull;
+	private boolean finished;
+
+	/** The thread executing the COPY statement */
+	private Thread downloader;
+	/** Set when the COPY statement has completed */
+	private volatile boolean done;
+	/** Set when the remaining rows are not wanted anymore */
+	private volatile boolean discard;
+	/** The failure of the COPY statement, if any */
+	private volatile SQLException failure;
+
+	/**
+	 * Constructor of a MonetBulkReader.
+	 *
+	 * @param connection the connection to read the rows with
+	 * @param query the query, used as is in the COPY statement
+	 */
+	MonetBulkReader(final MonetConnection connection, final String query) {
+		this.connection = connection;
+		this.query = query;
+		// one to parse, two to receive into meanwhile
+		free.add(new Chunk(CHUNK_SIZE));
+		free.add(new Chunk(CHUNK_SIZE));
+		free.add(new Chunk(CHUNK_SIZE));
+	}
+
+	/**
+	 * Moves to the next row.  The COPY statement is executed when this
+	 * is called for the first time.
+	 *
+	 * @return true if there is a next row, false when all rows are read
+	 * @throws SQLException if the query failed or a row can not be parsed
+	 */
+	public boolean next() throws SQLException {
+		if (finished)
+			return false;
+		if (downloader == null)
+			startDownloader();
+
+		fields = 0;
+		while (true) {
+			final int end = parseRow(pos);
+			if (end >= 0) {
+				pos = end;
+				rows++;
+				return true;
+			}
+			if (eof) {
+				if (pos < limit)
+					throw new SQLException("Incomplete last row in the COPY output", "M0M10");
+				finish();
+				return false;
+			}
+			receive();
+		}
+	}
+
+	/**
+	 * Returns the number of values in the current row.
+	 *
+	 * @return the number of columns
+	 */
+	public int getColumnCount() {
+		return fields;
+	}
+
+	/**
+	 * Returns the number of rows read so far with next().
+	 *
+	 * @return the number of rows
+	 */
+	public long getRowCount() {
+		return rows;
+	}
+
+	/**
+	 * Reports whether the last value retrieved was NULL.
+	 *
+	 * @return true if the last value retrieved was NULL
+	 */
+	public boolean wasNull() {
+		return wasNull;
+	}
+
+	/**
+	 * Reports whether the value of the given column is NULL.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return true if the value is NULL
+	 * @throws SQLException if there is no current row or the column index is invalid
+	 */
+	public boolean isNull(final int column) throws SQLException {
+		return field(column) < 0;
+	}
+
+	/**
+	 * Retrieves the value of the given column as a String.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or null if the value is NULL
+	 * @throws SQLException if there is no current row or the column index is invalid
+	 */
+	public String getString(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return null;
+		if ((flags[i] & ESCAPED) == 0)
+			return new String(buf, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+		return new String(scratch, 0, unescape(i), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Retrieves the value of the given column as an int.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or 0 if the value is NULL
+	 * @throws SQLException if the value is not an int, there is no
+	 *         current row or the column index is invalid
+	 */
+	public int getInt(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return 0;
+		final long v = parseLong(i);
+		if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE)
+			throw new SQLException("Value out of range for an int: " + getString(column), "22003");
+		return (int) v;
+	}
+
+	/**
+	 * Retrieves the value of the given column as a long.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or 0 if the value is NULL
+	 * @throws SQLException if the value is not a long, there is no
+	 *         current row or the column index is invalid
+	 */
+	public long getLong(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return 0;
+		return parseLong(i);
+	}
+
+	/**
+	 * Retrieves the value of the given column as a double.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or 0 if the value is NULL
+	 * @throws SQLException if the value is not a number, there is no
+	 *         current row or the column index is invalid
+	 */
+	public double getDouble(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return 0;
+		try {
+			return Double.parseDouble(ascii(i));
+		} catch (NumberFormatException e) {
+			throw new SQLException("Invalid number: " + getString(column), "22018");
+		}
+	}
+
+	/**
+	 * Retrieves the value of the given column as a boolean.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or false if the value is NULL
+	 * @throws SQLException if the value is not a boolean, there is no
+	 *         current row or the column index is invalid
+	 */
+	public boolean getBoolean(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return false;
+		switch (ends[i] - starts[i]) {
+			case 4:
+				if (buf[starts[i]] == 't')
+					return true;
+				break;
+			case 5:
+				if (buf[starts[i]] == 'f')
+					return false;
+				break;
+			case 1:
+				if (buf[starts[i]] == '1' || buf[starts[i]] == '0')
+					return buf[starts[i]] == '1';
+				break;
+		}
+		throw new SQLException("Invalid boolean: " + getString(column), "22018");
+	}
+
+	/**
+	 * Retrieves the value of the given column as a BigDecimal.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or null if the value is NULL
+	 * @throws SQLException if the value is not a number, there is no
+	 *         current row or the column index is invalid
+	 */
+	public BigDecimal getBigDecimal(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return null;
+		try {
+			return new BigDecimal(ascii(i));
+		} catch (NumberFormatException e) {
+			throw new SQLException("Invalid number: " + getString(column), "22018");
+		}
+	}
+
+	/**
+	 * Retrieves the value of the given date column.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or null if the value is NULL
+	 * @throws SQLException if the value is not a date, there is no
+	 *         current row or the column index is invalid
+	 */
+	public LocalDate getDate(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return null;
+		final int end = ends[i];
+		final int p = parseDate(i, starts[i], end);
+		if (p != end)
+			throw invalid("date", column);
+		return LocalDate.of(year, month, day);
+	}
+
+	/**
+	 * Retrieves the value of the given timestamp column.  A time zone
+	 * offset in the value, as of a timestamp with time zone column, is
+	 * ignored: the value is returned as rendered by the server in the
+	 * time zone of the session.
+	 *
+	 * @param column the column index, starting at 1
+	 * @return the value, or null if the value is NULL
+	 * @throws SQLException if the value is not a timestamp, there is no
+	 *         current row or the column index is invalid
+	 */
+	public LocalDateTime getTimestamp(final int column) throws SQLException {
+		final int i = field(column);
+		if (i < 0)
+			return null;
+		final int end = ends[i];
+		int p = parseDate(i, starts[i], end);
+		if (p < 0 || p + 9 > end || buf[p] != ' ' || buf[p + 3] != ':' || buf[p + 6] != ':')
+			throw invalid("timestamp", column);
+		final int hour = digits(p + 1, 2);
+		final int minute = digits(p + 4, 2);
+		final int second = digits(p + 7, 2);
+		p += 9;
+		int nanos = 0;
+		if (p < end && buf[p] == '.') {
+			int scale = 100000000;
+			for (p++; p < end && buf[p] >= '0' && buf[p] <= '9'; p++) {
+				nanos += (buf[p] - '0') * scale;
+				scale /= 10;
+			}
+		}
+		if (hour < 0 || minute < 0 || second < 0 || (p < end && buf[p] != '+' && buf[p] != '-'))
+			throw invalid("timestamp", column);
+		try {
+			return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+		} catch (java.time.DateTimeException e) {
+			throw invalid("timestamp", column);
+		}
+	}
+
+	/**
+	 * Stops reading.  When not all rows are read, the remaining rows
+	 * are received and discarded, so the connection stays usable.
+	 */
+	@Override
+	public void close() {
+		if (finished)
+			return;
+		if (downloader != null) {
+			discard = true;
+			filled.clear();
+			try {
+				finish();
+			} catch (SQLException e) {
+				// ignore, the rows are not wanted anymore
+			}
+		}
+		finished = true;
+		fields = 0;
+	}
+
+
+	//== internal helper methods
+
+	/**
+	 * Parses the row starting at position p of buf.
+	 *
+	 * @return the position after the row, or -1 if the row is not complete
+	 */
+	private int parseRow(int p) throws SQLException {
+		final byte[] b = buf;
+		final int lim = limit;
+		int n = 0;
+		while (true) {
+			if (n == starts.length) {
+				starts = Arrays.copyOf(starts, n * 2);
+				ends = Arrays.copyOf(ends, n * 2);
+				flags = Arrays.copyOf(flags, n * 2);
+			}
+			if (p >= lim)
+				return -1;
+			byte flag = 0;
+			final int start;
+			if (b[p] == '"') {
+				flag = QUOTED;
+				start = ++p;
+				while (true) {
+					if (p >= lim)
+						return -1;
+					final byte c = b[p];
+					if (c == '"')
+						break;
+					if (c == '\\') {
+						flag |= ESCAPED;
+						p++;
+					}
+					p++;
+				}
+				ends[n] = p++;
+				if (p >= lim)
+					return -1;
+				if (b[p] != ',' && b[p] != '\n')
+					throw new SQLException("Unexpected character after a quoted value in the COPY output", "M0M10");
+			} else {
+				start = p;
+				while (p < lim && b[p] != ',' && b[p] != '\n')
+					p++;
+				if (p >= lim)
+					return -1;
+				ends[n] = p;
+			}
+			starts[n] = start;
+			flags[n] = flag;
+			n++;
+			if (b[p++] == '\n') {
+				fields = n;
+				return p;
+			}
+		}
+	}
+
+	/**
+	 * Makes more bytes available after the row at pos turned out to be
+	 * incomplete.  Rows are parsed within the chunks received from the
+	 * server; only a row which spans chunks is copied, to spill, together
+	 * with the bytes of the next chunk up to the end of that row.
+	 */
+	private void receive() throws SQLException {
+		final int rest = limit - pos;
+		if (buf == spill && rest == 0 && current != null) {
+			// the row which spanned chunks is read, continue after it
+			buf = current.data;
+			pos = resume;
+			limit = current.len;
+			return;
+		}
+		final Chunk c = takeFilledChunk();
+		if (c == END) {
+			eof = true;
+			return;
+		}
+		if (rest == 0) {
+			releaseCurrent();
+			current = c;
+			buf = c.data;
+			pos = 0;
+			limit = c.len;
+			return;
+		}
+
+		// move the start of the row to spill
+		if (buf != spill) {
+			if (rest > spill.length)
+				spill = new byte[Math.max(spill.length * 2, rest)];
+			System.arraycopy(buf, pos, spill, 0, rest);
+			releaseCurrent();
+			buf = spill;
+		} else if (pos > 0) {
+			System.arraycopy(spill, pos, spill, 0, rest);
+		}
+		pos = 0;
+		limit = rest;
+		// append lines of the new chunk until the row is complete, a
+		// newline may also be part of a quoted value
+		final byte[] data = c.data;
+		int p = 0;
+		while (p < c.len) {
+			int end = p;
+			while (end < c.len && data[end] != '\n')
+				end++;
+			if (end < c.len)
+				end++;
+			if (limit + end - p > spill.length)
+				buf = spill = Arrays.copyOf(spill, Math.max(spill.length * 2, limit + end - p));
+			System.arraycopy(data, p, spill, limit, end - p);
+			limit += end - p;
+			p = end;
+			if (spill[limit - 1] == '\n' && parseRow(0) >= 0)
+				break;
+		}
+		if (p < c.len) {
+			current = c;
+			resume = p;
+		} else {
+			c.len = 0;
+			free.add(c);
+		}
+	}
+
+	/** Hands the chunk being parsed back to the downloader. */
+	private void releaseCurrent() {
+		if (current != null) {
+			current.len = 0;
+			free.add(current);
+			current = null;
+		}
+	}
+
+	private Chunk takeFilledChunk() throws SQLException {
+		try {
+			while (true) {
+				final Chunk c = filled.poll(100, TimeUnit.MILLISECONDS);
+				if (c != null)
+					return c;
+				if (done && filled.isEmpty()) {
+					if (failure != null)
+						throw failure;
+					return END;
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new SQLException("Interrupted while waiting for the bulk read", "HY008", e);
+		}
+	}
+
+	/** Waits for the COPY statement to complete and reports its failure, if any. */
+	private void finish() throws SQLException {
+		finished = true;
+		try {
+			downloader.join();
+		} catch (InterruptedException e) {
+			throw new SQLException("Interrupted while waiting for the bulk read", "HY008", e);
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	private void startDownloader() {
+		String sql = query.trim();
+		while (sql.endsWith(";"))
+			sql = sql.substring(0, sql.length() - 1).trim();
+		final String name = connection.addInternalDownload(this::download);
+		final String copy = "COPY " + sql + " INTO '" + name + "' ON CLIENT USING DELIMITERS ',', E'\\n', '\"' NULL AS ''";
+
+		downloader = new Thread(() -> {
+			try (Statement st = connection.createStatement()) {
+				st.execute(copy);
+			} catch (SQLException e) {
+				failure = e;
+			} catch (RuntimeException e) {
+				failure = new SQLException("The bulk read failed: " + e, "M0M10", e);
+			} finally {
+				connection.removeInternalDownload(name);
+				done = true;
+			}
+		}, "MonetDB bulk reader");
+		downloader.setDaemon(true);
+		downloader.start();
+	}
+
+	/**
+	 * The DownloadHandler of the COPY statement, called on the download
+	 * thread.  It receives the stream in chunks until the end, or until
+	 * the rows are not wanted anymore, in which case the rest of the
+	 * stream is discarded when the Download is closed.
+	 */
+	private void download(final MonetConnection.Download handle, final String name, final boolean textMode)
+		throws IOException
+	{
+		handle.setLineSeparator("\n");
+		final InputStream in = handle.getStream();
+		try {
+			while (true) {
+				Chunk c;
+				while ((c = free.poll(100, TimeUnit.MILLISECONDS)) == null) {
+					if (discard)
+						return;
+				}
+				if (discard)
+					return;
+				final int n = in.read(c.data, 0, c.data.length);
+				if (n < 0) {
+					filled.add(END);
+					return;
+				}
+				c.len = n;
+				filled.add(c);
+			}
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while downloading", e);
+		}
+	}
+
+	/** Returns the index of the value of the given column, or -1 if it is NULL. */
+	private int field(final int column) throws SQLException {
+		if (fields == 0)
+			throw new SQLException("No current row", "24000");
+		if (column < 1 || column > fields)
+			throw new SQLException("Invalid column index: " + column, "M1M05");
+		final int i = column - 1;
+		wasNull = ends[i] == starts[i] && flags[i] == 0;
+		return wasNull ? -1 : i;
+	}
+
+	private long parseLong(final int i) throws SQLException {
+		int p = starts[i];
+		final int end = ends[i];
+		final boolean neg = p < end && buf[p] == '-';
+		if (neg || (p < end && buf[p] == '+'))
+			p++;
+		if (p == end || end - p > 19)
+			throw new SQLException("Invalid number: " + getString(i + 1), "22018");
+		long v = 0;
+		for (; p < end; p++) {
+			final int d = buf[p] - '0';
+			if (d < 0 || d > 9)
+				throw new SQLException("Invalid number: " + getString(i + 1), "22018");
+			// accumulate negatively, so Long.MIN_VALUE fits
+			if (v < (Long.MIN_VALUE + d) / 10)
+				throw new SQLException("Value out of range for a long: " + getString(i + 1), "22003");
+			v = v * 10 - d;
+		}
+		if (!neg) {
+			if (v == Long.MIN_VALUE)
+				throw new SQLException("Value out of range for a long: " + getString(i + 1), "22003");
+			v = -v;
+		}
+		return v;
+	}
+
+	/** The fields of the date parsed last by parseDate() */
+	private int year, month, day;
+
+	/**
+	 * Parses a date [-]yyyy-mm-dd at position p.
+	 *
+	 * @return the position after the date, or -1 if it is not a date
+	 */
+	private int parseDate(final int i, int p, final int end) {
+		final boolean neg = p < end && buf[p] == '-';
+		if (neg)
+			p++;
+		int y = 0;
+		final int ystart = p;
+		for (; p < end && buf[p] >= '0' && buf[p] <= '9'; p++)
+			y = y * 10 + (buf[p] - '0');
+		if (p - ystart < 1 || p + 6 > end || buf[p] != '-' || buf[p + 3] != '-')
+			return -1;
+		year = neg ? -y : y;
+		month = digits(p + 1, 2);
+		day = digits(p + 4, 2);
+		if (month < 0 || day < 0)
+			return -1;
+		return p + 6;
+	}
+
+	/** Parses n digits at position p, or returns -1 if they are not all digits. */
+	private int digits(final int p, final int n) {
+		int v = 0;
+		for (int k = p; k < p + n; k++) {
+			final int d = buf[k] - '0';
+			if (d < 0 || d > 9)
+				return -1;
+			v = v * 10 + d;
+		}
+		return v;
+	}
+
+	private SQLException invalid(final String type, final int column) throws SQLException {
+		return new SQLException("Invalid " + type + ": " + getString(column), "22007");
+	}
+
+	/** Returns the value as a String of ASCII characters. */
+	private String ascii(final int i) {
+		return new String(buf, starts[i], ends[i] - starts[i], StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Copies the value to scratch, replacing the backslash escapes.
+	 *
+	 * @return the number of bytes in scratch
+	 */
+	private int unescape(final int i) {
+		final int end = ends[i];
+		if (scratch.length < end - starts[i])
+			scratch = new byte[Math.max(scratch.length * 2, end - starts[i])];
+		final byte[] out = scratch;
+		int n = 0;
+		for (int p = starts[i]; p < end; p++) {
+			byte c = buf[p];
+			if (c == '\\' && p + 1 < end) {
+				c = buf[++p];
+				switch (c) {
+					case 'n': c = '\n'; break;
+					case 't': c = '\t'; break;
+					case 'r': c = '\r'; break;
+					case 'f': c = '\f'; break;
+					case 'b': c = '\b'; break;
+					default:
+						if (c >= '0' && c <= '7' && p + 2 < end) {
+							// an octal escape \ooo
+							c = (byte) (((c - '0') << 6) | ((buf[p + 1] - '0') << 3) | (buf[p + 2] - '0'));
+							p += 2;
+						}
+						break;
+				}
+			}
+			out[n++] = c;
+		}
+		return n;
+	}
+
+	/** A buffer of received bytes */
+	private static final class Chunk {
+		final byte[] data;
+		int len;
+
+		Chunk(final int size) {
+			data = new byte[size];
+		}
+	}
+}
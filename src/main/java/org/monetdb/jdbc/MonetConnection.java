@@ -16,6 +16,7 @@ import java.io.*;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -31,18 +32,33 @@ import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.monetdb.mcl.io.BufferedMCLReader;
 import org.monetdb.mcl.io.BufferedMCLWriter;
 import org.monetdb.mcl.io.LineType;
 import org.monetdb.mcl.net.ClientInfo;
 import org.monetdb.mcl.net.MapiSocket;
+import org.monetdb.mcl.net.Parameter;
 import org.monetdb.mcl.net.Target;
 import org.monetdb.mcl.net.ValidationError;
 import org.monetdb.mcl.parser.HeaderLineParser;
 import org.monetdb.mcl.parser.MCLParseException;
 import org.monetdb.mcl.parser.StartOfHeaderParser;
+import org.monetdb.mcl.parser.TupleLineParser;
 
 /**
  *<pre>
@@ -88,8 +104,9 @@ public class MonetConnection
 	/** A StartOfHeaderParser declared for reuse. */
 	private final StartOfHeaderParser sohp = new StartOfHeaderParser();
 
-	/** Whether this Connection is closed (and cannot be used anymore) */
-	private boolean closed;
+	/** Whether this Connection is closed (and cannot be used anymore),
+	 *  volatile as a failing prefetch closes it from another thread */
+	private volatile boolean closed;
 
 	/** Whether this Connection is in autocommit mode */
 	private boolean autoCommit = true;
@@ -140,9 +157,77 @@ public class MonetConnection
 	/** The last set query timeout on the server as used by Statement, PreparedStatement and CallableStatement */
 	protected int lastSetQueryTimeout = 0;	// 0 means no timeout, which is the default on the server
 
+	/** Value of sessionId when the session id could not be retrieved or is not needed */
+	private static final int SESSION_ID_NONE = -1;
+	/** The id of the session of this connection on the server, used to stop its running query */
+	private volatile int sessionId = SESSION_ID_NONE;
+	/** The reason why the session id could not be retrieved, if so */
+	private String sessionIdError;
+	/** The Statement whose execution holds the lock on the server, null if none */
+	private volatile MonetStatement runningStatement;
+	/** The number of executions started by runExecution(), to tell them apart */
+	private volatile long executionCount;
+	/** The maximum number of milliseconds the control connection may take to connect or to reply */
+	private static final int CONTROL_TIMEOUT = 10000;
+	/** The connection used by stopRunningQuery(), made on first use, guarded by controlLock */
+	private MonetConnection control;
+	/** The lock serializing the stops of queries over the control connection */
+	private final Object controlLock = new Object();
+	/** The thread stopping the queries whose deadline expired, created on first use */
+	private ThreadPoolExecutor stopper;
+	/** The scheduler of the client side query deadlines, shared by all connections */
+	private static ScheduledThreadPoolExecutor deadlineScheduler;
+	/** The threads validating connections with a timeout, shared by all connections */
+	private static ExecutorService validator;
+	/** The validation with a timeout of this connection which is pending, if any */
+	private Future<Boolean> pendingValidation;
+
 	/** A cache to reduce the number of DatabaseMetaData objects created by getMetaData() to maximum 1 per connection */
 	private DatabaseMetaData dbmd;
 
+	/** The number of result blocks to fetch ahead for forward only result sets, 0 means no prefetching */
+	private final int prefetchBlocks;
+	/** The maximum number of bytes of result blocks fetched ahead */
+	private final long prefetchMemory;
+	/** The thread fetching result blocks ahead, created on first use */
+	private ExecutorService prefetcher;
+	/** The maximum number of asynchronous queries waiting for the async worker */
+	private final int asyncQueue;
+	/** The thread executing the asynchronous queries, created on first use */
+	private ThreadPoolExecutor asyncWorker;
+	/** The maximum number of bytes of result blocks to keep in memory for scrollable result sets, 0 means no limit */
+	private final long blockCacheMemory;
+	/** The maximum number of bytes of a result block fetched for a forward only result set */
+	private final long fetchMemory;
+	/** The number of nanoseconds after a server reply during which isValid() does not contact the server */
+	private final long validWindowNanos;
+	/** The System.nanoTime() of the last complete reply of the server */
+	private volatile long lastAlive;
+
+	/** The maximum number of closed prepared statements kept prepared on the server, 0 disables the cache */
+	private final int statementCacheSize;
+	/** The closed prepared statements kept prepared on the server, least recently closed first */
+	private final LinkedHashMap<String, MonetPreparedStatement.Prepared> statementCache = new LinkedHashMap<>();
+	/** The schemaGeneration the entries in the statementCache were prepared in */
+	private int statementCacheGeneration;
+	/** The number of prepareStatement calls which could reuse a cached prepared statement */
+	private long statementCacheHits;
+	/** The number of prepareStatement calls which had to prepare the statement on the server */
+	private long statementCacheMisses;
+	/** Incremented on every schema change reported by the server, as it invalidates prepared statements */
+	private volatile int schemaGeneration;
+
+	/** The maximum number of batched rows of a simple INSERT sent as one multi-row INSERT, 0 disables this */
+	private final int batchInsertRows;
+	/** The minimum number of batched rows of a simple INSERT loaded with COPY INTO ON CLIENT, 0 disables this */
+	private final int batchCopyRows;
+	/** The UploadHandlers of the driver itself, by the file name used in their COPY INTO ON CLIENT */
+	private final Map<String, UploadHandler> internalUploads = new ConcurrentHashMap<String, UploadHandler>();
+	/** The DownloadHandlers of the driver itself, by the file name used in their COPY INTO ON CLIENT */
+	private final Map<String, DownloadHandler> internalDownloads = new ConcurrentHashMap<String, DownloadHandler>();
+	/** The number of internal uploads and downloads, used to create unique file names */
+	private final AtomicInteger internalUploadCount = new AtomicInteger();
+
 	/**
 	 * Constructor of a Connection for MonetDB.
 	 * This constructor is only accessible to classes from the jdbc package.
@@ -153,6 +238,23 @@ public class MonetConnection
 	 */
 	MonetConnection(Target target)
 		throws SQLException, IllegalArgumentException
+	{
+		this(target, false);
+	}
+
+	/**
+	 * Constructor of a Connection for MonetDB, which is possibly a
+	 * control connection used by stopRunningQuery().  A control
+	 * connection does not ask for its session id, as its own queries
+	 * are never stopped.
+	 *
+	 * @param target a {@link Target} object containing all connection parameters
+	 * @param control whether this is a control connection
+	 * @throws SQLException if a database error occurs
+	 * @throws IllegalArgumentException is one of the arguments is null or empty
+	 */
+	private MonetConnection(final Target target, final boolean control)
+		throws SQLException, IllegalArgumentException
 	{
 		this.target = target;
 		Target.Validated validated;
@@ -162,6 +264,15 @@ public class MonetConnection
 			throw new SQLNonTransientConnectionException(e.getMessage());
 		}
 		server = new MapiSocket();
+		prefetchBlocks = Math.max(0, target.getPrefetch());
+		prefetchMemory = Math.max(0, target.getPrefetchMemory()) * 1024L * 1024L;
+		blockCacheMemory = Math.max(0, target.getBlockCache()) * 1024L * 1024L;
+		fetchMemory = Math.max(1, target.getFetchMemory()) * 1024L * 1024L;
+		validWindowNanos = Math.max(0, target.getValidWindow()) * 1000000L;
+		statementCacheSize = Math.max(0, target.getStatementCache());
+		batchInsertRows = Math.max(0, target.getBatchInsertRows());
+		batchCopyRows = Math.max(0, target.getBatchCopyRows());
+		asyncQueue = Math.max(1, target.getAsyncQueue());
 
 		// we're debugging here... uhm, should be off in real life
 		if (validated.isDebug()) {
@@ -225,6 +336,7 @@ public class MonetConnection
 			final String error = in.discardRemainder();
 			if (error != null)
 				throw new SQLNonTransientConnectionException((error.length() > 6) ? error.substring(6) : error, "08001");
+			lastAlive = System.nanoTime();
 		} catch (javax.net.ssl.SSLException e) {
 			throw new SQLNonTransientConnectionException("Cannot establish secure connection: " + e.getMessage(), e);
 		} catch (IOException e) {
@@ -255,6 +367,12 @@ public class MonetConnection
 		// Now take care of any options not handled during the handshake
 		curReplySize = defaultFetchSize;
 		if (lang == LANG_SQL) {
+			if (!control) {
+				// asked while autocommit is on, so it does not start a transaction
+				if (!autoCommit)
+					setAutoCommit(true);
+				fetchSessionId();
+			}
 			if (autoCommit != validated.isAutocommit()) {
 				setAutoCommit(validated.isAutocommit());
 			}
@@ -306,6 +424,17 @@ public class MonetConnection
 		clearWarnings();
 		clientInfoAttributeNames = null;
 		dbmd = null;
+		// fail the queued asynchronous queries, a running one completes first
+		final ArrayList<Runnable> pendingAsync = new ArrayList<Runnable>();
+		synchronized (this) {
+			if (asyncWorker != null) {
+				asyncWorker.shutdown();
+				asyncWorker.getQueue().drainTo(pendingAsync);
+				asyncWorker = null;
+			}
+		}
+		for (Runnable r : pendingAsync)
+			((AsyncQuery<?>) r).fail(new SQLException("Connection was closed before the query was executed", "M1M20"));
 		synchronized (server) {
 			// Note: An entry in a WeakHashMap will automatically be
 			// removed when its key is no longer in ordinary use.
@@ -316,11 +445,29 @@ public class MonetConnection
 					// better luck next time!
 				}
 			}
+			// the server forgets the prepared statements with the session
+			synchronized (statementCache) {
+				statementCache.clear();
+			}
 			// close the socket
 			server.close();
 			// report ourselves as closed
 			closed = true;
 		}
+		synchronized (this) {
+			if (prefetcher != null) {
+				prefetcher.shutdown();
+				prefetcher = null;
+			}
+			if (stopper != null) {
+				stopper.shutdown();
+				stopper = null;
+			}
+		}
+		// a stop in progress completes within the timeout of the control connection
+		synchronized (controlLock) {
+			closeControl();
+		}
 	}
 
 	/**
@@ -1216,6 +1363,25 @@ public class MonetConnection
 	 * The query submitted by the driver to validate the connection
 	 * shall be executed in the context of the current transaction.
 	 *
+	 * For SQL connections a single control command is sent and its reply
+	 * awaited, without any statement or result set.  The timeout is a
+	 * client side deadline on this round trip, which includes waiting
+	 * for another thread using the connection.  When it expires while
+	 * waiting, false is returned; when it expires during the round trip
+	 * the connection is closed, as the reply can no longer be read.  When
+	 * the server replied within the last valid_window milliseconds the
+	 * server is not contacted at all.
+	 *
+	 * While a Statement of this connection executes, the connection is
+	 * in use and reported valid without contacting the server; a failure
+	 * of the server is reported to the executing thread instead.  Other
+	 * uses of the connection, such as fetching the next block of a
+	 * result set, are waited for, so the connection is reported invalid
+	 * when such a use takes longer than the timeout.  At most one
+	 * validation with a timeout is pending per connection; while it
+	 * waits, further calls wait for its outcome instead of sending
+	 * another one.
+	 *
 	 * @param timeout The time in seconds to wait for the database
 	 *        operation used to validate the connection to complete. If
 	 *        the timeout period expires before the operation completes,
@@ -1231,6 +1397,35 @@ public class MonetConnection
 			throw new SQLException("timeout is less than 0", "M1M05");
 		if (closed)
 			return false;
+		if (validWindowNanos > 0 && System.nanoTime() - lastAlive < validWindowNanos)
+			return true;
+
+		if (lang == LANG_SQL) {
+			if (runningStatement != null)
+				return true;
+			if (timeout == 0)
+				return ping(0);
+			// the lock can not be waited for with a timeout, so the
+			// validation thread waits for it and we wait for that thread
+			final long deadline = System.currentTimeMillis() + Math.min(timeout, Integer.MAX_VALUE / 1000) * 1000L;
+			final Future<Boolean> result;
+			synchronized (this) {
+				if (pendingValidation == null || pendingValidation.isDone())
+					pendingValidation = getValidator().submit(() -> ping(deadline));
+				result = pendingValidation;
+			}
+			try {
+				return result.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+			} catch (java.util.concurrent.TimeoutException e) {
+				// still waiting for the lock, the task gives up once it has it
+				return false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} catch (ExecutionException e) {
+				return false;
+			}
+		}
 
 		// ping monetdb server using query: select 1;
 		Statement stmt = null;
@@ -1276,6 +1471,59 @@ public class MonetConnection
 		return isValid;
 	}
 
+	/**
+	 * Sends a no-op control command to the server and awaits its reply.
+	 * It is called from: isValid()
+	 *
+	 * @param deadline the time in milliseconds since the epoch at which
+	 *        the round trip must be completed, 0 means no limit
+	 * @return true if the server replied before the deadline
+	 */
+	private boolean ping(final long deadline) {
+		synchronized (server) {
+			if (closed)
+				return false;
+			int remaining = 0;
+			if (deadline > 0) {
+				final long left = deadline - System.currentTimeMillis();
+				if (left <= 0)
+					return false;	// the caller gave up while we were waiting for the lock
+				remaining = (int) left;
+			}
+			try {
+				// reply_size with its current value is a no-op, any reply proves the server is alive
+				server.ping(commandTempl[0] + "reply_size " + curReplySize + commandTempl[1], remaining);
+				lastAlive = System.nanoTime();
+				return true;
+			} catch (IOException e) {
+				// includes SocketTimeoutException: the reply was not read completely
+				close();
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Returns the executor running the validations with a timeout of all
+	 * connections, creating it at first usage.  Its threads are only kept
+	 * while they are used.  As each connection has at most one pending
+	 * validation, it uses at most one thread per connection.
+	 *
+	 * @return the validation executor
+	 */
+	private static ExecutorService getValidator() {
+		synchronized (MonetConnection.class) {
+			if (validator == null) {
+				validator = Executors.newCachedThreadPool(r -> {
+					final Thread t = new Thread(r, "MonetDB connection validation");
+					t.setDaemon(true);
+					return t;
+				});
+			}
+			return validator;
+		}
+	}
+
 	/**
 	 * Returns the value of the client info property specified by name.
 	 * This method may return null if the specified client info property
@@ -1681,216 +1929,1063 @@ public class MonetConnection
 	}
 
 	/**
-	 * Local helper method to set the time zone for this connection
+	 * Creates a {@link MonetBulkLoader} which loads typed rows into the
+	 * given table with a COPY INTO ... ON CLIENT statement.  The table and
+	 * column names are used as is in the statement, so they must be quoted
+	 * by the caller where needed.  The upload handler registered with
+	 * setUploadHandler() is not used.
 	 *
-	 * @param offsetSeconds Time Zone offset in seconds, can be negative or zero
-	 * @throws SQLException if an IO exception or a database error occurs
+	 * @param table the name of the table, optionally qualified with its schema
+	 * @param columns the names of the columns the rows consist of, or
+	 *        none for all columns of the table
+	 * @return a new MonetBulkLoader
+	 * @throws SQLException if the connection is closed or the table name is empty
 	 */
-	private void setTimezone(int offsetSeconds) throws SQLException {
-		final StringBuilder tz = new StringBuilder(64);
-		tz.append("SET TIME ZONE INTERVAL '");
-		int offsetMinutes = offsetSeconds / 60;
-		if (offsetMinutes < 0) {
-			tz.append('-');
-			offsetMinutes = -offsetMinutes; // make it positive
-		} else {
-			tz.append('+');
-		}
-		int offsetHours = offsetMinutes / 60;
-		if (offsetHours < 10)
-			tz.append('0');
-		tz.append(offsetHours).append(':');
-		offsetMinutes -= offsetHours * 60;
-		if (offsetMinutes < 10)
-			tz.append('0');
-		tz.append(offsetMinutes).append("' HOUR TO MINUTE");
-		sendIndependentCommand(tz.toString());
+	public MonetBulkLoader bulkLoader(final String table, final String... columns) throws SQLException {
+		checkNotClosed();
+		if (table == null || table.isEmpty())
+			throw new SQLException("Missing table name", "M1M05");
+		return new MonetBulkLoader(this, table, columns != null ? columns : new String[0]);
 	}
 
 	/**
-	 * Local helper method to check whether the Connection object is closed
-	 * and throw an SQLExecption if it is closed.
+	 * Creates a {@link MonetBulkReader} which reads the rows of the given
+	 * query with a COPY ... INTO ... ON CLIENT statement.  The query is
+	 * used as is in the statement.  The download handler registered with
+	 * setDownloadHandler() is not used.
 	 *
-	 * @throws SQLException if this connection is closed
+	 * @param query the SELECT query of which to read the rows
+	 * @return a new MonetBulkReader
+	 * @throws SQLException if the connection is closed or the query is empty
 	 */
-	private void checkNotClosed() throws SQLException {
-		if (closed)
-			throw new SQLException("Connection is closed", "M1M20");
+	public MonetBulkReader bulkReader(final String query) throws SQLException {
+		checkNotClosed();
+		if (query == null || query.trim().isEmpty())
+			throw new SQLException("Missing query", "M1M05");
+		return new MonetBulkReader(this, query);
 	}
 
 	/**
-	 * Utility method to call sys.setquerytimeout(int); procedure on the connected server
-	 * or sys.settimeout(int); procedure on older servers which do not support the new procedure.
-	 * It is called from: MonetConnection.isValid() and MonetStatement.internalExecute()
+	 * Executes the given SQL query asynchronously.  See
+	 * {@link #executeAsync(String, int)}, without a query timeout.
 	 *
-	 * @param seconds the time out time in seconds
-	 * @throws SQLException if an IO exception or a database error occurs
+	 * @param sql the SQL query to execute, typically a SELECT statement
+	 * @return a CompletableFuture which completes with the ResultSet of the query
 	 */
-	void setQueryTimeout(final int seconds) throws SQLException {
-		if (seconds < 0)
-			throw new SQLException("query timeout seconds is less than zero", "M1M05");
-
-		checkNotClosed();
-		Statement st = null;
-		try {
-			final String callstmt;
-
-			// as of release Jun2020 (11.37.7) the function sys.settimeout(secs bigint)
-			// is deprecated and replaced by new sys.setquerytimeout(secs int)
-			if (checkMinimumDBVersion(11, 37, 7))
-				callstmt = "CALL sys.\"setquerytimeout\"(" + seconds + ")";
-			else
-				callstmt = "CALL sys.\"settimeout\"(" + seconds + ")";
-
-			// for debug: System.out.println("Before: " + callstmt);
-			st = createStatement();
-			st.execute(callstmt);
-			// for debug: System.out.println("After : " + callstmt);
-
-			this.lastSetQueryTimeout = seconds;
-		}
-		/* do not catch SQLException here, as we want to know it when it fails */
-		finally {
-			closeResultsetStatement(null, st);
-		}
+	public CompletableFuture<MonetResultSet> executeAsync(final String sql) {
+		return executeAsync(sql, 0);
 	}
 
 	/**
-	 * This allows generic JDBC programs to fetch Blob data via getBytes()
-	 * instead of getBlob() and Blob.getBinaryStream() to reduce overhead.
-	 * It is called from: MonetResultSet and MonetPreparedStatement
+	 * Executes the given SQL query asynchronously: the query is queued
+	 * and this method returns at once.  The queries are executed one at
+	 * a time, in the order they were queued, by the async worker thread
+	 * of this connection, which only exists while queries are queued.
+	 * The ResultSet is read as with Statement.executeQuery(), so its
+	 * first block of rows is available when the future completes; the
+	 * ResultSet must be closed by the caller, which also closes the
+	 * Statement it was produced by.
 	 *
-	 * @return whether the JDBC BLOB type should be mapped to VARBINARY type.
+	 * At most async_queue queries wait for their turn; when that many
+	 * are queued, the returned future fails at once with SQLState HY014,
+	 * so the caller can back off.  The query timeout applies from the
+	 * moment the query is sent, like Statement.setQueryTimeout().
+	 * Cancelling the future before the query is sent drops it; a
+	 * running query is stopped as with Statement.cancel().
+	 *
+	 * Other use of this connection while asynchronous queries are
+	 * running waits for the running query, like the use of a connection
+	 * by multiple threads does.
+	 *
+	 * @param sql the SQL query to execute, typically a SELECT statement
+	 * @param queryTimeout the query timeout in seconds, 0 means no timeout
+	 * @return a CompletableFuture which completes with the ResultSet of
+	 *         the query, or completes exceptionally with an SQLException
 	 */
-	boolean mapBlobAsVarBinary() {
-		return target.isTreatBlobAsBinary();
+	public CompletableFuture<MonetResultSet> executeAsync(final String sql, final int queryTimeout) {
+		return submitAsync(st -> {
+			final MonetResultSet rs = (MonetResultSet) st.executeQuery(sql);
+			st.closeOnCompletion();
+			return rs;
+		}, queryTimeout);
 	}
 
 	/**
-	 * This allows generic JDBC programs to fetch Clob data via getString()
-	 * instead of getClob() and Clob.getCharacterStream() to reduce overhead.
-	 * It is called from: MonetResultSet and MonetPreparedStatement
+	 * Executes the given SQL statement asynchronously.  See
+	 * {@link #executeUpdateAsync(String, int)}, without a query timeout.
 	 *
-	 * @return whether the JDBC CLOB type should be mapped to VARCHAR type.
+	 * @param sql an SQL Data Manipulation Language (DML) or Data
+	 *        Definition Language (DDL) statement
+	 * @return a CompletableFuture which completes with the update count
 	 */
-	boolean mapClobAsVarChar() {
-		return target.isTreatClobAsVarchar();
+	public CompletableFuture<Long> executeUpdateAsync(final String sql) {
+		return executeUpdateAsync(sql, 0);
 	}
 
 	/**
-	 * It is called from: getURL()in MonetDatabaseMetaData
+	 * Executes the given SQL statement asynchronously, in the same way
+	 * as {@link #executeAsync(String, int)} executes a query.
 	 *
-	 * @return the MonetDB JDBC Connection URL (without user name and password).
+	 * @param sql an SQL Data Manipulation Language (DML) or Data
+	 *        Definition Language (DDL) statement
+	 * @param queryTimeout the query timeout in seconds, 0 means no timeout
+	 * @return a CompletableFuture which completes with the update count,
+	 *         like Statement.executeLargeUpdate() returns, or completes
+	 *         exceptionally with an SQLException
 	 */
-	String getJDBCURL() {
-		return target.buildUrl();
+	public CompletableFuture<Long> executeUpdateAsync(final String sql, final int queryTimeout) {
+		return submitAsync(st -> {
+			try {
+				return st.executeLargeUpdate(sql);
+			} finally {
+				st.close();
+			}
+		}, queryTimeout);
 	}
 
-	// Internal caches for 5 static mserver5 environment values
-	private String env_current_user;
-	private String env_monet_version;
-	private String env_monet_release;
-	private String env_raw_strings;	// Note: this is only supported from Jun2020 (11.37) servers
-	private int maxConnections;
+	/** A query executed by the async worker, see submitAsync() */
+	private interface AsyncTask<T> {
+		T execute(MonetStatement st) throws SQLException;
+	}
+
+	private <T> CompletableFuture<T> submitAsync(final AsyncTask<T> task, final int queryTimeout) {
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		try {
+			checkNotClosed();
+			if (queryTimeout < 0)
+				throw new SQLException("Illegal timeout value: " + queryTimeout, "M1M05");
+			getAsyncWorker().execute(new AsyncQuery<T>(task, queryTimeout, future));
+		} catch (SQLException e) {
+			future.completeExceptionally(e);
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(closed
+				? new SQLException("Connection is closed", "M1M20")
+				: new SQLException("Too many asynchronous queries waiting: " + asyncQueue, "HY014"));
+		}
+		return future;
+	}
 
 	/**
-	 * Utility method to fetch 5 mserver5 environment values combined in one query for efficiency.
-	 * We fetch the env() values of: current_user, monet_version, monet_release, max_clients and raw_strings.
-	 * We cache them such that we do not need to query the server again and again.
-	 * Note: raw_strings is available in sys.env() result set since release Jun2020 (11.37)
+	 * Returns the executor of the asynchronous queries.  It uses a
+	 * single daemon thread, which stops when no queries are queued for
+	 * a while, and a queue of at most asyncQueue queries.
 	 *
-	 * @throws SQLException if execution of query failed
+	 * @return the async worker of this connection
 	 */
-	private synchronized void getEnvValues() throws SQLException {
-		Statement st = null;
-		ResultSet rs = null;
-		try {
-			st = createStatement();
-			if (st != null) {
-				rs = st.executeQuery(
-					"SELECT \"name\", \"value\" FROM \"sys\".\"env\"()" +
-					" WHERE \"name\" IN ('monet_version', 'monet_release', 'max_clients', 'raw_strings')" +
-					" UNION SELECT 'current_user' as \"name\", current_user as \"value\"");
-				if (rs != null) {
-					while (rs.next()) {
-						final String prop = rs.getString(1);
-						final String value = rs.getString(2);
-						if ("current_user".equals(prop)) {
-							env_current_user = value;
-						} else
-						if ("monet_version".equals(prop)) {
-							env_monet_version = value;
-						} else
-						if ("monet_release".equals(prop)) {
-							env_monet_release = value;
-						} else
-						if ("raw_strings".equals(prop)) {
-							env_raw_strings = value;
-						} else
-						if ("max_clients".equals(prop) && value != null) {
-							try {
-								maxConnections = Integer.parseInt(value);
-							} catch (NumberFormatException nfe) {
-								/* ignore */
-							}
-							if (maxConnections <= 0)
-								maxConnections = 1;
+	private synchronized ThreadPoolExecutor getAsyncWorker() {
+		if (asyncWorker == null) {
+			asyncWorker = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(asyncQueue), r -> {
+					final Thread t = new Thread(r, "MonetDB async worker");
+					t.setDaemon(true);
+					return t;
+				});
+			asyncWorker.allowCoreThreadTimeOut(true);
+		}
+		return asyncWorker;
+	}
+
+	/**
+	 * A queued asynchronous query.  It executes the query on a new
+	 * Statement, so the query timeout and cancellation of Statement
+	 * apply, and completes the future with the outcome.
+	 */
+	private final class AsyncQuery<T> implements Runnable {
+		private final AsyncTask<T> task;
+		private final int queryTimeout;
+		private final CompletableFuture<T> future;
+
+		AsyncQuery(final AsyncTask<T> task, final int queryTimeout, final CompletableFuture<T> future) {
+			this.task = task;
+			this.queryTimeout = queryTimeout;
+			this.future = future;
+		}
+
+		@Override
+		public void run() {
+			// dropped when cancelled while queued
+			if (future.isDone())
+				return;
+			MonetStatement st = null;
+			try {
+				st = (MonetStatement) createStatement();
+				st.setQueryTimeout(queryTimeout);
+				final MonetStatement running = st;
+				future.whenComplete((result, err) -> {
+					if (future.isCancelled()) {
+						try {
+							running.cancel();
+						} catch (SQLException e) {
+							// the statement completed meanwhile
 						}
 					}
+				});
+				final T result = task.execute(st);
+				if (!future.complete(result) && result instanceof AutoCloseable) {
+					// cancelled meanwhile, nobody is going to close it
+					((AutoCloseable) result).close();
 				}
+			} catch (SQLException e) {
+				fail(e);
+			} catch (Exception e) {
+				fail(new SQLException("Asynchronous query failed: " + e, "M0M10", e));
+			} finally {
+				if (st != null && future.isCompletedExceptionally())
+					st.close();
 			}
-		/* do not catch SQLException here, as we need to know it when it fails */
-		} finally {
-			closeResultsetStatement(rs, st);
 		}
-		// for debug: System.out.println("Read: env_current_user: " + env_current_user + "  env_monet_version: " + env_monet_version + "  env_monet_release: " + env_monet_release + "  env_max_clients: " + maxConnections + "  env_raw_strings: " + env_raw_strings);
+
+		void fail(final SQLException e) {
+			future.completeExceptionally(e);
+		}
 	}
 
+	/** The maximum number of bytes of pipelined statements awaiting their response */
+	private static final int PIPELINE_WINDOW = 32 * 1024;
+
 	/**
-	 * Get user login name from the server.
-	 * It is called from: MonetDatabaseMetaData
+	 * Executes the given SQL statements in a pipeline: each statement is
+	 * sent to the server without waiting for the response to the previous
+	 * one, and the responses are matched to the statements as they arrive.
+	 * Many small statements thereby cost about one network round trip
+	 * instead of one round trip per statement.
 	 *
-	 * @return the current User Name for this comnection
-	 * @throws SQLException if fetching user name failed
+	 * The statements are independent: a statement which fails does not
+	 * stop the execution of the statements after it.  Like executeBatch(),
+	 * this returns the update count of each statement, and when one or
+	 * more statements failed, it throws a BatchUpdateException with these
+	 * counts, in which the failed statements have
+	 * Statement.EXECUTE_FAILED, and with the errors chained to it.  The
+	 * statements may not produce a ResultSet.
+	 *
+	 * At most PIPELINE_WINDOW bytes of statements, as sent in UTF-8, await
+	 * their response, so the server can always buffer what is sent.  A COPY ...
+	 * ON CLIENT statement is only sent when it is the only statement
+	 * awaiting a response, as the file transfer uses the connection.
+	 *
+	 * @param statements the SQL statements to execute
+	 * @return an array of update counts containing one element for each
+	 *         statement, SUCCESS_NO_INFO if a statement has no update count
+	 * @throws SQLException if the connection is closed or fails
+	 * @throws BatchUpdateException (a subclass of SQLException) if one of
+	 *         the statements failed
 	 */
-	String getUserName() throws SQLException {
-		if (env_current_user == null)
-			getEnvValues();
-		return env_current_user;
+	public long[] executePipeline(final List<String> statements) throws SQLException {
+		checkNotClosed();
+		final long[] counts = new long[statements.size()];
+		final SQLException e = new SQLException();
+		final boolean[] error = { false };
+
+		pipeline(statements.iterator(), (index, responses, err) -> {
+			if (err == null) {
+				long count = Statement.SUCCESS_NO_INFO;
+				for (Response r : responses) {
+					if (r instanceof ResultSetResponse) {
+						err = new SQLException("Pipelined statement " + (index + 1) + " produced a ResultSet!", "M1M17");
+						break;
+					}
+					if (r instanceof UpdateResponse && ((UpdateResponse) r).count >= 0)
+						count = Math.max(count, 0) + ((UpdateResponse) r).count;
+				}
+				counts[index] = count;
+			}
+			if (err != null) {
+				e.setNextException(err);
+				counts[index] = Statement.EXECUTE_FAILED;
+				error[0] = true;
+			}
+		});
+
+		if (error[0]) {
+			// the BatchUpdateException keeps a copy of the counts, so create it afterwards
+			final BatchUpdateException bue = new BatchUpdateException(
+				"Error(s) occurred while executing the pipeline, " +
+				"see chained SQLExceptions for details", "22000", 22000, counts, null);
+			bue.setNextException(e.getNextException());
+			throw bue;
+		}
+		return counts;
 	}
 
 	/**
-	 * Get the maximum number of allowed connections from the server.
-	 * It is called from: MonetDatabaseMetaData
-	 * A result of zero means that there is no limit or the limit is not known
-	 *
-	 * @return the maximum number of active connections possible at one time
-	 * @throws SQLException if fetching maximum connections failed
+	 * Receives the responses to the statements executed by pipeline().
 	 */
-	int getMaxConnections() throws SQLException {
-		if (maxConnections == 0)
-			getEnvValues();
-		return maxConnections;
+	interface PipelineHandler {
+		/**
+		 * Handles the responses to one statement.  The responses must not
+		 * be closed by the handler.
+		 *
+		 * @param index the index of the statement, starting at 0
+		 * @param responses the responses to the statement
+		 * @param error the error of the statement, or null if it succeeded
+		 */
+		void handle(int index, List<Response> responses, SQLException error);
 	}
 
 	/**
-	 * Get whether the server is started with raw_strings turned on.
-	 * By default this is false (so C-style strings processing is used).
-	 * When a server is started with option: --set raw_strings=true
-	 * then this will return true, else false.
-	 * This startup option is supported only by servers since Jun2020 (11.37) onwards.
+	 * Executes the given SQL statements in a pipeline, see
+	 * executePipeline().  The handler is called with the responses to
+	 * each statement in order, while the statements after it are
+	 * already being sent and executed.
+	 * It is called from: MonetStatement
 	 *
-	 * @return whether the server is started with raw_strings processing enabled.
-	 * @throws SQLException if fetching raw_strings setting failed
+	 * @param statements the SQL statements to execute
+	 * @param handler the handler of the responses
+	 * @throws SQLException if the connection fails
 	 */
-	boolean inRawStringsMode() throws SQLException {
-		if (env_raw_strings == null) {
-			getEnvValues();
-			if (env_raw_strings == null) {
-				/* older servers (pre Jun2020 (11.37)) do not
-				 * return this in the sys.env() view and did
-				 * not yet support raw_strings.
-				 * So set it to: false. */
+	void pipeline(final Iterator<String> statements, final PipelineHandler handler) throws SQLException {
+		// the sizes in bytes of the statements sent, which await their response
+		final ArrayDeque<Integer> waiting = new ArrayDeque<Integer>();
+		int waitingBytes = 0;
+		boolean waitingTransfer = false;
+		// ResponseLists with result sets are closed after the pipeline,
+		// as closing them may send a command to the server
+		List<ResponseList> resultSets = null;
+
+		try {
+			synchronized (server) {
+				in.discardRemainder();
+				String next = null;
+				for (int index = 0; ; index++) {
+					// send ahead as many statements as fit in the window
+					while (next != null || statements.hasNext()) {
+						if (next == null)
+							next = statements.next();
+						final boolean transfer = isFileTransfer(next);
+						final int size = encodedLength(next) + queryTempl[0].length() + queryTempl[1].length();
+						if (!waiting.isEmpty() && (waitingBytes + size > PIPELINE_WINDOW
+								|| transfer || waitingTransfer))
+							break;
+						out.writeLine(queryTempl[0], next, queryTempl[1]);
+						waiting.add(size);
+						waitingBytes += size;
+						waitingTransfer = transfer;
+						next = null;
+					}
+					if (waiting.isEmpty())
+						break;
+
+					// the reader is at the prompt of the previous response
+					in.resetLineType();
+					final ResponseList rl = new ResponseList(0, 0, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+					final String err = rl.readResponses(null);
+					waitingBytes -= waiting.remove();
+					if (waiting.isEmpty())
+						waitingTransfer = false;
+					if (hasResultSet(rl)) {
+						if (resultSets == null)
+							resultSets = new ArrayList<ResponseList>();
+						resultSets.add(rl);
+					}
+					handler.handle(index, rl.responses, err != null ? rl.toSQLException(err) : null);
+				}
+			}
+		} catch (SocketTimeoutException e) {
+			close(); // JDBC 4.1 semantics, abort()
+			throw new SQLNonTransientConnectionException("connection timed out", "08M33");
+		} catch (IOException e) {
+			closed = true;
+			throw new SQLNonTransientConnectionException(e.getMessage() + " (mserver5 still alive?)", "08006");
+		} finally {
+			if (resultSets != null) {
+				for (ResponseList rl : resultSets)
+					rl.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of the given String in UTF-8, in which
+	 * it is sent to the server.  An unpaired surrogate is counted as if
+	 * it were paired, which may only overestimate the size.
+	 *
+	 * @param s the String
+	 * @return the number of bytes
+	 */
+	private static int encodedLength(final String s) {
+		final int len = s.length();
+		int n = len;
+		for (int i = 0; i < len; i++) {
+			final char c = s.charAt(i);
+			if (c >= 0x80) {
+				// 2 bytes, 3 bytes, or 4 bytes for a surrogate pair
+				n += (c < 0x800 || Character.isSurrogate(c)) ? 1 : 2;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Returns whether the given statement may start a file transfer,
+	 * which are the COPY ... ON CLIENT statements.
+	 */
+	private static boolean isFileTransfer(final String sql) {
+		final int len = sql.length();
+		for (int i = 0; i + 9 <= len; i++) {
+			if (sql.regionMatches(true, i, "ON CLIENT", 0, 9))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean hasResultSet(final ResponseList rl) {
+		for (Response r : rl.responses) {
+			if (r instanceof ResultSetResponse)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of prepareStatement() and prepareCall() calls
+	 * on this connection which reused a prepared statement from the
+	 * statement cache.  The statement cache is enabled with the
+	 * statement_cache connection property.
+	 *
+	 * @return the number of statement cache hits
+	 */
+	public long getStatementCacheHits() {
+		synchronized (statementCache) {
+			return statementCacheHits;
+		}
+	}
+
+	/**
+	 * Returns the number of read calls on the socket to the server
+	 * since this connection was made.  Compared with
+	 * {@link #getBlocksRead()} this shows whether the read_buffer
+	 * connection property is large enough: with a well sized buffer,
+	 * one socket read receives many blocks of a large result.
+	 *
+	 * @return the number of socket reads
+	 */
+	public long getSocketReads() {
+		return server.getSocketReads();
+	}
+
+	/**
+	 * Returns the number of protocol blocks received from the server
+	 * since this connection was made.
+	 *
+	 * @return the number of blocks read
+	 */
+	public long getBlocksRead() {
+		return server.getBlocksRead();
+	}
+
+	/**
+	 * Returns the number of prepareStatement() and prepareCall() calls
+	 * on this connection which had to prepare the statement on the
+	 * server while the statement cache is enabled.
+	 *
+	 * @return the number of statement cache misses
+	 */
+	public long getStatementCacheMisses() {
+		synchronized (statementCache) {
+			return statementCacheMisses;
+		}
+	}
+
+	/**
+	 * Returns the number of closed prepared statements currently kept
+	 * prepared on the server by the statement cache.
+	 *
+	 * @return the number of cached prepared statements
+	 */
+	public int getStatementCacheSize() {
+		synchronized (statementCache) {
+			return statementCache.size();
+		}
+	}
+
+	/**
+	 * Local helper method to set the time zone for this connection
+	 *
+	 * @param offsetSeconds Time Zone offset in seconds, can be negative or zero
+	 * @throws SQLException if an IO exception or a database error occurs
+	 */
+	private void setTimezone(int offsetSeconds) throws SQLException {
+		final StringBuilder tz = new StringBuilder(64);
+		tz.append("SET TIME ZONE INTERVAL '");
+		int offsetMinutes = offsetSeconds / 60;
+		if (offsetMinutes < 0) {
+			tz.append('-');
+			offsetMinutes = -offsetMinutes; // make it positive
+		} else {
+			tz.append('+');
+		}
+		int offsetHours = offsetMinutes / 60;
+		if (offsetHours < 10)
+			tz.append('0');
+		tz.append(offsetHours).append(':');
+		offsetMinutes -= offsetHours * 60;
+		if (offsetMinutes < 10)
+			tz.append('0');
+		tz.append(offsetMinutes).append("' HOUR TO MINUTE");
+		sendIndependentCommand(tz.toString());
+	}
+
+	/**
+	 * Local helper method to check whether the Connection object is closed
+	 * and throw an SQLExecption if it is closed.
+	 *
+	 * @throws SQLException if this connection is closed
+	 */
+	private void checkNotClosed() throws SQLException {
+		if (closed)
+			throw new SQLException("Connection is closed", "M1M20");
+	}
+
+	/**
+	 * Runs an execution of the given Statement while holding the lock on
+	 * the server, such that stopRunningQuery() only stops the queries of
+	 * this execution.
+	 * It is called from: MonetStatement.executeMonitored()
+	 *
+	 * @param owner the Statement which executes
+	 * @param execution the execution to run
+	 * @throws SQLException if the execution fails
+	 */
+	void runExecution(final MonetStatement owner, final MonetStatement.Execution execution) throws SQLException {
+		synchronized (server) {
+			executionCount++;
+			runningStatement = owner;
+			try {
+				execution.run();
+			} finally {
+				runningStatement = null;
+			}
+		}
+	}
+
+	/**
+	 * Stops the query of the given Statement which is currently running
+	 * in the session of this connection.  A separate control connection,
+	 * made with the same connection parameters, looks up the running
+	 * queries of the session in sys.queue and stops them using
+	 * sys.stop(tag).  The server then replies to the waiting thread with
+	 * an error, so this connection remains usable.
+	 * This requires MonetDB server Jun2020 (11.37) or higher.
+	 * It is called from: MonetStatement.cancel() and stopRunningQueryLater()
+	 *
+	 * The tags are only stopped when the same execution of the Statement
+	 * held the lock on the server before and after they were looked up,
+	 * so they can not belong to a query of another Statement.  A tag is
+	 * never reused, so stopping it after the query completed is a no-op.
+	 *
+	 * The control connection is kept for the next stop and closed with
+	 * this connection.  Its connect and its replies may take at most
+	 * CONTROL_TIMEOUT milliseconds, or so_timeout when that is shorter,
+	 * so a stop does not hang on a server which does not respond.  When
+	 * a kept control connection fails, for instance because the server
+	 * ended its session, the stop is tried once more on a new one.
+	 *
+	 * @param owner the Statement whose query is to be stopped
+	 * @return the number of stopped queries
+	 * @throws SQLException if the session id is not known or stopping the query fails
+	 */
+	int stopRunningQuery(final MonetStatement owner) throws SQLException {
+		final long execution = executionCount;
+		if (closed || runningStatement != owner)
+			return 0;
+		final int sid = sessionId;
+		if (sid < 0)
+			throw new SQLException("Cannot stop the query, the session id of this connection is not known" +
+				(sessionIdError != null ? ": " + sessionIdError : ""), "HY000");
+		synchronized (controlLock) {
+			boolean retry = control != null;
+			while (true) {
+				if (closed)
+					return 0;
+				try {
+					if (control == null) {
+						final Target ctlTarget = target.copy();
+						final int soTimeout = ctlTarget.getSoTimeout();
+						ctlTarget.setSoTimeout(soTimeout > 0 && soTimeout < CONTROL_TIMEOUT ? soTimeout : CONTROL_TIMEOUT);
+						ctlTarget.clear(Parameter.SCHEMA);
+						control = new MonetConnection(ctlTarget, true);
+					}
+					return stopQueries(control, owner, execution, sid);
+				} catch (SQLException e) {
+					closeControl();
+					if (!retry)
+						throw e;
+					retry = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Looks up the running queries of the given session and stops them,
+	 * unless the given execution of the Statement completed meanwhile.
+	 * The caller must hold the controlLock.
+	 *
+	 * @param ctl the control connection to use
+	 * @param owner the Statement whose query is to be stopped
+	 * @param execution the executionCount of the execution to stop
+	 * @param sid the session id of this connection
+	 * @return the number of stopped queries
+	 * @throws SQLException if stopping the query fails
+	 */
+	private int stopQueries(final MonetConnection ctl, final MonetStatement owner, final long execution, final int sid)
+		throws SQLException
+	{
+		final ArrayList<Long> tags = new ArrayList<>(1);
+		try (Statement st = ctl.createStatement();
+		     ResultSet rs = st.executeQuery("SELECT \"tag\" FROM \"sys\".\"queue\" WHERE \"sessionid\" = " + sid +
+			" AND \"status\" IN ('running', 'paused')")) {
+			while (rs.next())
+				tags.add(rs.getLong(1));
+		}
+		if (runningStatement != owner || executionCount != execution)
+			return 0;	// the execution completed meanwhile
+		try (Statement st = ctl.createStatement()) {
+			for (Long tag : tags)
+				st.execute("CALL \"sys\".\"stop\"(" + tag + ")");
+		}
+		return tags.size();
+	}
+
+	/**
+	 * Closes the control connection, if any.  The caller must hold the
+	 * controlLock.
+	 */
+	private void closeControl() {
+		if (control != null) {
+			control.close();
+			control = null;
+		}
+	}
+
+	/**
+	 * Stops the query of the given Statement like stopRunningQuery(), but
+	 * on the stopper thread of this connection.  The deadline scheduler,
+	 * which is shared by all connections, only hands the stop over, so a
+	 * server which is slow to respond does not delay the deadlines of the
+	 * other connections.  Failures are ignored, the server enforces the
+	 * query timeout as well.
+	 * It is called from: MonetStatement.queryTimeoutExpired()
+	 *
+	 * @param owner the Statement whose query is to be stopped
+	 */
+	void stopRunningQueryLater(final MonetStatement owner) {
+		final ThreadPoolExecutor executor;
+		synchronized (this) {
+			if (closed)
+				return;
+			if (stopper == null) {
+				stopper = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), r -> {
+						final Thread t = new Thread(r, "MonetDB query stopper");
+						t.setDaemon(true);
+						return t;
+					});
+				stopper.allowCoreThreadTimeOut(true);
+			}
+			executor = stopper;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					stopRunningQuery(owner);
+				} catch (SQLException e) {
+					/* ignore, the server enforces the query timeout as well */
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			/* ignore, the connection was closed meanwhile */
+		}
+	}
+
+	/**
+	 * Schedules a task to run after the given delay on the deadline
+	 * scheduler thread, which is shared by all connections.
+	 * It is called from: MonetStatement.internalExecute()
+	 *
+	 * @param task the task to run when the deadline expires
+	 * @param millis the delay in milliseconds
+	 * @return the ScheduledFuture to cancel the task with
+	 */
+	static ScheduledFuture<?> scheduleDeadline(final Runnable task, final long millis) {
+		final ScheduledThreadPoolExecutor scheduler;
+		synchronized (MonetConnection.class) {
+			if (deadlineScheduler == null) {
+				deadlineScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+					final Thread t = new Thread(r, "MonetDB query deadline scheduler");
+					t.setDaemon(true);
+					return t;
+				});
+				// do not keep the tasks of queries which completed in time
+				deadlineScheduler.setRemoveOnCancelPolicy(true);
+			}
+			scheduler = deadlineScheduler;
+		}
+		return scheduler.schedule(task, millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the maximum number of batched rows of a simple INSERT
+	 * statement which are sent as one multi-row INSERT statement.
+	 * It is called from: MonetPreparedStatement
+	 *
+	 * @return the maximum number of rows, 0 if rewriting is disabled
+	 */
+	int getBatchInsertRows() {
+		return batchInsertRows;
+	}
+
+	/**
+	 * Returns the minimum number of batched rows of a simple INSERT
+	 * statement which are loaded with COPY INTO ... ON CLIENT.
+	 * It is called from: MonetPreparedStatement
+	 *
+	 * @return the minimum number of rows, 0 if this is disabled
+	 */
+	int getBatchCopyRows() {
+		return batchCopyRows;
+	}
+
+	/**
+	 * Registers an UploadHandler of the driver itself for a COPY INTO
+	 * ... ON CLIENT statement.  Uploads of the returned file name are
+	 * handled by this handler instead of the handler registered with
+	 * setUploadHandler().
+	 *
+	 * @param handler the UploadHandler
+	 * @return the file name to use in the COPY INTO statement
+	 */
+	String addInternalUpload(final UploadHandler handler) {
+		final String name = "monetdb-jdbc-upload-" + internalUploadCount.incrementAndGet();
+		internalUploads.put(name, handler);
+		return name;
+	}
+
+	/**
+	 * Removes an UploadHandler registered with addInternalUpload().
+	 *
+	 * @param name the file name returned by addInternalUpload()
+	 */
+	void removeInternalUpload(final String name) {
+		internalUploads.remove(name);
+	}
+
+	/**
+	 * Registers a DownloadHandler of the driver itself for a COPY ...
+	 * INTO ... ON CLIENT statement.  Downloads to the returned file name
+	 * are handled by this handler instead of the handler registered with
+	 * setDownloadHandler().
+	 *
+	 * @param handler the DownloadHandler
+	 * @return the file name to use in the COPY statement
+	 */
+	String addInternalDownload(final DownloadHandler handler) {
+		final String name = "monetdb-jdbc-download-" + internalUploadCount.incrementAndGet();
+		internalDownloads.put(name, handler);
+		return name;
+	}
+
+	/**
+	 * Removes a DownloadHandler registered with addInternalDownload().
+	 *
+	 * @param name the file name returned by addInternalDownload()
+	 */
+	void removeInternalDownload(final String name) {
+		internalDownloads.remove(name);
+	}
+
+	/**
+	 * Returns the key of a prepared statement in the statement cache.
+	 *
+	 * @param sql the SQL text of the prepared statement
+	 * @param resultSetType the ResultSet type of the statement
+	 * @param resultSetConcurrency the ResultSet concurrency of the statement
+	 * @return the statement cache key
+	 */
+	static String statementCacheKey(final String sql, final int resultSetType, final int resultSetConcurrency) {
+		return resultSetType + ":" + resultSetConcurrency + ":" + sql;
+	}
+
+	/**
+	 * Returns the current schema generation.  It is incremented every
+	 * time the server reports a schema change.
+	 *
+	 * @return the schema generation
+	 */
+	int getSchemaGeneration() {
+		return schemaGeneration;
+	}
+
+	/**
+	 * Removes the prepared statement for the given SQL text from the
+	 * statement cache, so a new MonetPreparedStatement can use it
+	 * without sending a PREPARE to the server.
+	 * It is called from: the MonetPreparedStatement constructor
+	 *
+	 * @param sql the SQL text to prepare
+	 * @param resultSetType the ResultSet type of the statement
+	 * @param resultSetConcurrency the ResultSet concurrency of the statement
+	 * @return the cached prepared statement or null if there is none
+	 */
+	MonetPreparedStatement.Prepared takeCachedStatement(final String sql, final int resultSetType, final int resultSetConcurrency) {
+		if (statementCacheSize == 0)
+			return null;
+
+		final String key = statementCacheKey(sql, resultSetType, resultSetConcurrency);
+		final ArrayList<MonetPreparedStatement.Prepared> stale = new ArrayList<>();
+		final MonetPreparedStatement.Prepared prep;
+		synchronized (statementCache) {
+			removeStaleStatements(stale);
+			prep = statementCache.remove(key);
+			if (prep != null)
+				statementCacheHits++;
+			else
+				statementCacheMisses++;
+		}
+		releaseStatements(stale);
+		return prep;
+	}
+
+	/**
+	 * Adds the prepared statement of a closed MonetPreparedStatement
+	 * to the statement cache.  When the cache is full, the least
+	 * recently closed prepared statement is released on the server.
+	 * It is called from: MonetPreparedStatement.close()
+	 *
+	 * @param prep the prepared statement to keep
+	 * @return true if the prepared statement is kept, false if the
+	 *         caller has to release it on the server
+	 */
+	boolean cacheStatement(final MonetPreparedStatement.Prepared prep) {
+		if (statementCacheSize == 0 || closed)
+			return false;
+
+		final ArrayList<MonetPreparedStatement.Prepared> stale = new ArrayList<>();
+		boolean kept = false;
+		synchronized (statementCache) {
+			removeStaleStatements(stale);
+			// a statement prepared before a schema change or a second
+			// statement for the same SQL text is not kept
+			if (prep.generation == statementCacheGeneration && !statementCache.containsKey(prep.key)) {
+				statementCache.put(prep.key, prep);
+				kept = true;
+				if (statementCache.size() > statementCacheSize) {
+					final Iterator<MonetPreparedStatement.Prepared> it = statementCache.values().iterator();
+					stale.add(it.next());
+					it.remove();
+				}
+			}
+		}
+		releaseStatements(stale);
+		return kept;
+	}
+
+	/**
+	 * Moves all cached prepared statements to the given list when the
+	 * server reported a schema change since they were prepared.  The
+	 * caller must hold the lock on the statementCache.
+	 *
+	 * @param stale the list to add the invalidated prepared statements to
+	 */
+	private void removeStaleStatements(final List<MonetPreparedStatement.Prepared> stale) {
+		final int generation = schemaGeneration;
+		if (statementCacheGeneration != generation) {
+			stale.addAll(statementCache.values());
+			statementCache.clear();
+			statementCacheGeneration = generation;
+		}
+	}
+
+	/**
+	 * Releases the given prepared statements on the server.  This is
+	 * done outside the lock on the statementCache, as it needs the
+	 * lock on the server.
+	 *
+	 * @param stale the prepared statements to release
+	 */
+	private void releaseStatements(final List<MonetPreparedStatement.Prepared> stale) {
+		for (MonetPreparedStatement.Prepared prep : stale) {
+			try {
+				sendControlCommand("release " + prep.id);
+			} catch (SQLException e) {
+				// probably server closed connection
+			}
+		}
+	}
+
+	/**
+	 * Utility method to call sys.setquerytimeout(int); procedure on the connected server
+	 * or sys.settimeout(int); procedure on older servers which do not support the new procedure.
+	 * It is called from: MonetConnection.isValid() and MonetStatement.internalExecute()
+	 *
+	 * @param seconds the time out time in seconds
+	 * @throws SQLException if an IO exception or a database error occurs
+	 */
+	void setQueryTimeout(final int seconds) throws SQLException {
+		if (seconds < 0)
+			throw new SQLException("query timeout seconds is less than zero", "M1M05");
+
+		checkNotClosed();
+		Statement st = null;
+		try {
+			final String callstmt;
+
+			// as of release Jun2020 (11.37.7) the function sys.settimeout(secs bigint)
+			// is deprecated and replaced by new sys.setquerytimeout(secs int)
+			if (checkMinimumDBVersion(11, 37, 7))
+				callstmt = "CALL sys.\"setquerytimeout\"(" + seconds + ")";
+			else
+				callstmt = "CALL sys.\"settimeout\"(" + seconds + ")";
+
+			// for debug: System.out.println("Before: " + callstmt);
+			st = createStatement();
+			st.execute(callstmt);
+			// for debug: System.out.println("After : " + callstmt);
+
+			this.lastSetQueryTimeout = seconds;
+		}
+		/* do not catch SQLException here, as we want to know it when it fails */
+		finally {
+			closeResultsetStatement(null, st);
+		}
+	}
+
+	/**
+	 * This allows generic JDBC programs to fetch Blob data via getBytes()
+	 * instead of getBlob() and Blob.getBinaryStream() to reduce overhead.
+	 * It is called from: MonetResultSet and MonetPreparedStatement
+	 *
+	 * @return whether the JDBC BLOB type should be mapped to VARBINARY type.
+	 */
+	boolean mapBlobAsVarBinary() {
+		return target.isTreatBlobAsBinary();
+	}
+
+	/**
+	 * This allows generic JDBC programs to fetch Clob data via getString()
+	 * instead of getClob() and Clob.getCharacterStream() to reduce overhead.
+	 * It is called from: MonetResultSet and MonetPreparedStatement
+	 *
+	 * @return whether the JDBC CLOB type should be mapped to VARCHAR type.
+	 */
+	boolean mapClobAsVarChar() {
+		return target.isTreatClobAsVarchar();
+	}
+
+	/**
+	 * It is called from: getURL()in MonetDatabaseMetaData
+	 *
+	 * @return the MonetDB JDBC Connection URL (without user name and password).
+	 */
+	String getJDBCURL() {
+		return target.buildUrl();
+	}
+
+	// Internal caches for 5 static mserver5 environment values
+	private String env_current_user;
+	private String env_monet_version;
+	private String env_monet_release;
+	private String env_raw_strings;	// Note: this is only supported from Jun2020 (11.37) servers
+	private int maxConnections;
+
+	/**
+	 * Utility method to fetch 5 mserver5 environment values combined in one query for efficiency.
+	 * We fetch the env() values of: current_user, monet_version, monet_release, max_clients and raw_strings.
+	 * We cache them such that we do not need to query the server again and again.
+	 * Note: raw_strings is available in sys.env() result set since release Jun2020 (11.37)
+	 *
+	 * @throws SQLException if execution of query failed
+	 */
+	private synchronized void getEnvValues() throws SQLException {
+		Statement st = null;
+		ResultSet rs = null;
+		try {
+			st = createStatement();
+			if (st != null) {
+				rs = st.executeQuery(
+					"SELECT \"name\", \"value\" FROM \"sys\".\"env\"()" +
+					" WHERE \"name\" IN ('monet_version', 'monet_release', 'max_clients', 'raw_strings')" +
+					" UNION SELECT 'current_user' as \"name\", current_user as \"value\"");
+				if (rs != null) {
+					while (rs.next()) {
+						final String prop = rs.getString(1);
+						final String value = rs.getString(2);
+						if ("current_user".equals(prop)) {
+							env_current_user = value;
+						} else
+						if ("monet_version".equals(prop)) {
+							env_monet_version = value;
+						} else
+						if ("monet_release".equals(prop)) {
+							env_monet_release = value;
+						} else
+						if ("raw_strings".equals(prop)) {
+							env_raw_strings = value;
+						} else
+						if ("max_clients".equals(prop) && value != null) {
+							try {
+								maxConnections = Integer.parseInt(value);
+							} catch (NumberFormatException nfe) {
+								/* ignore */
+							}
+							if (maxConnections <= 0)
+								maxConnections = 1;
+						}
+					}
+				}
+			}
+		/* do not catch SQLException here, as we need to know it when it fails */
+		} finally {
+			closeResultsetStatement(rs, st);
+		}
+		// for debug: System.out.println("Read: env_current_user: " + env_current_user + "  env_monet_version: " + env_monet_version + "  env_monet_release: " + env_monet_release + "  env_max_clients: " + maxConnections + "  env_raw_strings: " + env_raw_strings);
+	}
+
+	/**
+	 * Get user login name from the server.
+	 * It is called from: MonetDatabaseMetaData
+	 *
+	 * @return the current User Name for this comnection
+	 * @throws SQLException if fetching user name failed
+	 */
+	String getUserName() throws SQLException {
+		if (env_current_user == null)
+			getEnvValues();
+		return env_current_user;
+	}
+
+	/**
+	 * Get the maximum number of allowed connections from the server.
+	 * It is called from: MonetDatabaseMetaData
+	 * A result of zero means that there is no limit or the limit is not known
+	 *
+	 * @return the maximum number of active connections possible at one time
+	 * @throws SQLException if fetching maximum connections failed
+	 */
+	int getMaxConnections() throws SQLException {
+		if (maxConnections == 0)
+			getEnvValues();
+		return maxConnections;
+	}
+
+	/**
+	 * Get whether the server is started with raw_strings turned on.
+	 * By default this is false (so C-style strings processing is used).
+	 * When a server is started with option: --set raw_strings=true
+	 * then this will return true, else false.
+	 * This startup option is supported only by servers since Jun2020 (11.37) onwards.
+	 *
+	 * @return whether the server is started with raw_strings processing enabled.
+	 * @throws SQLException if fetching raw_strings setting failed
+	 */
+	boolean inRawStringsMode() throws SQLException {
+		if (env_raw_strings == null) {
+			getEnvValues();
+			if (env_raw_strings == null) {
+				/* older servers (pre Jun2020 (11.37)) do not
+				 * return this in the sys.env() view and did
+				 * not yet support raw_strings.
+				 * So set it to: false. */
 				env_raw_strings = "false";
 			}
 		}
@@ -2249,20 +3344,63 @@ public class MonetConnection
 	 * Making sure there is a prompt after the command is sent.  All possible
 	 * returned information is discarded. Encountered errors are reported.
 	 *
-	 * @param command the exact string to send to MonetDB
-	 * @param usequeryTempl send the command using queryTempl or else using commandTempl
-	 * @throws SQLException if an IO exception or a database error occurs
+	 * @param command the exact string to send to MonetDB
+	 * @param usequeryTempl send the command using queryTempl or else using commandTempl
+	 * @throws SQLException if an IO exception or a database error occurs
+	 */
+	private void sendCommand(final String command, final boolean usequeryTempl) throws SQLException {
+		synchronized (server) {
+			try {
+				if (usequeryTempl)
+					out.writeLine(queryTempl[0], command, queryTempl[1]);
+				else
+					out.writeLine(commandTempl[0], command, commandTempl[1]);
+				final String error = in.discardRemainder();
+				lastAlive = System.nanoTime();
+				if (error != null)
+					throw new SQLException(error.substring(6), error.substring(0, 5));
+			} catch (SocketTimeoutException e) {
+				close(); // JDBC 4.1 semantics, abort()
+				throw new SQLNonTransientConnectionException("connection timed out", "08M33");
+			} catch (IOException e) {
+				throw new SQLNonTransientConnectionException(e.getMessage(), "08000");
+			}
+		}
+	}
+
+	/**
+	 * Asks the server for the id of the session of this connection, which
+	 * stopRunningQuery() needs to find the running query of this session.
+	 * It can not be asked for while that query runs, so it is asked for
+	 * once while the connection is set up.  When the server can not tell
+	 * it (before Jun2020), the queries of this connection can not be
+	 * stopped and the error of the server is kept to report it then.
+	 * It is called from: the constructor
+	 *
+	 * @throws SQLException if an IO exception occurs
 	 */
-	private void sendCommand(final String command, final boolean usequeryTempl) throws SQLException {
+	private void fetchSessionId() throws SQLException {
 		synchronized (server) {
 			try {
-				if (usequeryTempl)
-					out.writeLine(queryTempl[0] + command + queryTempl[1]);
-				else
-					out.writeLine(commandTempl[0] + command + commandTempl[1]);
-				final String error = in.discardRemainder();
-				if (error != null)
-					throw new SQLException(error.substring(6), error.substring(0, 5));
+				out.writeLine(queryTempl[0], "SELECT current_sessionid()", queryTempl[1]);
+				in.advance();
+				while (in.getLineType() != LineType.PROMPT) {
+					final String line = in.getLine();
+					if (in.getLineType() == LineType.RESULT) {
+						try {
+							sessionId = Integer.parseInt(line.substring(1, line.length() - 1).trim());
+						} catch (NumberFormatException e) {
+							sessionIdError = "unexpected reply " + line;
+						}
+					} else if (in.getLineType() == LineType.ERROR) {
+						if (sessionIdError == null)
+							sessionIdError = line.length() > 7 ? line.substring(7) : line;
+					} else if (in.getLineType() == LineType.UNKNOWN && line == null) {
+						throw new IOException("Connection to server lost!");
+					}
+					in.advance();
+				}
+				lastAlive = System.nanoTime();
 			} catch (SocketTimeoutException e) {
 				close(); // JDBC 4.1 semantics, abort()
 				throw new SQLNonTransientConnectionException("connection timed out", "08M33");
@@ -2307,6 +3445,9 @@ public class MonetConnection
 
 	/** the default number of rows to read at once from this connection */
 	private int defaultFetchSize = DEF_FETCHSIZE;
+	/** the time fetching a block of a forward only result should take,
+	 *  shorter fetches are dominated by the round trip to the server */
+	private static final long FETCH_TARGET_NANOS = 100L * 1000 * 1000;
 	/** The sequence counter */
 	private static int seqCounter = 0;
 
@@ -2319,6 +3460,37 @@ public class MonetConnection
 		return defaultFetchSize;
 	}
 
+	/**
+	 * Returns the executor which fetches result blocks ahead for
+	 * forward only result sets.  It uses a single daemon thread, so
+	 * that prefetches are executed in the order they were requested.
+	 *
+	 * @return the prefetch executor of this connection
+	 */
+	private synchronized ExecutorService getPrefetcher() {
+		if (prefetcher == null) {
+			prefetcher = Executors.newSingleThreadExecutor(r -> {
+				final Thread t = new Thread(r, "MonetDB result prefetcher");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return prefetcher;
+	}
+
+	/**
+	 * Decodes a line given as a slice of UTF-8 bytes, for use in error
+	 * messages.
+	 *
+	 * @param line the buffer holding the line
+	 * @param offset the offset of the line in the buffer
+	 * @param length the length of the line in bytes, -1 if there is none
+	 * @return the line as String, or null if there is no line
+	 */
+	private static String lineString(final byte[] line, final int offset, final int length) {
+		return length < 0 ? null : new String(line, offset, length, StandardCharsets.UTF_8);
+	}
+
 	/**
 	 * A Response is a message sent by the server to indicate some
 	 * action has taken place, and possible results of that action.
@@ -2326,14 +3498,19 @@ public class MonetConnection
 	// {{{ interface Response
 	interface Response {
 		/**
-		 * Adds a line to the underlying Response implementation.
+		 * Adds a line to the underlying Response implementation.  The
+		 * line is given as a slice of the buffer of the
+		 * BufferedMCLReader, which is only valid until the reader
+		 * advances to the next line.
 		 *
-		 * @param line the header line as String
+		 * @param line the buffer holding the UTF-8 bytes of the line
+		 * @param offset the offset of the line in the buffer
+		 * @param length the length of the line in bytes
 		 * @param linetype the line type according to the MAPI protocol
 		 * @return a non-null String if the line is invalid,
 		 *         or additional lines are not allowed.
 		 */
-		String addLine(String line, LineType linetype);
+		String addLine(byte[] line, int offset, int length, LineType linetype);
 
 		/**
 		 * Returns whether this Response expects more lines to be added
@@ -2421,9 +3598,36 @@ public class MonetConnection
 		private boolean destroyOnClose;
 		/** the offset to be used on Xexport queries */
 		private int blockOffset;
+		/** The blocks being fetched in the background, by block number,
+		 *  null if this result is not prefetched.  Only used by the
+		 *  thread consuming the result.  The prefetcher thread only
+		 *  stores the blocks in resultBlocks, while holding the lock on
+		 *  the server; blockOffset and cacheSize never change once a
+		 *  result is prefetched and a block stored by the prefetcher is
+		 *  only read after waiting for its Future.  The Future yields the
+		 *  warnings the server sent along with the block. */
+		private HashMap<Integer, Future<ArrayList<SQLWarning>>> prefetches;
+		/** The blocks kept in memory in least recently used order, null
+		 *  if the memory used by the blocks is not limited */
+		private LinkedHashMap<Integer, DataBlockResponse> blockCache;
+		/** The estimated memory used by the blocks in blockCache */
+		private long cachedBytes;
+		/** The block number of the last requested row */
+		private int lastBlock = -1;
+		/** The time it took to fetch the last block, 0 if no block was fetched yet */
+		private long lastFetchNanos;
+		/** The block cache statistics */
+		private long cacheHits;
+		private long cacheMisses;
+		private long cacheEvictions;
 
 		/** A parser for header lines */
 		private final HeaderLineParser hlp;
+		/** A parser for the data lines of the result blocks, only used
+		 *  while reading from the server */
+		private TupleLineParser blockParser;
+		/** How the values of each column are stored in the result blocks */
+		private byte[] columnStorage;
 
 		/** A boolean array telling whether the headers are set or not */
 		private final boolean[] isSet;
@@ -2489,38 +3693,44 @@ public class MonetConnection
 
 			hlp = new HeaderLineParser(columncount);
 
-			resultBlocks[0] = new DataBlockResponse(rowcount, parent.rstype == ResultSet.TYPE_FORWARD_ONLY);
+			resultBlocks[0] = new DataBlockResponse(rowcount, this);
+			if (prefetchBlocks > 0 && parent.rstype == ResultSet.TYPE_FORWARD_ONLY && destroyOnClose)
+				prefetches = new HashMap<Integer, Future<ArrayList<SQLWarning>>>();
+			// evicted blocks can only be fetched again if the server keeps the result
+			if (blockCacheMemory > 0 && parent.rstype != ResultSet.TYPE_FORWARD_ONLY && destroyOnClose)
+				blockCache = new LinkedHashMap<Integer, DataBlockResponse>(16, 0.75f, true);
 		}
 
 		/**
-		 * Parses the given string and changes the value of the matching
+		 * Parses the given line and changes the value of the matching
 		 * header appropriately, or passes it on to the underlying
 		 * DataBlockResponse.
 		 *
-		 * @param tmpLine the string that contains the header
+		 * @param line the buffer holding the line that contains the header
+		 * @param offset the offset of the line in the buffer
+		 * @param length the length of the line in bytes
 		 * @return a non-null String if the header cannot be parsed or
 		 *         is unknown
 		 */
 		@Override
-		public String addLine(final String tmpLine, final LineType linetype) {
-			// System.out.println("In ResultSetResponse.addLine(line, type: " + linetype + ") line: " + tmpLine);
+		public String addLine(final byte[] line, final int offset, final int length, final LineType linetype) {
 			if (linetype == LineType.RESULT ||
 			    (isSet[LENS] && isSet[TYPES] && isSet[TABLES] && isSet[NAMES] && isSet[TYPESIZES])) {
 				if (!isSet[TYPESIZES])
 					// this is needed to get proper output when processing a: DEBUG SQL-statement
 					isSet[TYPESIZES] = true;
-				return resultBlocks[0].addLine(tmpLine, linetype);
+				return resultBlocks[0].addLine(line, offset, length, linetype);
 			}
 
 			if (linetype != LineType.HEADER) {
 				if (!isSet[TYPESIZES])
 					isSet[TYPESIZES] = true;
-				return "Header expected, got " + linetype + " line: " + tmpLine;
+				return "Header expected, got " + linetype + " line: " + lineString(line, offset, length);
 			}
 
 			// depending on the name of the header, we continue
 			try {
-				switch (hlp.parse(tmpLine)) {
+				switch (hlp.parse(line, offset, length)) {
 					case HeaderLineParser.NAME:
 						name = hlp.values.clone();
 						isSet[NAMES] = true;
@@ -2640,8 +3850,11 @@ public class MonetConnection
 		 * @param rr the DataBlockResponse to add
 		 */
 		void addDataBlockResponse(final int offset, final DataBlockResponse rr) {
+			final DataBlockResponse[] blocks = resultBlocks;
+			if (blocks == null)
+				return;	// closed while the block was being prefetched
 			final int block = (offset - blockOffset) / cacheSize;
-			resultBlocks[block] = rr;
+			blocks[block] = rr;
 		}
 
 		/**
@@ -2765,79 +3978,282 @@ public class MonetConnection
 		}
 
 		/**
-		 * Returns a line from the cache. If the line is already present in the
-		 * cache, it is returned, if not appropriate actions are taken to make
-		 * sure the right block is being fetched and as soon as the requested
-		 * line is fetched it is returned.
+		 * Returns the storage kind of each column in the result blocks,
+		 * derived from the column types.  Until the types are known all
+		 * columns are stored as text.
+		 *
+		 * @return the DataBlockResponse storage kind for each column
+		 */
+		byte[] getColumnStorage() {
+			if (columnStorage != null)
+				return columnStorage;
+			final byte[] storage = new byte[columncount];
+			if (type == null)
+				return storage;
+			for (int i = 0; i < columncount; i++) {
+				switch (type[i]) {
+					case "tinyint":
+					case "smallint":
+					case "int":
+						storage[i] = DataBlockResponse.INT;
+						break;
+					case "bigint":
+						storage[i] = DataBlockResponse.LONG;
+						break;
+					case "decimal":
+						// the unscaled values of at most 18 digits fit in a long
+						if (colPrecisions != null && colPrecisions[i] <= 18)
+							storage[i] = DataBlockResponse.DECIMAL;
+						else
+							storage[i] = DataBlockResponse.STRING;
+						break;
+					case "oid":
+						storage[i] = DataBlockResponse.OID;
+						break;
+					default:
+						storage[i] = DataBlockResponse.STRING;
+						break;
+				}
+			}
+			columnStorage = storage;
+			return storage;
+		}
+
+		/**
+		 * Returns the parser used for filling the result blocks.  Blocks
+		 * are only filled while reading from the server, so a single
+		 * parser suffices.
+		 *
+		 * @return the TupleLineParser for the data lines
+		 */
+		TupleLineParser getBlockParser() {
+			if (blockParser == null)
+				blockParser = new TupleLineParser(columncount);
+			return blockParser;
+		}
+
+		/**
+		 * Loads a row from the cache into the given TupleLineParser.  If
+		 * the row is not yet present in the cache, appropriate actions are
+		 * taken to make sure the right block is being fetched first.
 		 *
-		 * @param row the row in the result set to return
-		 * @return the exact row read as requested or null if the requested row
+		 * @param row the row in the result set to load
+		 * @param tlp the TupleLineParser to load the values of the row into
+		 * @return true if the row is loaded, false if the requested row
 		 *         is out of the scope of the result set
 		 * @throws SQLException if an database error occurs
 		 */
-		String getLine(final int row) throws SQLException {
+		boolean loadRow(final int row, final TupleLineParser tlp) throws SQLException {
 			if (row >= tuplecount || row < 0)
-				return null;
+				return false;
 
 			int block = (row - blockOffset) / cacheSize;
 			int blockLine = (row - blockOffset) % cacheSize;
 
 			// do we have the right block loaded? (optimistic try)
-			DataBlockResponse rawr = resultBlocks[block];
+			DataBlockResponse rawr;
+			if (prefetches != null && prefetches.containsKey(block)) {
+				// it is (being) fetched in the background
+				rawr = awaitPrefetch(block);
+				for (int i = 0; i < block; i++)
+					resultBlocks[i] = null;
+			} else {
+				rawr = resultBlocks[block];
+			}
+			if (block != lastBlock) {
+				if (rawr != null)
+					cacheHits++;
+				else
+					cacheMisses++;
+			}
 			if (rawr == null) {
-				// load block
-				/// TODO: ponder about a maximum number of blocks to keep
-				///       in memory when dealing with random access to
-				///       reduce memory blow-up
+				// load block, the number of blocks kept in memory for
+				// random access is limited by the blockCache, if any
 
 				// if we're running forward only, we can discard the old
 				// block loaded
 				if (parent.rstype == ResultSet.TYPE_FORWARD_ONLY) {
+					final DataBlockResponse previous = block > 0 ? resultBlocks[block - 1] : null;
 					for (int i = 0; i < block; i++)
 						resultBlocks[i] = null;
 
-					if (MonetConnection.seqCounter - 1 == seqnr &&
-							!cacheSizeSetExplicitly &&
-							tuplecount - row > cacheSize &&
-							cacheSize < MonetConnection.DEF_FETCHSIZE * 10)
-					{
-						// there has no query been issued after this
-						// one, so we can consider this an uninterrupted
-						// continuation request.  Let's once increase
-						// the cacheSize as it was not explicitly set,
-						// since the chances are high that we won't
-						// bother anyone else by doing so, and just
-						// gaining some performance.
-
-						// store the previous position in the
-						// blockOffset variable
-						blockOffset += cacheSize;
-
-						// increase the cache size (a lot)
-						cacheSize *= 10;
-
-						// by changing the cacheSize, we also
-						// change the block measures.  Luckily
-						// we don't care about previous blocks
-						// because we have a forward running
-						// pointer only.  However, we do have
-						// to recalculate the block number, to
-						// ensure the next call to find this
-						// new block.
-						block = (row - blockOffset) / cacheSize;
-						blockLine = (row - blockOffset) % cacheSize;
+					// the block boundaries are fixed once blocks are prefetched
+					if (prefetches == null && !cacheSizeSetExplicitly) {
+						// as we only run forward, the layout of the
+						// previous blocks does not matter anymore: let
+						// the next block start at this row, with a size
+						// chosen from what we learned so far
+						cacheSize = nextFetchSize(row, previous);
+						blockOffset = row;
+						block = 0;
+						blockLine = 0;
 					}
 				}
 
 				// ok, need to fetch cache block first
+				final long start = System.nanoTime();
 				parent.executeQuery(commandTempl,
 						"export " + id + " " + ((block * cacheSize) + blockOffset) + " " + cacheSize);
+				lastFetchNanos = System.nanoTime() - start;
 				rawr = resultBlocks[block];
 				if (rawr == null)
 					throw new SQLException("resultBlocks[" + block + "] should have been fetched by now", "M0M10");
 			}
 
-			return rawr.getRow(blockLine);
+			// when entering a block, request the next ones in the background
+			if (prefetches != null && blockLine == 0)
+				prefetchBlocks(block, rawr);
+			if (blockCache != null && block != lastBlock)
+				cacheBlock(block, rawr);
+			lastBlock = block;
+
+			return rawr.loadRow(blockLine, tlp);
+		}
+
+		/**
+		 * Chooses the number of rows to fetch in the next block of a
+		 * forward only result.  The size grows while fetching a block
+		 * takes much less time than FETCH_TARGET_NANOS, as the round trip
+		 * then dominates, and shrinks when fetching takes much longer.
+		 * It never exceeds what fits in the fetch_memory budget given the
+		 * bytes per row of the previous block, nor the number of rows
+		 * left.
+		 *
+		 * @param row the first row of the next block
+		 * @param previous the previous block, or null if unknown
+		 * @return the number of rows to fetch, at least 1
+		 */
+		private int nextFetchSize(final int row, final DataBlockResponse previous) {
+			long size = cacheSize;
+			if (lastFetchNanos <= 0) {
+				// the previous block came along with the query
+				size *= 4;
+			} else {
+				size = Math.max(size / 2, Math.min(size * 4, size * FETCH_TARGET_NANOS / lastFetchNanos));
+			}
+			size = Math.max(size, defaultFetchSize);
+			if (previous != null && previous.getRowCount() > 0) {
+				final long bytesPerRow = Math.max(1, previous.getByteSize() / previous.getRowCount());
+				size = Math.min(size, Math.max(1, fetchMemory / bytesPerRow));
+			}
+			return (int) Math.max(1, Math.min(size, tuplecount - row));
+		}
+
+		/**
+		 * Marks the given block as most recently used in the blockCache
+		 * and evicts the least recently used blocks as long as the
+		 * blocks use more memory than allowed.  The given block itself is
+		 * never evicted.  Evicted blocks are fetched again by loadRow()
+		 * when needed.
+		 *
+		 * @param block the block number which is currently used
+		 * @param current the block which is currently used
+		 */
+		private void cacheBlock(final int block, final DataBlockResponse current) {
+			if (blockCache.get(block) != null)
+				return;
+			blockCache.put(block, current);
+			cachedBytes += current.getByteSize();
+
+			final Iterator<Entry<Integer, DataBlockResponse>> it = blockCache.entrySet().iterator();
+			while (cachedBytes > blockCacheMemory && blockCache.size() > 1) {
+				final Entry<Integer, DataBlockResponse> eldest = it.next();
+				it.remove();
+				resultBlocks[eldest.getKey()] = null;
+				cachedBytes -= eldest.getValue().getByteSize();
+				eldest.getValue().close();
+				cacheEvictions++;
+			}
+		}
+
+		/**
+		 * Returns the number of times a row was requested from a block
+		 * which was in memory, counted once per switch to another block.
+		 *
+		 * @return the number of block cache hits
+		 */
+		long getCacheHits() {
+			return cacheHits;
+		}
+
+		/**
+		 * Returns the number of times a row was requested from a block
+		 * which had to be fetched from the server.
+		 *
+		 * @return the number of block cache misses
+		 */
+		long getCacheMisses() {
+			return cacheMisses;
+		}
+
+		/**
+		 * Returns the number of blocks which were removed from memory
+		 * to stay within the block_cache limit.
+		 *
+		 * @return the number of block cache evictions
+		 */
+		long getCacheEvictions() {
+			return cacheEvictions;
+		}
+
+		/**
+		 * Schedules the export of the blocks following the given block,
+		 * as far as allowed by the prefetch settings of the connection.
+		 * The size of the given block is used to estimate the memory
+		 * needed for the next blocks.
+		 *
+		 * @param block the block number which is currently consumed
+		 * @param current the block which is currently consumed
+		 */
+		private void prefetchBlocks(final int block, final DataBlockResponse current) {
+			final int lastBlock = (int)((tuplecount - 1 - blockOffset) / cacheSize);
+			final long blockBytes = Math.max(1, current.getByteSize());
+			final int size = cacheSize;
+			for (int b = block + 1, ahead = 1;
+					b <= lastBlock && ahead <= prefetchBlocks && ahead * blockBytes <= prefetchMemory;
+					b++, ahead++)
+			{
+				// a block which is being prefetched may be written by the
+				// prefetcher thread, so do not look at it
+				if (prefetches.containsKey(b) || resultBlocks[b] != null)
+					continue;
+				final String export = "export " + id + " " + ((b * size) + blockOffset) + " " + size;
+				prefetches.put(b, getPrefetcher().submit(() -> {
+					final ArrayList<SQLWarning> warningList = new ArrayList<SQLWarning>();
+					synchronized (server) {
+						// closed while holding the lock, before we got it
+						if (!closed)
+							parent.executeQuery(commandTempl, export, warningList);
+					}
+					return warningList;
+				}));
+			}
+		}
+
+		/**
+		 * Waits for the background fetch of the given block to finish
+		 * and adds the warnings which came along with it to the
+		 * Connection.
+		 *
+		 * @param block the block number to wait for
+		 * @return the fetched block
+		 * @throws SQLException if fetching the block failed
+		 */
+		private DataBlockResponse awaitPrefetch(final int block) throws SQLException {
+			final Future<ArrayList<SQLWarning>> f = prefetches.remove(block);
+			try {
+				for (SQLWarning w : f.get())
+					addWarning(w);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for result block " + block, "M0M10", e);
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof SQLException)
+					throw (SQLException) cause;
+				throw new SQLException("Fetching result block " + block + " failed: " + cause, "M0M10", cause);
+			}
+			return resultBlocks[block];
 		}
 
 		/**
@@ -2849,6 +4265,24 @@ public class MonetConnection
 			if (closed)
 				return;
 
+			// stop fetching blocks ahead: cancel the prefetches which did not start
+			// yet and let the running one complete, so the close goes after it
+			if (prefetches != null) {
+				for (Future<ArrayList<SQLWarning>> f : prefetches.values()) {
+					if (!f.cancel(false) && !Thread.holdsLock(server)) {
+						try {
+							f.get();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							break;
+						} catch (ExecutionException e) {
+							// ignore, we are not interested in the block anymore
+						}
+					}
+				}
+				prefetches = null;
+			}
+
 			// send command to server indicating we're done with this
 			// result only if we had an ID in the header and this result
 			// was larger than the reply size
@@ -2873,6 +4307,7 @@ public class MonetConnection
 			tableNames = null;
 			schemaNames = null;
 			resultBlocks = null;
+			blockCache = null;
 			closed = true;
 		}
 
@@ -2895,9 +4330,15 @@ public class MonetConnection
 	 * [ "value",	56	]
 	 * </pre>
 	 * where each column is separated by ",\t" and each tuple surrounded
-	 * by brackets ("[" and "]").  A DataBlockResponse object holds the
-	 * raw data as read from the server, in a parsed manner, ready for
-	 * easy retrieval.
+	 * by brackets ("[" and "]").  A DataBlockResponse object parses each
+	 * line once when it arrives and stores the values per column: int
+	 * and long arrays with a null bitmap for the integer, decimal and
+	 * oid types, and the text as sent by the server for all other types.  The texts of a
+	 * block are kept together in one byte array, without the brackets,
+	 * separators and quotes of the raw lines, and are only decoded when
+	 * a row is accessed.  Rows can thus be revisited without parsing
+	 * them again.  A row which cannot be parsed only fails the access
+	 * to that row.
 	 *
 	 * This object is not intended to be queried by multiple threads
 	 * synchronously. It is designed to work for one thread retrieving
@@ -2906,47 +4347,208 @@ public class MonetConnection
 	 */
 	// {{{ DataBlockResponse class implementation
 	private final static class DataBlockResponse implements Response {
-		/** The String array to keep the data in */
-		private final String[] data;
-
-		/** The counter which keeps the current position in the data array */
+		/* the ways a column can be stored in a block */
+		static final byte STRING = 0;
+		static final byte INT = 1;
+		static final byte LONG = 2;
+		static final byte DECIMAL = 3;	// unscaled in longs, with the scale of the column
+		static final byte OID = 4;	// in longs, without the @0 suffix
+
+		/** The number of rows this block is created for */
+		private final int size;
+		/** The ResultSetResponse this block belongs to */
+		private final ResultSetResponse owner;
+		/** The storage kind per column, set when the first row arrives */
+		private byte[] storage;
+		/** The UTF-8 bytes of the texts of all columns */
+		private byte[] data;
+		/** The number of bytes used in data */
+		private int dataLen;
+		/** The start and end of the text in data per column and row, a
+		 *  negative start means NULL for STRING columns and a value
+		 *  stored as number for the other columns.  The numeric columns
+		 *  only get them for values which cannot be stored as number
+		 *  without changing their text */
+		private int[][] starts;
+		private int[][] ends;
+		/** The bitmaps per column of the texts with escape codes */
+		private long[][] escapes;
+		private int[][] ints;
+		private long[][] longs;
+		/** The null bitmaps per numeric column, a set bit means NULL */
+		private long[][] nulls;
+		/** The scale per column, for the DECIMAL columns */
+		private int[] scales;
+		/** The parse error per row, null if all rows could be parsed */
+		private String[] errors;
+
+		/** The counter which keeps the current position in the data arrays */
 		private int pos;
-		/** Whether we can discard lines as soon as we have read them */
-		private final boolean forwardOnly;
+		/** An estimate of the memory used by the rows in this block */
+		private long byteSize;
 
 		/**
 		 * Constructs a DataBlockResponse object
-		 * @param size the size of the data array to create
-		 * @param forward whether this is a forward only result
+		 * @param size the number of rows this block will hold
+		 * @param owner the ResultSetResponse the rows belong to
 		 */
-		DataBlockResponse(final int size, final boolean forward) {
+		DataBlockResponse(final int size, final ResultSetResponse owner) {
 			pos = -1;
-			data = new String[size];
-			forwardOnly = forward;
+			this.size = size;
+			this.owner = owner;
+		}
+
+		/**
+		 * Allocates the column arrays, using the column types known by
+		 * the owner at the time the first row arrives.
+		 */
+		private void allocate() {
+			storage = owner.getColumnStorage();
+			final int cols = storage.length;
+			starts = new int[cols][];
+			ends = new int[cols][];
+			escapes = new long[cols][];
+			ints = new int[cols][];
+			longs = new long[cols][];
+			nulls = new long[cols][];
+			int texts = 0;
+			for (int i = 0; i < cols; i++) {
+				switch (storage[i]) {
+					case INT:
+						ints[i] = new int[size];
+						break;
+					case LONG:
+					case DECIMAL:
+					case OID:
+						longs[i] = new long[size];
+						break;
+					default:
+						starts[i] = new int[size];
+						ends[i] = new int[size];
+						texts++;
+						continue;
+				}
+				nulls[i] = new long[(size + 63) >>> 6];
+			}
+			scales = owner.getColumnScales();
+			// a guess, the array grows when needed
+			data = new byte[(int) Math.min(1 << 20, Math.max(64, 16L * size * texts))];
 		}
 
 		/**
-		 * addLine adds a String of data to this object's data array.
+		 * addLine parses a line of data and adds its values to this
+		 * object's column arrays.  If the line cannot be parsed, the
+		 * error is kept for the row, such that only reading that row
+		 * fails.
 		 * Note that an ArrayIndexOutOfBoundsException can be thrown when an
 		 * attempt is made to add more than the original construction size
 		 * specified.
 		 *
-		 * @param line the header line as String
+		 * @param line the buffer holding the UTF-8 bytes of the line
+		 * @param offset the offset of the line in the buffer
+		 * @param length the length of the line in bytes
 		 * @param linetype the line type according to the MAPI protocol
-		 * @return a non-null String if the line is invalid,
-		 *         or additional lines are not allowed.
+		 * @return a non-null String if additional lines are not allowed
 		 */
 		@Override
-		public String addLine(final String line, final LineType linetype) {
+		public String addLine(final byte[] line, final int offset, final int length, final LineType linetype) {
 			if (linetype != LineType.RESULT)
-				return "protocol violation: unexpected " + linetype + " line in data block: " + line;
-			// add to the backing array
-			data[++pos] = line;
+				return "protocol violation: unexpected " + linetype + " line in data block: " + lineString(line, offset, length);
+			if (storage == null)
+				allocate();
+
+			final int row = ++pos;
+			final TupleLineParser tlp = owner.getBlockParser();
+			try {
+				tlp.parseLazily(line, offset, length);
+			} catch (MCLParseException e) {
+				if (errors == null)
+					errors = new String[size];
+				errors[row] = e.getMessage();
+				return null;
+			}
+			for (int i = 0; i < storage.length; i++) {
+				if (storage[i] == STRING) {
+					addText(tlp, i, row);
+				} else if (tlp.isNull(i)) {
+					nulls[i][row >>> 6] |= 1L << row;
+				} else if (!addNumber(tlp, i, row)) {
+					// keep the text as sent by the server
+					if (starts[i] == null) {
+						starts[i] = new int[size];
+						Arrays.fill(starts[i], -1);
+						ends[i] = new int[size];
+					}
+					addText(tlp, i, row);
+				}
+			}
+			// the fixed-width values of this row
+			byteSize += 8L * storage.length;
 
 			// all is well
 			return null;
 		}
 
+		/**
+		 * Appends the text of the given field of the parsed line to the
+		 * data array, without decoding it.
+		 */
+		private void addText(final TupleLineParser tlp, final int col, final int row) {
+			final int len = tlp.getFieldLength(col);
+			if (len < 0) {
+				starts[col][row] = -1;
+				return;
+			}
+			if (dataLen + len > data.length)
+				data = Arrays.copyOf(data, Math.max(2 * data.length, dataLen + len));
+			tlp.copyField(col, data, dataLen);
+			starts[col][row] = dataLen;
+			dataLen += len;
+			ends[col][row] = dataLen;
+			if (tlp.isEscaped(col)) {
+				if (escapes[col] == null)
+					escapes[col] = new long[(size + 63) >>> 6];
+				escapes[col][row >>> 6] |= 1L << row;
+			}
+			byteSize += len;
+		}
+
+		/**
+		 * Stores the value of the given field of the parsed line in the
+		 * numeric array of its column, provided that converting it back
+		 * to a String gives the same text as sent by the server.
+		 *
+		 * @return true if the value is stored, false if it should be
+		 *         stored as text
+		 */
+		private boolean addNumber(final TupleLineParser tlp, final int col, final int row) {
+			switch (storage[col]) {
+				case DECIMAL:
+					if (!tlp.isCanonicalDecimal(col, scales[col]))
+						return false;
+					longs[col][row] = tlp.getUnscaledDecimal(col);
+					return true;
+				case OID:
+					if (!tlp.isCanonicalOid(col))
+						return false;
+					longs[col][row] = tlp.getOid(col);
+					return true;
+				default:
+					break;
+			}
+			if (!tlp.isCanonicalInteger(col))
+				return false;
+			try {
+				if (storage[col] == INT)
+					ints[col][row] = tlp.getInt(col);
+				else
+					longs[col][row] = tlp.getLong(col);
+				return true;
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+
 		/**
 		 * Returns whether this Response expects more lines to be added
 		 * to it.
@@ -2956,7 +4558,7 @@ public class MonetConnection
 		@Override
 		public boolean wantsMore() {
 			// remember: pos is the value already stored
-			return pos + 1 < data.length;
+			return pos + 1 < size;
 		}
 
 		/**
@@ -2970,9 +4572,9 @@ public class MonetConnection
 		/* MvD: disabled not used/needed code
 		@Override
 		public void complete() throws SQLException {
-			if ((pos + 1) != data.length)
+			if ((pos + 1) != size)
 				throw new SQLException("Inconsistent state detected! Current block capacity: "
-					+ data.length + ", block usage: " + (pos + 1)
+					+ size + ", block usage: " + (pos + 1)
 					+ ". Did MonetDB send what it promised to?", "M0M10");
 		}
 		*/
@@ -2983,26 +4585,84 @@ public class MonetConnection
 		 */
 		@Override
 		public void close() {
-			// feed all rows to the garbage collector
-			Arrays.fill(data, null);
+			// feed all values to the garbage collector
+			data = null;
+			starts = null;
+			ends = null;
+			escapes = null;
+			ints = null;
+			longs = null;
+			nulls = null;
+			errors = null;
+		}
+
+		/**
+		 * Returns an estimate of the number of bytes of memory used by
+		 * the rows added to this block.
+		 *
+		 * @return the estimated size in bytes
+		 */
+		long getByteSize() {
+			return byteSize;
+		}
+
+		/**
+		 * Returns the number of rows added to this block.
+		 *
+		 * @return the number of rows
+		 */
+		int getRowCount() {
+			return pos + 1;
 		}
 
 		/**
-		 * Retrieves the required row.  Warning: if the requested rows
-		 * is out of bounds, an IndexOutOfBoundsException will be
-		 * thrown.
+		 * Loads the values of the required row into the given
+		 * TupleLineParser, from where they can be retrieved as if the
+		 * row was parsed by it.  The texts are decoded by the
+		 * TupleLineParser when they are requested.  Warning: if the
+		 * requested row is out of bounds, an IndexOutOfBoundsException
+		 * will be thrown.
 		 *
 		 * @param line the row to retrieve
-		 * @return the requested row as String
+		 * @param tlp the TupleLineParser to load the values into
+		 * @return false if the row was not sent by the server
+		 * @throws SQLException if the row could not be parsed
 		 */
-		String getRow(final int line) {
-			if (forwardOnly) {
-				final String ret = data[line];
-				data[line] = null;
-				return ret;
-			} else {
-				return data[line];
+		boolean loadRow(final int line, final TupleLineParser tlp) throws SQLException {
+			if (line > pos)
+				return false;
+			if (errors != null && errors[line] != null) {
+				// do not leave the values of the previous row behind
+				for (int i = 0; i < storage.length; i++)
+					tlp.setValue(i, null);
+				throw new SQLException(errors[line], "M0M10");
+			}
+			for (int i = 0; i < storage.length; i++) {
+				final int[] start = starts[i];
+				if (start != null && start[line] >= 0) {
+					final long[] escaped = escapes[i];
+					tlp.setBytes(i, data, start[line], ends[i][line],
+						escaped != null && (escaped[line >>> 6] & (1L << line)) != 0);
+				} else if (storage[i] == STRING || (nulls[i][line >>> 6] & (1L << line)) != 0) {
+					tlp.setValue(i, null);
+				} else {
+					switch (storage[i]) {
+						case INT:
+							tlp.setLong(i, ints[i][line]);
+							break;
+						case DECIMAL:
+							tlp.setDecimal(i, longs[i][line], scales[i]);
+							break;
+						case OID:
+							tlp.setOid(i, longs[i][line]);
+							break;
+						default:
+							tlp.setLong(i, longs[i][line]);
+							break;
+					}
+				}
 			}
+			return true;
 		}
 	}
 	// }}}
@@ -3027,7 +4687,7 @@ public class MonetConnection
 		}
 
 		@Override
-		public String addLine(final String line, final LineType linetype) {
+		public String addLine(final byte[] line, final int offset, final int length, final LineType linetype) {
 			return "Header lines are not supported for an UpdateResponse";
 		}
 
@@ -3058,7 +4718,7 @@ public class MonetConnection
 	// {{{ SchemaResponse class implementation
 	class SchemaResponse implements Response {
 		@Override
-		public String addLine(final String line, final LineType linetype) {
+		public String addLine(final byte[] line, final int offset, final int length, final LineType linetype) {
 			return "Header lines are not supported for a SchemaResponse";
 		}
 
@@ -3215,12 +4875,12 @@ public class MonetConnection
 
 		/**
 		 * Returns whether this ResponseList has still unclosed
-		 * Responses.
-		 * @return whether there are unclosed Responses
+		 * ResultSet Responses.  The other Responses hold no resources.
+		 * @return whether there are unclosed ResultSet Responses
 		 */
 		boolean hasUnclosedResponses() {
 			for (Response r : responses) {
-				if (r != null)
+				if (r instanceof ResultSetResponse && !((ResultSetResponse) r).isClosed())
 					return true;
 			}
 			return false;
@@ -3245,9 +4905,26 @@ public class MonetConnection
 		 * @param query the query to execute
 		 * @throws SQLException if a database error occurs
 		 */
-		@SuppressWarnings("fallthrough")
 		void executeQuery(final String[] templ, final String query)
 			throws SQLException
+		{
+			executeQuery(templ, query, null);
+		}
+
+		/**
+		 * Internal executor of queries, which collects the warnings of
+		 * the server in the given list instead of adding them to the
+		 * Connection if a list is given.  The prefetcher uses this, such
+		 * that the warnings of a block are only added to the Connection
+		 * by the thread consuming the block, in the order of the blocks.
+		 *
+		 * @param templ the template to fill in
+		 * @param query the query to execute
+		 * @param warningList the list to add the warnings to, or null
+		 * @throws SQLException if a database error occurs
+		 */
+		void executeQuery(final String[] templ, final String query, final ArrayList<SQLWarning> warningList)
+			throws SQLException
 		{
 			String error = null;
 
@@ -3281,188 +4958,234 @@ public class MonetConnection
 					// }}} set reply size
 
 					// send query to the server
-					out.writeLine(templ[0] + query + templ[1]);
+					out.writeLine(templ[0], query, templ[1]);
 
 					// go for new results
-					in.advance();
-					Response res = null;
-					while (in.getLineType() != LineType.PROMPT) {
-						// each response should start with a start of header (or error)
-						switch (in.getLineType()) {
-						case SOHEADER:
-							// make the response object, and fill it
-							try {
-								switch (sohp.parse(in.getLine())) {
-								case StartOfHeaderParser.Q_PARSE:
-									throw new MCLParseException("Q_PARSE header not allowed here", 1);
-								case StartOfHeaderParser.Q_TABLE:
-								case StartOfHeaderParser.Q_PREPARE: {
-									final int id = sohp.getNextAsInt();
-									final long realtuplecount = sohp.getNextAsLong();
-									final int columncount = sohp.getNextAsInt();
-									final int rowcount = sohp.getNextAsInt();
-									// enforce the maxrows setting
-									final long tuplecount = (maxrows == 0 || realtuplecount <= maxrows) ? realtuplecount : maxrows;
-									res = new ResultSetResponse(id, realtuplecount, tuplecount, columncount, rowcount, this, seqnr);
-									// only add this resultset to the hashmap if it can possibly have an additional datablock
-									if (rowcount < tuplecount) {
-										if (rsresponses == null)
-											rsresponses = new HashMap<Integer, ResultSetResponse>();
-										rsresponses.put(id, (ResultSetResponse) res);
-									}
-								} break;
-								case StartOfHeaderParser.Q_UPDATE:
-									res = new UpdateResponse(sohp.getNextAsLong(),   // count
-												 sohp.getNextAsString() // key-id
-												);
-									break;
-								case StartOfHeaderParser.Q_SCHEMA:
-									res = new SchemaResponse();
-									break;
-								case StartOfHeaderParser.Q_TRANS:
-									final boolean ac = sohp.getNextAsString().equals("t");
-									if (autoCommit && ac) {
-										addWarning("Server enabled auto commit mode " +
-											"while local state already was auto commit.", "01M11");
-									}
-									autoCommit = ac;
-									res = new AutoCommitResponse(ac);
-									break;
-								case StartOfHeaderParser.Q_BLOCK: {
-									// a new block of results for a response...
-									final int id = sohp.getNextAsInt();
-									sohp.getNextAsInt();	// columncount
-									final int rowcount = sohp.getNextAsInt();
-									final int offset = sohp.getNextAsInt();
-									final ResultSetResponse t;
-									if (rsresponses != null)
-										t = rsresponses.get(id);
-									else
-										t = null;
-									if (t == null) {
-										error = "M0M12!no ResultSetResponse with id " + id + " found";
-										break;
-									}
-									final DataBlockResponse r = new DataBlockResponse(rowcount, t.getRSType() == ResultSet.TYPE_FORWARD_ONLY);
-									t.addDataBlockResponse(offset, r);
-									res = r;
-								} break;
-								} // end of switch (sohp.parse(tmpLine))
-							} catch (MCLParseException e) {
-								final int offset = e.getErrorOffset();
-								error = "M0M10!error while parsing start of header:\n" +
-									e.getMessage() +
-									" found: '" + in.getLine().charAt(offset) +
-									"' in: \"" + in.getLine() +
-									"\" at pos: " + offset;
-								// flush all the rest
-								in.discardRemainder();
-								break;
-							}
+					error = readResponses(warningList);
+				} // end of synchronized (server)
+
+				if (error != null)
+					throw toSQLException(error);
+			} catch (SocketTimeoutException e) {
+				close(); // JDBC 4.1 semantics, abort()
+				throw new SQLNonTransientConnectionException("connection timed out", "08M33");
+			} catch (IOException e) {
+				closed = true;
+				throw new SQLNonTransientConnectionException(e.getMessage() + " (mserver5 still alive?)", "08006");
+			}
+		}
 
-							// immediately handle errors after parsing the header (res may be null)
-							if (error != null) {
-								in.discardRemainder();
+		/**
+		 * Reads the responses to a query which has been sent, up to the
+		 * prompt, and stores them in this ResponseList.  The caller must
+		 * hold the lock on the server.
+		 *
+		 * @param warningList the list to add the warnings to, or null to
+		 *        add them to the Connection
+		 * @return the error message(s) of the server, or null if none
+		 * @throws IOException if reading from the server fails
+		 */
+		@SuppressWarnings("fallthrough")
+		private String readResponses(final ArrayList<SQLWarning> warningList) throws IOException {
+			String error = null;
+			in.advance();
+			Response res = null;
+			while (in.getLineType() != LineType.PROMPT) {
+				// each response should start with a start of header (or error)
+				switch (in.getLineType()) {
+				case SOHEADER:
+					// make the response object, and fill it
+					try {
+						switch (sohp.parse(in.getLine())) {
+						case StartOfHeaderParser.Q_PARSE:
+							throw new MCLParseException("Q_PARSE header not allowed here", 1);
+						case StartOfHeaderParser.Q_TABLE:
+						case StartOfHeaderParser.Q_PREPARE: {
+							final int id = sohp.getNextAsInt();
+							final long realtuplecount = sohp.getNextAsLong();
+							final int columncount = sohp.getNextAsInt();
+							final int rowcount = sohp.getNextAsInt();
+							// enforce the maxrows setting
+							final long tuplecount = (maxrows == 0 || realtuplecount <= maxrows) ? realtuplecount : maxrows;
+							res = new ResultSetResponse(id, realtuplecount, tuplecount, columncount, rowcount, this, seqnr);
+							// only add this resultset to the hashmap if it can possibly have an additional datablock
+							if (rowcount < tuplecount) {
+								if (rsresponses == null)
+									rsresponses = new HashMap<Integer, ResultSetResponse>();
+								rsresponses.put(id, (ResultSetResponse) res);
+							}
+						} break;
+						case StartOfHeaderParser.Q_UPDATE:
+							res = new UpdateResponse(sohp.getNextAsLong(),   // count
+										 sohp.getNextAsString() // key-id
+										);
+							break;
+						case StartOfHeaderParser.Q_SCHEMA:
+							res = new SchemaResponse();
+							// invalidates the cached prepared statements
+							schemaGeneration++;
+							break;
+						case StartOfHeaderParser.Q_TRANS:
+							final boolean ac = sohp.getNextAsString().equals("t");
+							if (autoCommit && ac) {
+								warn(warningList, "Server enabled auto commit mode " +
+									"while local state already was auto commit.", "01M11");
+							}
+							autoCommit = ac;
+							res = new AutoCommitResponse(ac);
+							break;
+						case StartOfHeaderParser.Q_BLOCK: {
+							// a new block of results for a response...
+							final int id = sohp.getNextAsInt();
+							sohp.getNextAsInt();	// columncount
+							final int rowcount = sohp.getNextAsInt();
+							final int offset = sohp.getNextAsInt();
+							final ResultSetResponse t;
+							if (rsresponses != null)
+								t = rsresponses.get(id);
+							else
+								t = null;
+							if (t == null) {
+								error = "M0M12!no ResultSetResponse with id " + id + " found";
 								break;
 							}
+							final DataBlockResponse r = new DataBlockResponse(rowcount, t);
+							t.addDataBlockResponse(offset, r);
+							res = r;
+						} break;
+						} // end of switch (sohp.parse(tmpLine))
+					} catch (MCLParseException e) {
+						final int offset = e.getErrorOffset();
+						error = "M0M10!error while parsing start of header:\n" +
+							e.getMessage() +
+							" found: '" + in.getLine().charAt(offset) +
+							"' in: \"" + in.getLine() +
+							"\" at pos: " + offset;
+						// flush all the rest
+						in.discardRemainder();
+						break;
+					}
 
-							// advance to the line after the header
-							in.advance();
+					// immediately handle errors after parsing the header (res may be null)
+					if (error != null) {
+						in.discardRemainder();
+						break;
+					}
 
-							// stuff all header lines into the res
-							while (error == null && in.getLineType() == LineType.HEADER) {
-								error = res.addLine(in.getLine(), in.getLineType());
-								in.advance();
-							}
+					// advance to the line after the header
+					in.advance();
 
-							// then feed it more lines until it is satisfied
-							while (error == null && res.wantsMore()) {
-								error = res.addLine(in.getLine(), in.getLineType());
-								in.advance();
-							}
+					// stuff all header lines into the res, as slices of the
+					// buffer of the reader so they are not decoded as a whole
+					while (error == null && in.getLineType() == LineType.HEADER) {
+						error = res.addLine(in.getLineBuffer(), in.getLineOffset(), in.getLineLength(), in.getLineType());
+						in.advance();
+					}
 
-							if (error != null) {
-								// right, some protocol violation,
-								// skip the rest of the result
-								error = "M0M10!" + error;
-								in.discardRemainder(error);
-								break;
-							}
+					// then feed it more lines until it is satisfied
+					while (error == null && res.wantsMore()) {
+						error = res.addLine(in.getLineBuffer(), in.getLineOffset(), in.getLineLength(), in.getLineType());
+						in.advance();
+					}
 
-							// it is of no use to store DataBlockResponses, you never want to
-							// retrieve them directly anyway
-							if (!(res instanceof DataBlockResponse))
-								responses.add(res);
+					if (error != null) {
+						// right, some protocol violation,
+						// skip the rest of the result
+						error = "M0M10!" + error;
+						in.discardRemainder(error);
+						break;
+					}
 
-							// We have already advanced 'in' to the next line in the response
-							// so we're ready to start the next iteration of the loop.
-							break;
-						case INFO:
-							addWarning(in.getLine().substring(1), "01000");
-							// read the next line (can be prompt, new result, error, etc.)
-							// before we start the loop over
-							in.advance();
-							break;
-						case FILETRANSFER:
-							// Consume the command
-							in.advance();
-							final String transferCommand = in.getLine();
-							// Consume the fake prompt inserted by MapiSocket.
-							in.advance();
-							// Handle the request
-							if (transferCommand != null)
-								error = handleTransfer(transferCommand);
-							else
-								error = "Protocol violation, expected transfer command, got nothing";
-							// Then prepare for the next iteration
-							if (error != null) {
-								out.writeLine(error + "\n");
-								error = in.discardRemainder();
-							} else {
-								in.resetLineType();
-								in.advance();
-							}
-							break;
-						default:
-							// we have something we don't expect/understand, let's make it an error message
-							String msg = "M0M10!protocol violation, unexpected " + in.getLineType() + " line: " + in.getLine();
-							error = in.discardRemainder(msg);
-							break;
-						case ERROR:
-							// read everything till the prompt (should be
-							// error) we don't know if we ignore some
-							// garbage here... but the log should reveal that
-							error = in.discardRemainder(in.getLine().substring(1));
-							break;
-						} // end of switch (linetype)
-					} // end of while (linetype != LineType.PROMPT)
-				} // end of synchronized (server)
+					// it is of no use to store DataBlockResponses, you never want to
+					// retrieve them directly anyway
+					if (!(res instanceof DataBlockResponse))
+						responses.add(res);
 
-				if (error != null) {
-					SQLException ret = null;
-					final String[] errors = error.split("\n");
-					for (int i = 0; i < errors.length; i++) {
-						final SQLException newErr;
-						if (errors[i].length() >= 6) {
-							newErr = new SQLException(errors[i].substring(6), errors[i].substring(0, 5));
-						} else {
-							newErr = new SQLNonTransientConnectionException(errors[i], "08000");
-						}
-						if (ret == null) {
-							ret = newErr;
-						} else {
-							ret.setNextException(newErr);
-						}
+					// We have already advanced 'in' to the next line in the response
+					// so we're ready to start the next iteration of the loop.
+					break;
+				case INFO:
+					warn(warningList, in.getLine().substring(1), "01000");
+					// read the next line (can be prompt, new result, error, etc.)
+					// before we start the loop over
+					in.advance();
+					break;
+				case FILETRANSFER:
+					// Consume the command
+					in.advance();
+					final String transferCommand = in.getLine();
+					// Consume the fake prompt inserted by MapiSocket.
+					in.advance();
+					// Handle the request
+					if (transferCommand != null)
+						error = handleTransfer(transferCommand);
+					else
+						error = "Protocol violation, expected transfer command, got nothing";
+					// Then prepare for the next iteration
+					if (error != null) {
+						out.writeLine(error + "\n");
+						error = in.discardRemainder();
+					} else {
+						in.resetLineType();
+						in.advance();
 					}
-					throw ret;
+					break;
+				default:
+					// we have something we don't expect/understand, let's make it an error message
+					String msg = "M0M10!protocol violation, unexpected " + in.getLineType() + " line: " + in.getLine();
+					error = in.discardRemainder(msg);
+					break;
+				case ERROR:
+					// read everything till the prompt (should be
+					// error) we don't know if we ignore some
+					// garbage here... but the log should reveal that
+					error = in.discardRemainder(in.getLine().substring(1));
+					break;
+				} // end of switch (linetype)
+			} // end of while (linetype != LineType.PROMPT)
+			lastAlive = System.nanoTime();
+			return error;
+		}
+
+		/**
+		 * Adds a warning to the given list, or to the Connection if no
+		 * list is given.
+		 *
+		 * @param warningList the list to add the warning to, or null
+		 * @param reason the warning message
+		 * @param sqlstate the SQLState code (5 characters)
+		 */
+		private void warn(final ArrayList<SQLWarning> warningList, final String reason, final String sqlstate) {
+			if (warningList != null)
+				warningList.add(new SQLWarning(reason, sqlstate));
+			else
+				addWarning(reason, sqlstate);
+		}
+
+		/**
+		 * Converts the error message(s) of the server to a (chain of)
+		 * SQLException(s).
+		 *
+		 * @param error the error message(s), separated by newlines
+		 * @return the SQLException
+		 */
+		private SQLException toSQLException(final String error) {
+			SQLException ret = null;
+			final String[] errors = error.split("\n");
+			for (int i = 0; i < errors.length; i++) {
+				final SQLException newErr;
+				if (errors[i].length() >= 6) {
+					newErr = new SQLException(errors[i].substring(6), errors[i].substring(0, 5));
+				} else {
+					newErr = new SQLNonTransientConnectionException(errors[i], "08000");
+				}
+				if (ret == null) {
+					ret = newErr;
+				} else {
+					ret.setNextException(newErr);
 				}
-			} catch (SocketTimeoutException e) {
-				close(); // JDBC 4.1 semantics, abort()
-				throw new SQLNonTransientConnectionException("connection timed out", "08M33");
-			} catch (IOException e) {
-				closed = true;
-				throw new SQLNonTransientConnectionException(e.getMessage() + " (mserver5 still alive?)", "08006");
 			}
+			return ret;
 		}
 	}
 	// }}}
@@ -3490,17 +5213,20 @@ public class MonetConnection
 	}
 
 	private String handleUpload(final String path, final boolean textMode, final long offset) throws IOException {
-		if (uploadHandler == null) {
+		UploadHandler handler = internalUploads.get(path);
+		if (handler == null)
+			handler = uploadHandler;
+		if (handler == null) {
 			return "No file upload handler has been registered with the JDBC driver";
 		}
 
 		final long linesToSkip = offset >= 1 ? offset - 1 : 0;
-		final Upload handle = new Upload(server, uploadHandler::uploadCancelled, textMode);
+		final Upload handle = new Upload(server, handler::uploadCancelled, textMode);
 		final boolean wasFaking = server.setInsertFakePrompts(false);
 		try {
-			uploadHandler.handleUpload(handle, path, textMode, linesToSkip);
+			handler.handleUpload(handle, path, textMode, linesToSkip);
 			if (!handle.hasBeenUsed()) {
-				throw new IOException("Call to " + uploadHandler.getClass().getCanonicalName() + ".handleUpload for path '" + path + "' sent neither data nor an error message");
+				throw new IOException("Call to " + handler.getClass().getCanonicalName() + ".handleUpload for path '" + path + "' sent neither data nor an error message");
 			}
 		} finally {
 			handle.close();
@@ -3510,15 +5236,18 @@ public class MonetConnection
 	}
 
 	private String handleDownload(final String path, final boolean textMode) throws IOException {
-		if (downloadHandler == null) {
+		DownloadHandler handler = internalDownloads.get(path);
+		if (handler == null)
+			handler = downloadHandler;
+		if (handler == null) {
 			return "No file download handler has been registered with the JDBC driver";
 		}
 
 		final Download handle = new Download(server, textMode);
 		try {
-			downloadHandler.handleDownload(handle, path, true);
+			handler.handleDownload(handle, path, true);
 			if (!handle.hasBeenUsed()) {
-				handle.sendError("Call to " + downloadHandler.getClass().getSimpleName() + ".handleDownload sent neither data nor error");
+				handle.sendError("Call to " + handler.getClass().getSimpleName() + ".handleDownload sent neither data nor error");
 			}
 		} finally {
 			handle.close();
@@ -0,0 +1,226 @@
+/*
+ * SPDX-License-Identifier: MPL-2.0
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0.  If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * Copyright 2024, 2025 MonetDB Foundation;
+ * Copyright August 2008 - 2023 MonetDB B.V.;
+ * Copyright 1997 - July 2008 CWI.
+ */
+
+package org.monetdb.jdbc;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.Properties;
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.PooledConnection;
+
+/**
+ *<pre>
+ * A ConnectionPoolDataSource suitable for the MonetDB database.
+ *
+ * This is the factory for the physical connections used by a connection
+ * pool, such as the pool of an application server or the built-in
+ * {@link MonetPoolingDataSource}.  It is configured in the same way as
+ * {@link MonetDataSource}.
+ *</pre>
+ *
+ * @see MonetPooledConnection
+ */
+public final class MonetConnectionPoolDataSource implements ConnectionPoolDataSource {
+	private String description;
+	private int loginTimeout;
+	private String user;
+	// insecure, but how to do it better?
+	private String password;
+	private String url;
+	private PrintWriter logWriter;
+
+	private final MonetDriver driver;
+
+	/**
+	 * Constructor of a MonetConnectionPoolDataSource which uses default
+	 * settings for a connection.  You probably want to change this
+	 * setting using the method setURL.
+	 */
+	public MonetConnectionPoolDataSource() {
+		description = "MonetDB database";
+		url = "jdbc:monetdb://localhost/";
+
+		driver = new MonetDriver();
+	}
+
+	/**
+	 * Attempts to establish a physical database connection that can be
+	 * used as a pooled connection.
+	 *
+	 * @return a MonetPooledConnection
+	 * @throws SQLException if connecting to the database fails
+	 */
+	@Override
+	public PooledConnection getPooledConnection() throws SQLException {
+		return getPooledConnection(user, password);
+	}
+
+	/**
+	 * Attempts to establish a physical database connection that can be
+	 * used as a pooled connection.
+	 *
+	 * @param username the username to use
+	 * @param password the password to use
+	 * @return a MonetPooledConnection
+	 * @throws SQLException if connecting to the database fails
+	 */
+	@Override
+	public PooledConnection getPooledConnection(final String username, final String password)
+		throws SQLException
+	{
+		return new MonetPooledConnection(connect(username, password));
+	}
+
+	/**
+	 * Establishes a new physical connection.
+	 *
+	 * @param username the username to use
+	 * @param password the password to use
+	 * @return the new MonetConnection
+	 * @throws SQLException if connecting to the database fails
+	 */
+	MonetConnection connect(final String username, final String password) throws SQLException {
+		final Properties props = new Properties();
+		if (username != null)
+			props.put("user", username);
+		if (password != null)
+			props.put("password", password);
+
+		final Connection con = driver.connect(url, props);
+		if (con == null)
+			throw new SQLNonTransientConnectionException("Invalid URL: " + url, "08M26");
+		return (MonetConnection) con;
+	}
+
+	/**
+	 * Gets the maximum time in seconds that this data source can wait while
+	 * attempting to connect to a database.
+	 *
+	 * @return login timeout default is 0 (infinite)
+	 */
+	@Override
+	public int getLoginTimeout() {
+		return loginTimeout;
+	}
+
+	/**
+	 * Sets the maximum time in seconds that this data source will wait while
+	 * attempting to connect to a database.
+	 *
+	 * @param seconds the number of seconds to wait before aborting the connect
+	 */
+	@Override
+	public void setLoginTimeout(final int seconds) {
+		loginTimeout = seconds;
+	}
+
+	/**
+	 * Retrieves the log writer for this data source.
+	 *
+	 * @return the log writer, or null if logging is disabled
+	 */
+	@Override
+	public PrintWriter getLogWriter() {
+		return logWriter;
+	}
+
+	/**
+	 * Sets the log writer for this data source.
+	 *
+	 * @param out the new log writer, null disables logging
+	 */
+	@Override
+	public void setLogWriter(final PrintWriter out) {
+		logWriter = out;
+	}
+
+	/**
+	 * Sets the password to use when connecting.  There is no getter
+	 * for obvious reasons.
+	 *
+	 * @param password the password
+	 */
+	public void setPassword(final String password) {
+		this.password = password;
+	}
+
+	/**
+	 * Gets the username
+	 *
+	 * @return the username
+	 */
+	public String getUser() {
+		return user;
+	}
+
+	/**
+	 * Sets the username
+	 *
+	 * @param user the username
+	 */
+	public void setUser(final String user) {
+		this.user = user;
+	}
+
+	/**
+	 * Gets the connection URL
+	 *
+	 * @return the connection URL
+	 */
+	public String getURL() {
+		return url;
+	}
+
+	/**
+	 * Sets the connection URL
+	 *
+	 * @param url the connection URL
+	 */
+	public void setURL(final String url) {
+		this.url = url;
+	}
+
+	/**
+	 * Gets the description
+	 *
+	 * @return the description
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Sets the description
+	 *
+	 * @param description the description
+	 */
+	public void setDescription(final String description) {
+		this.description = description;
+	}
+
+	/**
+	 * Return the parent Logger of all the Loggers used by this data
+	 * source.
+	 *
+	 * @return the parent Logger for this data source
+	 * @throws SQLFeatureNotSupportedException if the data source does
+	 *         not use java.util.logging
+	 */
+	@Override
+	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw MonetWrapper.newSQLFeatureNotSupportedException("getParentLogger");
+	}
+}
@@ -30,8 +30,12 @@ import java.util.Properties;
  * without changing any application code.
  *
  * Additionally, pooled connections can be used when using a DataSource.
+ * This DataSource makes a new connection for each getConnection() call,
+ * use MonetPoolingDataSource to reuse connections.
  *</pre>
  *
+ * @see MonetPoolingDataSource
+ *
  * @author Fabian Groffen
  * @version 0.2
  */
@@ -0,0 +1,370 @@
+/*
+ * SPDX-License-Identifier: MPL-2.0
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0.  If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * Copyright 2024, 2025 MonetDB Foundation;
+ * Copyright August 2008 - 2023 MonetDB B.V.;
+ * Copyright 1997 - July 2008 CWI.
+ */
+
+package org.monetdb.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+
+/**
+ *<pre>
+ * A PooledConnection suitable for the MonetDB database.
+ *
+ * A MonetPooledConnection holds one physical MonetConnection.  The
+ * Connection objects returned by getConnection() are logical handles on
+ * this physical connection.  Closing such a handle does not close the
+ * physical connection, but notifies the registered
+ * ConnectionEventListeners, so that a connection pool can hand out the
+ * physical connection again.  When a call on a handle fails with a
+ * connection exception (SQLState class 08) the listeners are notified
+ * that the physical connection is no longer usable.
+ *
+ * The Statements created through a handle are handles as well: their
+ * getConnection() returns the Connection handle, and they are closed
+ * when the Connection handle is closed.  The changes a handle makes to
+ * the schema and the client info of the session are undone by
+ * {@link #restoreSession(String)} before the physical connection is
+ * reused.
+ *
+ * StatementEventListeners are accepted, but no statement events are
+ * fired.  Prepared statements are pooled by the physical connection
+ * itself when the statement_cache connection property is set.
+ *</pre>
+ *
+ * @see MonetConnectionPoolDataSource
+ * @see MonetPoolingDataSource
+ */
+public final class MonetPooledConnection implements PooledConnection {
+	/** The physical connection */
+	private final MonetConnection con;
+	/** The listeners to notify when a handle is closed or fails */
+	private final CopyOnWriteArrayList<ConnectionEventListener> listeners = new CopyOnWriteArrayList<>();
+	/** The currently open logical handle, if any */
+	private Handle handle;
+	/** Whether this PooledConnection is closed */
+	private boolean closed;
+	/** The client info before a handle changed it, null if unchanged */
+	private Properties savedClientInfo;
+	/** Whether a handle called setSchema() */
+	private boolean schemaSet;
+	/** The schema generation of the physical connection when the
+	 *  current handle was created, the server reports a SET SCHEMA as
+	 *  schema change */
+	private int schemaGeneration;
+
+	/**
+	 * Constructor of a MonetPooledConnection around the given physical
+	 * connection.
+	 *
+	 * @param con the physical connection
+	 */
+	MonetPooledConnection(final MonetConnection con) {
+		this.con = con;
+	}
+
+	/**
+	 * Returns the physical connection of this PooledConnection.
+	 *
+	 * @return the physical MonetConnection
+	 */
+	MonetConnection getPhysicalConnection() {
+		return con;
+	}
+
+	/**
+	 * Creates a logical handle on the physical connection.  A handle
+	 * which was returned by a previous call and is still open is closed
+	 * first, as required by the JDBC specification.
+	 *
+	 * @return a Connection object that is a handle to this
+	 *         PooledConnection object
+	 * @throws SQLException if this PooledConnection is closed
+	 */
+	@Override
+	public synchronized Connection getConnection() throws SQLException {
+		if (closed || con.isClosed())
+			throw new SQLException("PooledConnection is closed", "M1M20");
+		if (handle != null)
+			handle.invalidate();
+		handle = new Handle();
+		schemaGeneration = con.getSchemaGeneration();
+		return (Connection) Proxy.newProxyInstance(MonetPooledConnection.class.getClassLoader(),
+			new Class<?>[] { Connection.class }, handle);
+	}
+
+	/**
+	 * Undoes the changes the handles made to the schema and the client
+	 * info of the session, so the physical connection can be handed out
+	 * again as if it was new.
+	 *
+	 * @param schema the schema of the session when it was created, or
+	 *        null to leave the schema as it is
+	 * @throws SQLException if restoring the session fails
+	 */
+	synchronized void restoreSession(final String schema) throws SQLException {
+		if (schema != null && (schemaSet || con.getSchemaGeneration() != schemaGeneration) &&
+		    !schema.equals(con.getSchema()))
+			con.setSchema(schema);
+		schemaSet = false;
+		if (savedClientInfo != null) {
+			con.setClientInfo(savedClientInfo);
+			savedClientInfo = null;
+		}
+	}
+
+	/**
+	 * Saves the client info of the session before a handle changes it
+	 * for the first time.
+	 */
+	private synchronized void saveClientInfo() throws SQLException {
+		if (savedClientInfo == null)
+			savedClientInfo = con.getClientInfo();
+	}
+
+	/**
+	 * Closes the physical connection.
+	 *
+	 * @throws SQLException if a database access error occurs
+	 */
+	@Override
+	public synchronized void close() throws SQLException {
+		if (closed)
+			return;
+		closed = true;
+		if (handle != null) {
+			handle.invalidate();
+			handle = null;
+		}
+		con.close();
+	}
+
+	/**
+	 * Registers the given event listener so that it will be notified
+	 * when an event occurs on this PooledConnection object.
+	 *
+	 * @param listener a component that implements the ConnectionEventListener interface
+	 */
+	@Override
+	public void addConnectionEventListener(final ConnectionEventListener listener) {
+		if (listener != null)
+			listeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * Removes the given event listener from the list of components that
+	 * will be notified when an event occurs on this PooledConnection object.
+	 *
+	 * @param listener a component that implements the ConnectionEventListener interface
+	 */
+	@Override
+	public void removeConnectionEventListener(final ConnectionEventListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Registers a StatementEventListener.  As statements are pooled
+	 * by the physical connection, no statement events are fired.
+	 *
+	 * @param listener a component that implements the StatementEventListener interface
+	 */
+	@Override
+	public void addStatementEventListener(final StatementEventListener listener) {
+	}
+
+	/**
+	 * Removes a StatementEventListener.
+	 *
+	 * @param listener a component that implements the StatementEventListener interface
+	 */
+	@Override
+	public void removeStatementEventListener(final StatementEventListener listener) {
+	}
+
+	private void fireConnectionClosed() {
+		final ConnectionEvent event = new ConnectionEvent(this);
+		for (ConnectionEventListener l : listeners)
+			l.connectionClosed(event);
+	}
+
+	private void fireConnectionErrorOccurred(final SQLException e) {
+		final ConnectionEvent event = new ConnectionEvent(this, e);
+		for (ConnectionEventListener l : listeners)
+			l.connectionErrorOccurred(event);
+	}
+
+	/**
+	 * Invokes the given method on the physical object and notifies the
+	 * listeners when it fails with a connection exception.
+	 */
+	private Object forward(final Object target, final Method method, final Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException ite) {
+			final Throwable t = ite.getCause();
+			if (t instanceof SQLException) {
+				final String state = ((SQLException) t).getSQLState();
+				if (state != null && state.startsWith("08"))
+					fireConnectionErrorOccurred((SQLException) t);
+			}
+			throw t;
+		}
+	}
+
+	/**
+	 * The InvocationHandler behind a logical Connection handle.  All
+	 * methods are forwarded to the physical connection, except for
+	 * close() and isClosed() which only concern the handle, and unwrap()
+	 * and isWrapperFor() which first consider the handle itself.  The
+	 * Statements created by the physical connection are wrapped in a
+	 * handle which refers back to this handle.
+	 */
+	private final class Handle implements InvocationHandler {
+		private volatile boolean invalid;
+		/** The open Statements created through this handle */
+		private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+		void invalidate() {
+			invalid = true;
+			closeStatements();
+		}
+
+		private void closeStatements() {
+			for (Statement st : statements) {
+				try {
+					st.close();
+				} catch (SQLException e) {
+					/* ignore, the statement is not used anymore */
+				}
+			}
+			statements.clear();
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			final String name = method.getName();
+			switch (name) {
+				case "equals":
+					return Boolean.valueOf(proxy == args[0]);
+				case "hashCode":
+					return Integer.valueOf(System.identityHashCode(proxy));
+				case "toString":
+					return "Pooled " + con.toString();
+				case "isClosed":
+					return Boolean.valueOf(invalid || con.isClosed());
+				case "close":
+					if (!invalid) {
+						synchronized (MonetPooledConnection.this) {
+							invalid = true;
+							if (handle == this)
+								handle = null;
+						}
+						closeStatements();
+						fireConnectionClosed();
+					}
+					return null;
+				case "isValid":
+					if (invalid)
+						return Boolean.FALSE;
+					break;
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy))
+						return proxy;
+					if (invalid)
+						throw new SQLException("Connection is closed", "M1M20");
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy))
+						return Boolean.TRUE;
+					if (invalid)
+						throw new SQLException("Connection is closed", "M1M20");
+					break;
+				default:
+					if (invalid)
+						throw new SQLException("Connection is closed", "M1M20");
+					if (name.equals("setSchema"))
+						schemaSet = true;
+					else if (name.equals("setClientInfo"))
+						saveClientInfo();
+					break;
+			}
+			final Object result = forward(con, method, args);
+			if (result instanceof Statement) {
+				// createStatement(), prepareStatement() or prepareCall()
+				final Statement st = (Statement) result;
+				statements.add(st);
+				return Proxy.newProxyInstance(MonetPooledConnection.class.getClassLoader(),
+					new Class<?>[] { method.getReturnType() }, new StatementHandle(st, (Connection) proxy, this));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The InvocationHandler behind a Statement created through a
+	 * Connection handle.  All methods are forwarded to the physical
+	 * Statement, except for getConnection() which returns the Connection
+	 * handle, and unwrap() and isWrapperFor() which first consider the
+	 * Statement handle itself.
+	 */
+	private final class StatementHandle implements InvocationHandler {
+		private final Statement st;
+		private final Connection conHandle;
+		private final Handle owner;
+
+		StatementHandle(final Statement st, final Connection conHandle, final Handle owner) {
+			this.st = st;
+			this.conHandle = conHandle;
+			this.owner = owner;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return Boolean.valueOf(proxy == args[0]);
+				case "hashCode":
+					return Integer.valueOf(System.identityHashCode(proxy));
+				case "toString":
+					return "Pooled " + st.toString();
+				case "getConnection":
+					return conHandle;
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy))
+						return proxy;
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy))
+						return Boolean.TRUE;
+					break;
+				case "close":
+					owner.statements.remove(st);
+					break;
+				default:
+					break;
+			}
+			return forward(st, method, args);
+		}
+	}
+}
@@ -0,0 +1,736 @@
+/*
+ * SPDX-License-Identifier: MPL-2.0
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0.  If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * Copyright 2024, 2025 MonetDB Foundation;
+ * Copyright August 2008 - 2023 MonetDB B.V.;
+ * Copyright 1997 - July 2008 CWI.
+ */
+
+package org.monetdb.jdbc;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.DataSource;
+import javax.sql.PooledConnection;
+
+/**
+ *<pre>
+ * A DataSource suitable for the MonetDB database which pools its connections.
+ *
+ * Connections handed out by getConnection() are logical handles on
+ * physical connections kept by this pool.  Closing such a Connection
+ * returns the physical connection to the pool instead of closing it, so
+ * the next getConnection() call does not need to do a new connect and
+ * login handshake with the server.
+ *
+ * The pool has the following properties:
+ *  maxPoolSize            the maximum number of physical connections.
+ *                         The default 0 means: 10, but at most a
+ *                         quarter of the max_clients setting of the
+ *                         server, so other clients keep their sessions.
+ *  idleTimeout            milliseconds after which an unused connection
+ *                         is closed, default 10 minutes, 0 means never.
+ *  maxLifetime            milliseconds after which a connection is
+ *                         retired, default 30 minutes, 0 means never.
+ *  leakDetectionThreshold milliseconds a connection may be borrowed
+ *                         before it is reported as possibly leaked to
+ *                         the log writer, default 0 (disabled).
+ *  validationTimeout      seconds to wait for the validation of an idle
+ *                         connection before it is handed out, default 5.
+ *  connectionTimeout      seconds to wait for a connection when all
+ *                         connections are in use, default 0 (infinite).
+ *  loginTimeout           seconds to wait while connecting to the
+ *                         database, passed on to the physical connections.
+ *
+ * Threads waiting for a connection are served in first come, first
+ * served order.  When the pool is no longer needed it should be closed.
+ * Connections for another user than the configured one are not pooled.
+ *</pre>
+ *
+ * @see MonetConnectionPoolDataSource
+ * @see MonetPooledConnection
+ */
+public final class MonetPoolingDataSource
+	extends MonetWrapper
+	implements DataSource, AutoCloseable
+{
+	/** The pool size used when maxPoolSize is 0, at most a quarter of max_clients of the server */
+	private static final int DEFAULT_POOL_SIZE = 10;
+
+	/** The factory of the physical connections */
+	private final MonetConnectionPoolDataSource source = new MonetConnectionPoolDataSource();
+	private String user;
+	// insecure, but how to do it better?
+	private String password;
+
+	private int maxPoolSize;
+	private long idleTimeout = 10 * 60 * 1000L;
+	private long maxLifetime = 30 * 60 * 1000L;
+	private long leakDetectionThreshold;
+	private int validationTimeout = 5;
+	private int connectionTimeout;
+
+	/** Guards idle, borrowed, poolSize, housekeeper and closed */
+	private final Object lock = new Object();
+	/** The idle connections, the most recently returned first */
+	private final ArrayDeque<Entry> idle = new ArrayDeque<>();
+	/** The connections currently handed out */
+	private final HashSet<Entry> borrowed = new HashSet<>();
+	/** One permit per connection which may be handed out, created at first usage */
+	private volatile Semaphore permits;
+	private int poolSize;
+	private ScheduledExecutorService housekeeper;
+	private boolean closed;
+	private long leaksReported;
+
+	/**
+	 * Constructor of a MonetPoolingDataSource which uses default settings
+	 * for a connection.  You probably want to change this setting using
+	 * the method setURL.
+	 */
+	public MonetPoolingDataSource() {
+	}
+
+	/**
+	 * Retrieves a Connection from the pool.  If no idle connection is
+	 * available and the pool is not at its maximum size, a new physical
+	 * connection is made.  Otherwise this method waits until another
+	 * thread returns its connection, at most connectionTimeout seconds.
+	 *
+	 * @return a pooled Connection
+	 * @throws SQLException if the pool is closed, no connection became
+	 *         available in time or connecting to the database fails
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		final Semaphore sem = getPermits();
+		acquire(sem);
+		try {
+			final Entry e = take();
+			final Connection handle;
+			try {
+				handle = e.pc.getConnection();
+			} catch (SQLException ex) {
+				discard(e);
+				throw ex;
+			}
+			// only count it as borrowed once the handle exists, a failure
+			// above must not leave an entry which is never released
+			synchronized (lock) {
+				if (!closed) {
+					e.borrowedAt = System.currentTimeMillis();
+					e.borrower = (leakDetectionThreshold > 0) ? new Throwable("Connection borrowed here") : null;
+					e.broken = false;
+					borrowed.add(e);
+					return handle;
+				}
+			}
+			discard(e);
+			throw new SQLException("DataSource is closed", "M1M20");
+		} catch (SQLException | RuntimeException | Error ex) {
+			sem.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Retrieves a Connection for the given user.  If the user and password
+	 * are the configured ones, the Connection comes from the pool,
+	 * otherwise a new unpooled Connection is made.
+	 *
+	 * @param username the username to use
+	 * @param password the password to use
+	 * @return a Connection
+	 * @throws SQLException if connecting to the database fails
+	 */
+	@Override
+	public Connection getConnection(final String username, final String password)
+		throws SQLException
+	{
+		if (Objects.equals(username, user) && Objects.equals(password, this.password))
+			return getConnection();
+		return source.connect(username, password);
+	}
+
+	/**
+	 * Closes all idle connections and stops handing out connections.
+	 * Connections which are in use are closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		final ArrayList<Entry> evicted;
+		synchronized (lock) {
+			if (closed)
+				return;
+			closed = true;
+			if (housekeeper != null)
+				housekeeper.shutdownNow();
+			evicted = new ArrayList<>(idle);
+			idle.clear();
+		}
+		for (Entry e : evicted)
+			discard(e);
+	}
+
+	/**
+	 * Returns the semaphore limiting the number of connections handed out,
+	 * creating it at first usage.  When maxPoolSize is not set, the pool
+	 * size is DEFAULT_POOL_SIZE, but at most a quarter of the max_clients
+	 * setting of the server, such that one pool does not take all the
+	 * sessions of the server.  Retrieving max_clients requires a first
+	 * connection.  It is made without holding the lock, so a slow server
+	 * does not block the other users of the pool.
+	 */
+	private Semaphore getPermits() throws SQLException {
+		Semaphore sem = permits;
+		if (sem != null)
+			return sem;
+		synchronized (lock) {
+			if (closed)
+				throw new SQLException("DataSource is closed", "M1M20");
+			if (permits != null)
+				return permits;
+		}
+		int size = maxPoolSize;
+		Entry first = null;
+		if (size <= 0) {
+			first = newEntry();
+			size = DEFAULT_POOL_SIZE;
+			try {
+				final int maxClients = first.pc.getPhysicalConnection().getMaxConnections();
+				if (maxClients > 0)
+					size = Math.max(1, Math.min(size, maxClients / 4));
+			} catch (SQLException ex) {
+				// max_clients could not be retrieved, use the default pool size
+			}
+		}
+		synchronized (lock) {
+			if (closed || permits != null) {
+				// closed, or another thread was first
+				sem = permits;
+			} else {
+				sem = createPermits(size);
+				if (first != null) {
+					first.lastUsed = System.currentTimeMillis();
+					idle.addFirst(first);
+					first = null;
+				}
+			}
+		}
+		if (first != null)
+			discard(first);
+		if (sem == null)
+			throw new SQLException("DataSource is closed", "M1M20");
+		return sem;
+	}
+
+	/**
+	 * Creates the semaphore for the given pool size and starts the
+	 * housekeeper.  The caller must hold the lock.
+	 */
+	private Semaphore createPermits(final int size) {
+		poolSize = size;
+		long period = 30000;
+		if (idleTimeout > 0)
+			period = Math.min(period, idleTimeout / 2);
+		if (maxLifetime > 0)
+			period = Math.min(period, maxLifetime / 2);
+		if (leakDetectionThreshold > 0)
+			period = Math.min(period, leakDetectionThreshold / 2);
+		period = Math.max(period, 500);
+		housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(r, "MonetDB connection pool housekeeper");
+			t.setDaemon(true);
+			return t;
+		});
+		housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+		// fair, so waiting threads are served in order of arrival
+		permits = new Semaphore(size, true);
+		return permits;
+	}
+
+	private void acquire(final Semaphore sem) throws SQLException {
+		final int timeout = connectionTimeout;
+		try {
+			if (timeout > 0) {
+				if (!sem.tryAcquire(timeout, TimeUnit.SECONDS))
+					throw new SQLTransientConnectionException("No connection available within " + timeout + " seconds, all " + poolSize + " connections are in use", "08M33");
+			} else {
+				sem.acquire();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a connection", "08M33", e);
+		}
+	}
+
+	/**
+	 * Takes a usable idle connection, or makes a new one.  Idle
+	 * connections which are past their lifetime or fail validation are
+	 * discarded.
+	 */
+	private Entry take() throws SQLException {
+		while (true) {
+			final Entry e;
+			synchronized (lock) {
+				e = idle.pollFirst();
+			}
+			if (e == null)
+				return newEntry();
+			if (isExpired(e, System.currentTimeMillis()) || !isValid(e)) {
+				discard(e);
+				continue;
+			}
+			return e;
+		}
+	}
+
+	private Entry newEntry() throws SQLException {
+		final Entry e = new Entry(source.getPooledConnection(user, password));
+		try {
+			// to restore it when a user changed it
+			e.schema = e.pc.getPhysicalConnection().getSchema();
+		} catch (SQLException ex) {
+			discard(e);
+			throw ex;
+		}
+		e.pc.addConnectionEventListener(e);
+		return e;
+	}
+
+	private boolean isValid(final Entry e) {
+		try {
+			return e.pc.getPhysicalConnection().isValid(validationTimeout);
+		} catch (SQLException ex) {
+			return false;
+		}
+	}
+
+	private boolean isExpired(final Entry e, final long now) {
+		return maxLifetime > 0 && now - e.created >= maxLifetime;
+	}
+
+	private static void discard(final Entry e) {
+		try {
+			e.pc.close();
+		} catch (SQLException ex) {
+			/* ignore, the connection is not used anymore */
+		}
+	}
+
+	/**
+	 * Called when the user closes a pooled Connection.  The physical
+	 * connection is reset to the state of a new connection and put back
+	 * as idle connection, unless it is broken, expired or the pool is
+	 * closed.
+	 */
+	private void release(final Entry e) {
+		boolean keep = !e.broken;
+		if (keep) {
+			try {
+				final MonetConnection con = e.pc.getPhysicalConnection();
+				if (!con.getAutoCommit()) {
+					con.rollback();
+					con.setAutoCommit(true);
+				}
+				if (con.isReadOnly())
+					con.setReadOnly(false);
+				if (con.getTransactionIsolation() != Connection.TRANSACTION_SERIALIZABLE)
+					con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+				if (con.lastSetQueryTimeout != 0)
+					con.setQueryTimeout(0);
+				e.pc.restoreSession(e.schema);
+				con.clearWarnings();
+			} catch (SQLException ex) {
+				keep = false;
+			}
+		}
+		final long now = System.currentTimeMillis();
+		synchronized (lock) {
+			if (!borrowed.remove(e))
+				return;
+			e.borrowedAt = 0;
+			e.borrower = null;
+			if (keep && !closed && !isExpired(e, now)) {
+				e.lastUsed = now;
+				idle.addFirst(e);
+			} else {
+				keep = false;
+			}
+		}
+		if (!keep)
+			discard(e);
+		permits.release();
+	}
+
+	/**
+	 * Runs periodically: closes the idle connections which were not used
+	 * for idleTimeout or are past their lifetime, and reports connections
+	 * which are borrowed for longer than the leakDetectionThreshold.
+	 */
+	private void housekeep() {
+		final long now = System.currentTimeMillis();
+		final ArrayList<Entry> evicted = new ArrayList<>();
+		final ArrayList<Entry> leaked = new ArrayList<>();
+		synchronized (lock) {
+			for (Iterator<Entry> it = idle.iterator(); it.hasNext(); ) {
+				final Entry e = it.next();
+				if (isExpired(e, now) || (idleTimeout > 0 && now - e.lastUsed >= idleTimeout)) {
+					it.remove();
+					evicted.add(e);
+				}
+			}
+			if (leakDetectionThreshold > 0) {
+				for (Entry e : borrowed) {
+					if (e.borrower != null && now - e.borrowedAt >= leakDetectionThreshold) {
+						leaked.add(e);
+						leaksReported++;
+					}
+				}
+			}
+		}
+		for (Entry e : evicted)
+			discard(e);
+		if (!leaked.isEmpty()) {
+			PrintWriter log = source.getLogWriter();
+			if (log == null)
+				log = DriverManager.getLogWriter();
+			for (Entry e : leaked) {
+				final Throwable borrower = e.borrower;
+				// report each borrow only once
+				e.borrower = null;
+				if (log != null && borrower != null) {
+					log.println("MonetDB connection pool: connection borrowed " + (now - e.borrowedAt) + " ms ago was not returned, possible leak");
+					borrower.printStackTrace(log);
+					log.flush();
+				}
+			}
+		}
+	}
+
+	/**
+	 * A physical connection of the pool and its bookkeeping.
+	 */
+	private final class Entry implements ConnectionEventListener {
+		final MonetPooledConnection pc;
+		final long created = System.currentTimeMillis();
+		/** The schema of the session when it was created */
+		String schema;
+		long lastUsed;
+		long borrowedAt;
+		volatile Throwable borrower;
+		volatile boolean broken;
+
+		Entry(final PooledConnection pc) {
+			this.pc = (MonetPooledConnection) pc;
+		}
+
+		@Override
+		public void connectionClosed(final ConnectionEvent event) {
+			release(this);
+		}
+
+		@Override
+		public void connectionErrorOccurred(final ConnectionEvent event) {
+			// do not reuse the physical connection, it is closed when the user closes the handle
+			broken = true;
+		}
+	}
+
+	/**
+	 * Returns the number of connections currently in use.
+	 *
+	 * @return the number of borrowed connections
+	 */
+	public int getActiveConnections() {
+		synchronized (lock) {
+			return borrowed.size();
+		}
+	}
+
+	/**
+	 * Returns the number of idle connections in the pool.
+	 *
+	 * @return the number of idle connections
+	 */
+	public int getIdleConnections() {
+		synchronized (lock) {
+			return idle.size();
+		}
+	}
+
+	/**
+	 * Returns the number of borrowed connections which were reported as
+	 * possibly leaked because they were not returned within the
+	 * leakDetectionThreshold.
+	 *
+	 * @return the number of reported leaks
+	 */
+	public long getLeaksReported() {
+		synchronized (lock) {
+			return leaksReported;
+		}
+	}
+
+	/**
+	 * Gets the maximum number of connections of the pool.  Once the pool
+	 * is in use this is the actual maximum, possibly the default size
+	 * limited by the max_clients setting of the server.
+	 *
+	 * @return the maximum pool size, 0 if not yet known
+	 */
+	public int getMaxPoolSize() {
+		synchronized (lock) {
+			return (permits != null) ? poolSize : maxPoolSize;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of connections of the pool.  This can only
+	 * be set before the first connection is retrieved.
+	 *
+	 * @param size the maximum pool size, 0 means 10 but at most a quarter of max_clients of the server
+	 */
+	public void setMaxPoolSize(final int size) {
+		maxPoolSize = size;
+	}
+
+	/**
+	 * Gets the time after which an idle connection is closed.
+	 *
+	 * @return the idle timeout in milliseconds, 0 means never
+	 */
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Sets the time after which an idle connection is closed.
+	 *
+	 * @param millis the idle timeout in milliseconds, 0 means never
+	 */
+	public void setIdleTimeout(final long millis) {
+		idleTimeout = millis;
+	}
+
+	/**
+	 * Gets the time after which a connection is retired.
+	 *
+	 * @return the maximum lifetime in milliseconds, 0 means never
+	 */
+	public long getMaxLifetime() {
+		return maxLifetime;
+	}
+
+	/**
+	 * Sets the time after which a connection is retired.  A connection
+	 * in use is retired when it is returned to the pool.
+	 *
+	 * @param millis the maximum lifetime in milliseconds, 0 means never
+	 */
+	public void setMaxLifetime(final long millis) {
+		maxLifetime = millis;
+	}
+
+	/**
+	 * Gets the time a connection may be in use before it is reported as
+	 * a possible leak.
+	 *
+	 * @return the threshold in milliseconds, 0 means disabled
+	 */
+	public long getLeakDetectionThreshold() {
+		return leakDetectionThreshold;
+	}
+
+	/**
+	 * Sets the time a connection may be in use before it is reported as
+	 * a possible leak, including the stack trace of the getConnection()
+	 * call, to the log writer.
+	 *
+	 * @param millis the threshold in milliseconds, 0 means disabled
+	 */
+	public void setLeakDetectionThreshold(final long millis) {
+		leakDetectionThreshold = millis;
+	}
+
+	/**
+	 * Gets the timeout of the validation of an idle connection before it
+	 * is handed out.
+	 *
+	 * @return the validation timeout in seconds
+	 */
+	public int getValidationTimeout() {
+		return validationTimeout;
+	}
+
+	/**
+	 * Sets the timeout of the validation of an idle connection before it
+	 * is handed out.
+	 *
+	 * @param seconds the validation timeout in seconds, 0 means no timeout
+	 */
+	public void setValidationTimeout(final int seconds) {
+		validationTimeout = seconds;
+	}
+
+	/**
+	 * Gets the maximum time in seconds to wait for a connection when all
+	 * connections of the pool are in use.
+	 *
+	 * @return the connection timeout in seconds, default is 0 (infinite)
+	 */
+	public int getConnectionTimeout() {
+		return connectionTimeout;
+	}
+
+	/**
+	 * Sets the maximum time in seconds to wait for a connection when all
+	 * connections of the pool are in use.
+	 *
+	 * @param seconds the number of seconds to wait, 0 means infinite
+	 */
+	public void setConnectionTimeout(final int seconds) {
+		connectionTimeout = seconds;
+	}
+
+	/**
+	 * Gets the maximum time in seconds that this data source can wait while
+	 * attempting to connect to a database.
+	 *
+	 * @return login timeout default is 0 (infinite)
+	 */
+	@Override
+	public int getLoginTimeout() {
+		return source.getLoginTimeout();
+	}
+
+	/**
+	 * Sets the maximum time in seconds that this data source will wait while
+	 * attempting to connect to a database.  It is passed on to the
+	 * physical connections; it does not limit the wait for a connection
+	 * when all are in use, see setConnectionTimeout().
+	 *
+	 * @param seconds the number of seconds to wait before aborting the connect
+	 */
+	@Override
+	public void setLoginTimeout(final int seconds) {
+		source.setLoginTimeout(seconds);
+	}
+
+	/**
+	 * Retrieves the log writer for this DataSource object.
+	 *
+	 * @return the log writer, or null if logging is disabled
+	 */
+	@Override
+	public PrintWriter getLogWriter() {
+		return source.getLogWriter();
+	}
+
+	/**
+	 * Sets the log writer for this DataSource object.  Possibly leaked
+	 * connections are reported to it.
+	 *
+	 * @param out the new log writer, null disables logging
+	 */
+	@Override
+	public void setLogWriter(final PrintWriter out) {
+		source.setLogWriter(out);
+	}
+
+	/**
+	 * Sets the password to use when connecting.  There is no getter
+	 * for obvious reasons.
+	 *
+	 * @param password the password
+	 */
+	public void setPassword(final String password) {
+		this.password = password;
+	}
+
+	/**
+	 * Gets the username
+	 *
+	 * @return the username
+	 */
+	public String getUser() {
+		return user;
+	}
+
+	/**
+	 * Sets the username
+	 *
+	 * @param user the username
+	 */
+	public void setUser(final String user) {
+		this.user = user;
+	}
+
+	/**
+	 * Gets the connection URL
+	 *
+	 * @return the connection URL
+	 */
+	public String getURL() {
+		return source.getURL();
+	}
+
+	/**
+	 * Sets the connection URL
+	 *
+	 * @param url the connection URL
+	 */
+	public void setURL(final String url) {
+		source.setURL(url);
+	}
+
+	/**
+	 * Gets the description
+	 *
+	 * @return the description
+	 */
+	public String getDescription() {
+		return source.getDescription();
+	}
+
+	/**
+	 * Sets the description
+	 *
+	 * @param description the description
+	 */
+	public void setDescription(final String description) {
+		source.setDescription(description);
+	}
+
+	/**
+	 * Return the parent Logger of all the Loggers used by this data
+	 * source.
+	 *
+	 * @return the parent Logger for this data source
+	 * @throws SQLFeatureNotSupportedException if the data source does
+	 *         not use java.util.logging
+	 */
+	@Override
+	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw newSQLFeatureNotSupportedException("getParentLogger");
+	}
+}
@@ -14,12 +14,14 @@ package org.monetdb.jdbc;
 
 import java.io.InputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URL;
 import java.nio.CharBuffer;
 import java.sql.Array;
+import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Date;
@@ -42,6 +44,7 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 
 /**
@@ -82,11 +85,23 @@ public class MonetPreparedStatement
 	private final String[] column;
 	private final int id;
 	private final int size;
+	/** The server side prepared statement, which may come from the statement cache of the connection */
+	private final Prepared prepared;
 
 	private final int paramCount;
 	private final int paramStartIndex;
 	private final String[] paramValues;
 
+	/** The parts of a simple INSERT statement around its parameter markers
+	 * when its batches are sent as multi-row INSERT or COPY INTO statements,
+	 * else null.  See splitInsert() */
+	private final String[] insertParts;
+	/** The table and columns for a COPY INTO of the batches of a simple
+	 * INSERT statement when they can be loaded with COPY INTO, else null */
+	private final String copyTarget;
+	/** The parameter values of the rows of the batch when insertParts is used */
+	private ArrayList<String[]> insertBatch;
+
 	/** A cache to reduce the number of ResultSetMetaData objects created
 	 * by getMetaData() to maximum 1 per PreparedStatement */
 	private ResultSetMetaData rsmd;
@@ -138,6 +153,48 @@ public class MonetPreparedStatement
 		if (prepareQuery == null)
 			throw new SQLException("Missing SQL statement", "M1M05");
 
+		Prepared prep = connection.takeCachedStatement(prepareQuery, resultSetType, resultSetConcurrency);
+		if (prep == null)
+			prep = prepare(prepareQuery, resultSetType, resultSetConcurrency);
+
+		prepared = prep;
+		sqlStatement = prepareQuery;
+		id = prep.id;
+		size = prep.size;
+		monetdbType = prep.monetdbType;
+		javaType = prep.javaType;
+		digits = prep.digits;
+		scale = prep.scale;
+		schema = prep.schema;
+		table = prep.table;
+		column = prep.column;
+		paramCount = prep.paramCount;
+		paramStartIndex = prep.paramStartIndex;
+		// System.out.println("paramCount= " + paramCount + " paramStartIndex= " + paramStartIndex + "\n");
+
+		paramValues = new String[paramCount + 1];	// parameters start from 1
+
+		insertParts = (connection.getBatchInsertRows() > 1 || connection.getBatchCopyRows() > 0)
+			? splitInsert(prepareQuery, paramCount) : null;
+		copyTarget = (insertParts != null && connection.getBatchCopyRows() > 0) ? copyTarget(insertParts) : null;
+
+		// PreparedStatements are by default poolable
+		poolable = true;
+	}
+
+	/**
+	 * Sends the PREPARE statement to the server and collects the
+	 * description of the result columns and parameters it returns.
+	 *
+	 * @param prepareQuery the query string to prepare
+	 * @param resultSetType type of {@link ResultSet} to produce
+	 * @param resultSetConcurrency concurrency of ResultSet to produce
+	 * @return the server side prepared statement
+	 * @throws SQLException if an error occurs during execution of the prepareQuery
+	 */
+	private Prepared prepare(final String prepareQuery, final int resultSetType, final int resultSetConcurrency)
+		throws SQLException
+	{
 		/**
 		 * For a PREPARE statement the server sends back a result set
 		 * with info on all the result columns and parameters of a
@@ -154,27 +211,28 @@ public class MonetPreparedStatement
 		if (!connection.supportsLargePrepares())
 			setFetchSize(50*1000 * 1000);
 
+		// a schema change after this point invalidates the prepared statement
+		final int generation = connection.getSchemaGeneration();
 		if (!super.execute("PREPARE " + prepareQuery))
 			throw new SQLException("Unexpected server response", "M0M10");
 
 		setFetchSize(originalFetchSize);
 
-		sqlStatement = prepareQuery;
 		// cheat a bit to get the ID and the number of columns
-		id = ((MonetConnection.ResultSetResponse)header).id;
-		size = (int)((MonetConnection.ResultSetResponse)header).tuplecount;
+		final int id = ((MonetConnection.ResultSetResponse)header).id;
+		final int size = (int)((MonetConnection.ResultSetResponse)header).tuplecount;
 
 		int countParam = 0;
 		int firstParamOffset = 0;
 
 		// initialise metadata arrays. size can be 0.
-		monetdbType = new String[size];
-		javaType = new int[size];
-		digits = new int[size];
-		scale = new int[size];
-		schema = new String[size];
-		table = new String[size];
-		column = new String[size];
+		final String[] monetdbType = new String[size];
+		final int[] javaType = new int[size];
+		final int[] digits = new int[size];
+		final int[] scale = new int[size];
+		final String[] schema = new String[size];
+		final String[] table = new String[size];
+		final String[] column = new String[size];
 
 		// fill the arrays
 		final ResultSet rs = super.getResultSet();
@@ -216,14 +274,9 @@ public class MonetPreparedStatement
 			}
 			rs.close();
 		}
-		paramCount = countParam;
-		paramStartIndex = firstParamOffset;
-		// System.out.println("paramCount= " + paramCount + " paramStartIndex= " + paramStartIndex + "\n");
-
-		paramValues = new String[paramCount + 1];	// parameters start from 1
-
-		// PreparedStatements are by default poolable
-		poolable = true;
+		return new Prepared(MonetConnection.statementCacheKey(prepareQuery, resultSetType, resultSetConcurrency),
+			id, size, monetdbType, javaType, digits, scale, schema, table, column,
+			countParam, firstParamOffset, generation);
 	}
 
 
@@ -233,11 +286,31 @@ public class MonetPreparedStatement
 	 * Adds a set of parameters to this PreparedStatement object's batch
 	 * of commands.
 	 *
+	 * When this is a simple INSERT INTO ... VALUES (...) statement with
+	 * one row of values, the batch can be sent in fewer statements:
+	 * <ul>
+	 * <li>when the batch_copy_rows connection property is set, all values
+	 * are parameters and the batch has at least batch_copy_rows rows, the
+	 * rows are loaded with one COPY INTO ... ON CLIENT statement</li>
+	 * <li>else when the batch_insert_rows connection property is set, the
+	 * rows are sent as multi-row INSERT statements of at most
+	 * batch_insert_rows rows each</li>
+	 * </ul>
+	 *
 	 * @throws SQLException if a database access error occurs
 	 */
 	@Override
 	public void addBatch() throws SQLException {
-		super.addBatch(transform());
+		if (insertParts != null) {
+			if (insertBatch == null) {
+				// create the ArrayList at first time use
+				insertBatch = new ArrayList<String[]>();
+			}
+			checkParameters();
+			insertBatch.add(paramValues.clone());
+		} else {
+			super.addBatch(transform(paramValues));
+		}
 	}
 
 	/** override the addBatch from the Statement to throw an SQLException */
@@ -246,6 +319,16 @@ public class MonetPreparedStatement
 		throw new SQLException("This method is not available in a PreparedStatement!", "M1M05");
 	}
 
+	/**
+	 * Empties this PreparedStatement object's current batch of parameter sets.
+	 */
+	@Override
+	public void clearBatch() {
+		super.clearBatch();
+		if (insertBatch != null)
+			insertBatch.clear();
+	}
+
 	/**
 	 * Clears the current parameter values immediately.
 	 *
@@ -281,7 +364,7 @@ public class MonetPreparedStatement
 	 */
 	@Override
 	public boolean execute() throws SQLException {
-		return super.execute(transform());
+		return super.execute(transform(paramValues));
 	}
 
 	/** override the execute from the Statement to throw an SQLException */
@@ -2211,10 +2294,15 @@ public class MonetPreparedStatement
 	 * <b>Note:</b> A PreparedStatement object is automatically closed
 	 * when it is garbage collected. When a Statement object is closed,
 	 * its current ResultSet object, if one exists, is also closed.
+	 *
+	 * When this statement is poolable and the statement_cache connection
+	 * property is set, the statement is not released on the server but
+	 * kept in the statement cache of the connection, so a next
+	 * prepareStatement() call with the same SQL text can reuse it.
 	 */
 	@Override
 	public void close() {
-		if (!closed && id != -1) {
+		if (!closed && id != -1 && !(poolable && connection.cacheStatement(prepared))) {
 			try {
 				connection.sendControlCommand("release " + id);
 			} catch (SQLException e) {
@@ -2289,6 +2377,78 @@ public class MonetPreparedStatement
 		return Math.max(getLargeUpdateCount(), 0L);
 	}
 
+	/**
+	 * Submits the batch of parameter sets to the database for execution
+	 * and if all commands execute successfully, returns an array of
+	 * update counts.
+	 *
+	 * When the rows of the batch are sent as multi-row INSERT or COPY INTO
+	 * statements (see addBatch()), each row gets an update count of 1 if
+	 * the number of inserted rows matches, else SUCCESS_NO_INFO.  When such
+	 * a statement fails, none of its rows are inserted and all its rows
+	 * get the update count EXECUTE_FAILED.
+	 *
+	 * @return an array of update counts containing one element for each
+	 *	parameter set in the batch
+	 * @throws SQLException if a database access error occurs
+	 * @throws BatchUpdateException (a subclass of SQLException) if one of the
+	 *	commands sent to the database fails to execute properly
+	 */
+	@Override
+	public long[] executeLargeBatch() throws SQLException {
+		if (insertBatch == null || insertBatch.isEmpty())
+			return super.executeLargeBatch();
+
+		try {
+			final int rows = insertBatch.size();
+			final int maxRows = connection.getBatchInsertRows();
+			final boolean copy = copyTarget != null && rows >= connection.getBatchCopyRows() && canCopyBatch();
+			if (!copy && maxRows <= 1) {
+				// send the rows as separate exec statements
+				for (String[] values : insertBatch)
+					super.addBatch(transform(values));
+				return super.executeLargeBatch();
+			}
+
+			final long[] counts = new long[rows];
+			// collects the SQLExceptions of the failed statements
+			final SQLException e = new SQLException();
+			boolean error = false;
+
+			if (copy) {
+				error = copyBatch(counts, e);
+			} else {
+				final StringBuilder buf = new StringBuilder(8192);
+				for (int start = 0; start < rows; start += maxRows) {
+					final int end = Math.min(rows, start + maxRows);
+					buf.setLength(0);	// clear the buffer
+					buf.append(insertParts[0]);
+					for (int i = start; i < end; i++) {
+						if (i > start)
+							buf.append(',');
+						appendValues(buf, insertBatch.get(i));
+					}
+					error |= executeRows(buf.toString(), start, end, counts, e);
+				}
+			}
+
+			// throw BatchUpdateException if it contains something
+			if (error) {
+				// the BatchUpdateException keeps a copy of the counts, so create it afterwards
+				final BatchUpdateException bue = new BatchUpdateException(
+					"Error(s) occurred while executing the batch, " +
+					"see chained SQLExceptions for details", "22000", 22000, counts, null);
+				bue.setNextException(e.getNextException());
+				throw bue;
+			}
+
+			// otherwise just return the counts
+			return counts;
+		} finally {
+			insertBatch.clear();
+		}
+	}
+
 	//== end methods interface PreparedStatement
 
 
@@ -2328,15 +2488,334 @@ public class MonetPreparedStatement
 			paramValues[parameterIndex] = "NULL";
 	}
 
+	/**
+	 * Splits a simple INSERT INTO ... VALUES (...) statement with one
+	 * row of values around its parameter markers, so the rows of a batch
+	 * can be sent as one multi-row INSERT statement.  The first part is
+	 * the statement up to the row of values, the remaining paramCount + 1
+	 * parts are the pieces of the row around the parameter markers.
+	 * Statements with comments, backslashes or parameter markers outside
+	 * the row of values are not split.
+	 *
+	 * @param sql the SQL statement to split
+	 * @param paramCount the number of parameters of the prepared statement
+	 * @return the parts of the statement or null if it is not a simple INSERT
+	 */
+	static String[] splitInsert(final String sql, final int paramCount) {
+		final int len = sql.length();
+		int pos = 0;
+		while (pos < len && Character.isWhitespace(sql.charAt(pos)))
+			pos++;
+		if (!sql.regionMatches(true, pos, "INSERT", 0, 6))
+			return null;
+		pos += 6;
+		final int keyword = pos;
+		while (pos < len && Character.isWhitespace(sql.charAt(pos)))
+			pos++;
+		if (pos == keyword || !sql.regionMatches(true, pos, "INTO", 0, 4))
+			return null;
+
+		final String[] parts = new String[paramCount + 2];
+		int part = 0;
+		int depth = 0;
+		int rowStart = -1;	// the position of the '(' of the row of values
+		int rowEnd = -1;	// the position after the ')' of the row of values
+		int partStart = 0;
+		for (; pos < len; pos++) {
+			final char c = sql.charAt(pos);
+			if (rowEnd >= 0) {
+				// only white space and a terminating ';' may follow the row of values
+				if (c != ';' && !Character.isWhitespace(c))
+					return null;
+				continue;
+			}
+			switch (c) {
+				case '\\':
+					return null;
+				case '\'':
+				case '"': {
+					final int close = sql.indexOf(c, pos + 1);
+					if (close < 0)
+						return null;
+					// a doubled quote continues the quoted text, which the next iteration handles
+					pos = close;
+					break;
+				}
+				case '-':
+				case '/':
+					if (pos + 1 < len && sql.charAt(pos + 1) == (c == '-' ? '-' : '*'))
+						return null;
+					break;
+				case '(':
+					if (depth == 0 && rowStart < 0) {
+						// is this the row of values?
+						int k = pos - 1;
+						while (k >= 0 && Character.isWhitespace(sql.charAt(k)))
+							k--;
+						if (k >= 5 && sql.regionMatches(true, k - 5, "VALUES", 0, 6)
+						 && (k == 5 || !Character.isLetterOrDigit(sql.charAt(k - 6)) && sql.charAt(k - 6) != '_' && sql.charAt(k - 6) != '"')) {
+							rowStart = pos;
+							parts[part++] = sql.substring(0, pos);
+							partStart = pos;
+						}
+					}
+					depth++;
+					break;
+				case ')':
+					depth--;
+					if (depth == 0 && rowStart >= 0) {
+						rowEnd = pos + 1;
+						if (part != paramCount + 1)
+							return null;
+						parts[part++] = sql.substring(partStart, rowEnd);
+					}
+					break;
+				case '?':
+					if (rowStart < 0 || part > paramCount)
+						return null;
+					parts[part++] = sql.substring(partStart, pos);
+					partStart = pos + 1;
+					break;
+			}
+		}
+		return (rowEnd >= 0) ? parts : null;
+	}
+
+	/**
+	 * Returns the table and columns to load the batches of a simple
+	 * INSERT statement into with COPY INTO, which is only possible when
+	 * all values in the row of values are parameters.
+	 *
+	 * @param parts the parts of the INSERT statement, see splitInsert()
+	 * @return the table name and optional column list of the INSERT
+	 *         statement, or null if its batches can not be loaded with COPY INTO
+	 */
+	static String copyTarget(final String[] parts) {
+		final int last = parts.length - 1;
+		if (last < 2 || !parts[1].trim().equals("(") || !parts[last].trim().equals(")"))
+			return null;
+		for (int i = 2; i < last; i++) {
+			if (!parts[i].trim().equals(","))
+				return null;
+		}
+		// parts[0] is: INSERT INTO target VALUES, see splitInsert()
+		final String insert = parts[0].trim();
+		int pos = 6;	// skip INSERT
+		while (Character.isWhitespace(insert.charAt(pos)))
+			pos++;
+		return insert.substring(pos + 4, insert.length() - 6).trim();
+	}
+
+	/**
+	 * Adds the "(paramval, ...)" row of values of a simple INSERT
+	 * statement for the given parameter values, see splitInsert().
+	 *
+	 * @param buf the buffer to add the row of values to
+	 * @param values the parameter values, starting at index 1
+	 */
+	private void appendValues(final StringBuilder buf, final String[] values) {
+		buf.append(insertParts[1]);
+		for (int param = 1; param <= paramCount; param++)
+			buf.append(values[param]).append(insertParts[param + 1]);
+	}
+
+	/**
+	 * Executes a multi-row INSERT or COPY INTO statement for the rows
+	 * start to end of the batch and sets their update counts.
+	 *
+	 * @param sql the statement to execute
+	 * @param start the index of the first row of the statement
+	 * @param end the index after the last row of the statement
+	 * @param counts the update counts of the batch
+	 * @param e the SQLException to chain a failure to
+	 * @return true if the statement failed
+	 */
+	private boolean executeRows(final String sql, final int start, final int end,
+			final long[] counts, final SQLException e)
+	{
+		try {
+			if (super.execute(sql))
+				throw new SQLException("Batch query produced a ResultSet!", "M1M17");
+			final long count = (getLargeUpdateCount() == end - start) ? 1 : SUCCESS_NO_INFO;
+			for (int i = start; i < end; i++)
+				counts[i] = count;
+			return false;
+		} catch (SQLException ex) {
+			e.setNextException(ex);
+			for (int i = start; i < end; i++)
+				counts[i] = EXECUTE_FAILED;
+			return true;
+		}
+	}
+
+	/**
+	 * Checks if all parameter values of the batch can be written as CSV
+	 * for a COPY INTO, see appendCsv().
+	 *
+	 * @return true if the batch can be loaded with COPY INTO
+	 */
+	private boolean canCopyBatch() {
+		for (String[] values : insertBatch) {
+			for (int param = 1; param <= paramCount; param++) {
+				if (!appendCsv(null, values[param], null))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Loads all rows of the batch with one COPY INTO ... ON CLIENT
+	 * statement.  The rows are written as CSV to the server by an
+	 * internal UploadHandler of the connection.
+	 *
+	 * @param counts the update counts of the batch
+	 * @param e the SQLException to chain a failure to
+	 * @return true if the COPY INTO failed
+	 */
+	private boolean copyBatch(final long[] counts, final SQLException e) {
+		final int rows = insertBatch.size();
+		// choose a NULL representation which is not used as string value in this batch
+		String nullString = "NULL";
+		while (hasStringValue(nullString))
+			nullString = nullString + "_";
+		final String nullAs = nullString;
+
+		final String name = connection.addInternalUpload((handle, fileName, textMode, linesToSkip) -> {
+			final PrintStream out = handle.getStream();
+			final StringBuilder line = new StringBuilder(256);
+			for (String[] values : insertBatch) {
+				line.setLength(0);	// clear the buffer
+				for (int param = 1; param <= paramCount; param++) {
+					if (param > 1)
+						line.append(',');
+					appendCsv(line, values[param], nullAs);
+				}
+				line.append('\n');
+				out.append(line);
+			}
+		});
+		try {
+			return executeRows("COPY " + rows + " RECORDS INTO " + copyTarget + " FROM '" + name
+				+ "' ON CLIENT USING DELIMITERS ',', E'\\n', '\"' NULL AS '" + nullAs + "'", 0, rows, counts, e);
+		} finally {
+			connection.removeInternalUpload(name);
+		}
+	}
+
+	/**
+	 * Checks if one of the parameter values of the batch is a string
+	 * literal with the given text.
+	 *
+	 * @param text the text to look for, without quotes or backslashes
+	 * @return true if the text is used as a string value
+	 */
+	private boolean hasStringValue(final String text) {
+		final String literal = "'" + text + "'";
+		for (String[] values : insertBatch) {
+			for (int param = 1; param <= paramCount; param++) {
+				if (values[param].endsWith(literal))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Converts a parameter value, which is an SQL literal as created by
+	 * the setXxx() methods, into a CSV field for COPY INTO.  NULL is
+	 * written as the given nullString, a number or boolean as is and a
+	 * (typed) string literal as a quoted field with backslash escapes.
+	 *
+	 * @param csv the buffer to add the field to, or null to only check the value
+	 * @param value the parameter value
+	 * @param nullString the NULL representation of the COPY INTO
+	 * @return false if the value can not be written as CSV field
+	 */
+	static boolean appendCsv(final StringBuilder csv, final String value, final String nullString) {
+		if (value.equals("NULL")) {
+			if (csv != null)
+				csv.append(nullString);
+			return true;
+		}
+		final int len = value.length();
+		final int quote = value.indexOf('\'');
+		if (quote < 0) {
+			// a number or boolean
+			for (int i = 0; i < len; i++) {
+				final char c = value.charAt(i);
+				if (c <= ' ' || c == ',' || c == '"' || c == '\\')
+					return false;
+			}
+			if (csv != null)
+				csv.append(value);
+			return true;
+		}
+		if (len < quote + 2 || value.charAt(len - 1) != '\'')
+			return false;
+		// the prefix may only be a type name, such as: timestamp or blob
+		for (int i = 0; i < quote; i++) {
+			final char c = value.charAt(i);
+			if (!Character.isLetterOrDigit(c) && c != ' ' && c != '_')
+				return false;
+		}
+
+		if (csv != null)
+			csv.append('"');
+		for (int i = quote + 1; i < len - 1; i++) {
+			char c = value.charAt(i);
+			if (c == '\\') {
+				if (i + 1 == len - 1)
+					return false;
+				c = value.charAt(++i);	// undo the escape of MonetWrapper.sq()
+			} else if (c == '\'') {
+				// not a single string literal
+				return false;
+			}
+			if (csv == null)
+				continue;
+			switch (c) {
+				case '"':
+				case '\\':
+					csv.append('\\').append(c);
+					break;
+				case '\n':
+					csv.append("\\n");
+					break;
+				case '\r':
+					csv.append("\\r");
+					break;
+				default:
+					csv.append(c);
+			}
+		}
+		if (csv != null)
+			csv.append('"');
+		return true;
+	}
+
+	/**
+	 * Checks that all parameters are set with a value.
+	 *
+	 * @throws SQLException if not all parameters are set with a value
+	 */
+	private final void checkParameters() throws SQLException {
+		for (int param = 1; param <= paramCount; param++) {
+			if (paramValues[param] == null)
+				throw new SQLException("Cannot execute, parameter " + param + " is missing.", "M1M05");
+		}
+	}
+
 	private StringBuilder execStmt;	// created once, re-used multiple times so much less objects are created and gc-ed
 	/**
-	 * Constructs an "exec ##(paramval, ...)" statement string for the current parameter values.
+	 * Constructs an "exec ##(paramval, ...)" statement string for the given parameter values.
 	 * Mind that the JDBC specs allow 'reuse' of a value for a parameter over multiple executes.
 	 *
+	 * @param values the parameter values, starting at index 1
 	 * @return the "exec ##(...)" string
 	 * @throws SQLException if not all parameters are set with a value
 	 */
-	private final String transform() throws SQLException {
+	private final String transform(final String[] values) throws SQLException {
 		if (execStmt == null)
 			// first time use, create it once
 			execStmt = new StringBuilder(32 + paramCount * 32);
@@ -2346,13 +2825,59 @@ public class MonetPreparedStatement
 		execStmt.append("exec ").append(id).append('(');
 		// check if all parameters are set and add the parameter values
 		for (int param = 1; param <= paramCount; param++) {
-			if (paramValues[param] == null)
+			if (values[param] == null)
 				throw new SQLException("Cannot execute, parameter " + param + " is missing.", "M1M05");
 			if (param > 1)
 				execStmt.append(',');
-			execStmt.append(paramValues[param]);
+			execStmt.append(values[param]);
 		}
 		execStmt.append(')');
 		return execStmt.toString();
 	}
+
+	/**
+	 * The description of a statement prepared on the server as returned
+	 * by PREPARE.  It is immutable, so it can be kept in the statement
+	 * cache of the connection and shared by the MonetPreparedStatement
+	 * objects created for the same SQL text.
+	 */
+	static final class Prepared {
+		/** The key of this prepared statement in the statement cache of the connection */
+		final String key;
+		/** The server side id of the prepared statement */
+		final int id;
+		final int size;
+		final String[] monetdbType;
+		final int[] javaType;
+		final int[] digits;
+		final int[] scale;
+		final String[] schema;
+		final String[] table;
+		final String[] column;
+		final int paramCount;
+		final int paramStartIndex;
+		/** The schema generation of the connection when this statement was prepared */
+		final int generation;
+
+		Prepared(final String key, final int id, final int size,
+			final String[] monetdbType, final int[] javaType, final int[] digits, final int[] scale,
+			final String[] schema, final String[] table, final String[] column,
+			final int paramCount, final int paramStartIndex,
+			final int generation)
+		{
+			this.key = key;
+			this.id = id;
+			this.size = size;
+			this.monetdbType = monetdbType;
+			this.javaType = javaType;
+			this.digits = digits;
+			this.scale = scale;
+			this.schema = schema;
+			this.table = table;
+			this.column = column;
+			this.paramCount = paramCount;
+			this.paramStartIndex = paramStartIndex;
+			this.generation = generation;
+		}
+	}
 }
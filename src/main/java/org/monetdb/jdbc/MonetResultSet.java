@@ -42,11 +42,14 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.Map;
@@ -96,6 +99,8 @@ public class MonetResultSet
 	/** The JDBC SQL types of the columns in this ResultSet.
 	  * The content will be derived once from the MonetDB String[] types */
 	private final int[] JdbcSQLTypes;
+	/** The scales of the columns in this ResultSet, null if not known */
+	private final int[] scales;
 
 	/** A cache to reduce the number of ResultSetMetaData objects created by getMetaData() to maximum 1 per ResultSet */
 	private ResultSetMetaData rsmd;
@@ -146,6 +151,7 @@ public class MonetResultSet
 		fetchSize = header.getCacheSize();
 		columns = header.getNames();
 		types = header.getTypes();
+		scales = header.getColumnScales();
 		if (columns == null || types == null) {
 			throw new IllegalArgumentException("Missing Header metadata");
 		}
@@ -195,6 +201,7 @@ public class MonetResultSet
 
 		this.columns = columns;
 		this.types = types;
+		scales = null;
 		tupleCount = results;
 
 		tlp = new TupleLineParser(columns.length);
@@ -281,17 +288,7 @@ public class MonetResultSet
 		if (header == null)
 			return false;
 
-		final String tmpLine = header.getLine(row - 1);
-		if (tmpLine == null)
-			return false;
-
-		try {
-			tlp.parse(tmpLine);
-		} catch (MCLParseException e) {
-			throw new SQLException(e.getMessage(), "M0M10");
-		}
-
-		return true;
+		return header.loadRow(row - 1, tlp);
 	}
 
 	/**
@@ -500,7 +497,7 @@ public class MonetResultSet
 	public Reader getCharacterStream(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -575,7 +572,7 @@ public class MonetResultSet
 	public Blob getBlob(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -617,7 +614,7 @@ public class MonetResultSet
 	public Clob getClob(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -680,6 +677,19 @@ public class MonetResultSet
 		throw newSQLFeatureNotSupportedException("getNClob");
 	}
 
+	/**
+	 * Returns the number of digits after the decimal point of the values
+	 * of a DECIMAL column, as given by the result set header.
+	 *
+	 * @param column the column index, the first column is 0
+	 * @return the scale of the column values, or -1 if not known
+	 */
+	private int getDecimalScale(final int column) {
+		if (scales == null || JdbcSQLTypes[column] != Types.DECIMAL)
+			return -1;
+		return scales[column];
+	}
+
 	/**
 	 * Retrieves the value of the designated column in the current row of this
 	 * ResultSet object as a java.math.BigDecimal with full precision.
@@ -693,13 +703,12 @@ public class MonetResultSet
 	public BigDecimal getBigDecimal(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
-			if (val == null) {
+			if (tlp.isNull(columnIndex - 1)) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
-			return new BigDecimal(val);
+			return tlp.getBigDecimal(columnIndex - 1, getDecimalScale(columnIndex - 1));
 		} catch (NumberFormatException e) {
 			throw newSQLNumberFormatException(e);
 		} catch (IndexOutOfBoundsException e) {
@@ -724,13 +733,12 @@ public class MonetResultSet
 	{
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
-			if (val == null) {
+			if (tlp.isNull(columnIndex - 1)) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
-			return (new BigDecimal(val)).setScale(scale);
+			return tlp.getBigDecimal(columnIndex - 1, getDecimalScale(columnIndex - 1)).setScale(scale);
 		} catch (NumberFormatException e) {
 			throw newSQLNumberFormatException(e);
 		} catch (IndexOutOfBoundsException e) {
@@ -785,7 +793,7 @@ public class MonetResultSet
 	public boolean getBoolean(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return false;	// if the value is SQL NULL, the value returned is false
@@ -867,13 +875,16 @@ public class MonetResultSet
 	public byte getByte(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
-			if (val == null) {
+			if (tlp.isNull(columnIndex - 1)) {
 				lastReadWasNull = true;
 				return (byte) 0;
 			}
 			lastReadWasNull = false;
-			return Byte.parseByte(val);
+			final int val = tlp.getInt(columnIndex - 1);
+			if (val < Byte.MIN_VALUE || val > Byte.MAX_VALUE)
+				// let parseByte() report the value out of range
+				return Byte.parseByte(tlp.getValue(columnIndex - 1));
+			return (byte) val;
 		} catch (NumberFormatException e) {
 			throw newSQLNumberFormatException(e);
 		} catch (IndexOutOfBoundsException e) {
@@ -909,7 +920,7 @@ public class MonetResultSet
 	public byte[] getBytes(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -1007,13 +1018,12 @@ public class MonetResultSet
 	public double getDouble(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
-			if (val == null) {
+			if (tlp.isNull(columnIndex - 1)) {
 				lastReadWasNull = true;
 				return 0;
 			}
 			lastReadWasNull = false;
-			return Double.parseDouble(val);
+			return tlp.getDouble(columnIndex - 1);
 		} catch (NumberFormatException e) {
 			throw newSQLNumberFormatException(e);
 		} catch (IndexOutOfBoundsException e) {
@@ -1112,6 +1122,44 @@ public class MonetResultSet
 		}
 	}
 
+	/**
+	 * Retrieves how often a row was found in a result block which was
+	 * kept in memory, counted once each time the cursor moves to another
+	 * block.  Together with {@link #getBlockCacheMisses()} and
+	 * {@link #getBlockCacheEvictions()} this shows how well the block_cache
+	 * connection property suits the access pattern of a scrollable
+	 * result set.  This method is not part of the JDBC API, use
+	 * unwrap(MonetResultSet.class) to call it.
+	 *
+	 * @return the number of block cache hits, 0 if this ResultSet does
+	 *         not fetch data in blocks
+	 */
+	public long getBlockCacheHits() {
+		return header != null ? header.getCacheHits() : 0;
+	}
+
+	/**
+	 * Retrieves how often a result block had to be fetched from the
+	 * server, either for the first time or after it was evicted.
+	 *
+	 * @return the number of block cache misses, 0 if this ResultSet does
+	 *         not fetch data in blocks
+	 */
+	public long getBlockCacheMisses() {
+		return header != null ? header.getCacheMisses() : 0;
+	}
+
+	/**
+	 * Retrieves how many result blocks were removed from memory to stay
+	 * within the memory limit set by the block_cache connection property.
+	 *
+	 * @return the number of evicted blocks, 0 if this ResultSet does
+	 *         not fetch data in blocks
+	 */
+	public long getBlockCacheEvictions() {
+		return header != null ? header.getCacheEvictions() : 0;
+	}
+
 	/**
 	 * Retrieves the value of the designated column in the current row of this
 	 * ResultSet object as a float in the Java programming language.
@@ -1124,7 +1172,7 @@ public class MonetResultSet
 	public float getFloat(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return 0;
@@ -1162,27 +1210,23 @@ public class MonetResultSet
 	@Override
 	public int getInt(final int columnIndex) throws SQLException {
 		checkNotClosed();
-		String val = "";
 		try {
-			val = tlp.values[columnIndex - 1];
-			if (val == null) {
+			if (tlp.isNull(columnIndex - 1)) {
 				lastReadWasNull = true;
 				return 0;
 			}
 			lastReadWasNull = false;
-			return Integer.parseInt(val);
-		} catch (NumberFormatException e) {
-			// The oid datatype values (as string) have a  @0  suffix in the string value.
-			// To allow successful parsing and conversion to int, we need to remove the suffix first
 			if ("oid".equals(types[columnIndex - 1])) {
-				if (val.endsWith("@0")) {
-					try {
-						return Integer.parseInt(val.substring(0, val.length()-2));
-					} catch (NumberFormatException nfe) {
-						throw newSQLNumberFormatException(nfe);
-					}
-				}
+				// The oid datatype values (as string) have a  @0  suffix in the string value.
+				// getOid() skips the suffix while decoding
+				final long val = tlp.getOid(columnIndex - 1);
+				if (val >= Integer.MIN_VALUE && val <= Integer.MAX_VALUE)
+					return (int) val;
+				throw new NumberFormatException("Value out of range. Value:\"" + tlp.getValue(columnIndex - 1) + "\"");
 			}
+			// decode the value directly from the row, without creating a String first
+			return tlp.getInt(columnIndex - 1);
+		} catch (NumberFormatException e) {
 			throw newSQLNumberFormatException(e);
 		} catch (IndexOutOfBoundsException e) {
 			throw newSQLInvalidColumnIndexException(columnIndex);
@@ -1213,27 +1257,20 @@ public class MonetResultSet
 	@Override
 	public long getLong(final int columnIndex) throws SQLException {
 		checkNotClosed();
-		String val = "";
 		try {
-			val = tlp.values[columnIndex - 1];
-			if (val == null) {
+			if (tlp.isNull(columnIndex - 1)) {
 				lastReadWasNull = true;
 				return 0;
 			}
 			lastReadWasNull = false;
-			return Long.parseLong(val);
-		} catch (NumberFormatException e) {
-			// The oid datatype values (as string) have a  @0  suffix in the string value.
-			// To allow successful parsing and conversion to long, we need to remove the suffix first
 			if ("oid".equals(types[columnIndex - 1])) {
-				if (val.endsWith("@0")) {
-					try {
-						return Long.parseLong(val.substring(0, val.length()-2));
-					} catch (NumberFormatException nfe) {
-						throw newSQLNumberFormatException(nfe);
-					}
-				}
+				// The oid datatype values (as string) have a  @0  suffix in the string value.
+				// getOid() skips the suffix while decoding
+				return tlp.getOid(columnIndex - 1);
 			}
+			// decode the value directly from the row, without creating a String first
+			return tlp.getLong(columnIndex - 1);
+		} catch (NumberFormatException e) {
 			throw newSQLNumberFormatException(e);
 		} catch (IndexOutOfBoundsException e) {
 			throw newSQLInvalidColumnIndexException(columnIndex);
@@ -1323,7 +1360,7 @@ public class MonetResultSet
 		final int JdbcType;
 		final String val;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -1523,7 +1560,7 @@ public class MonetResultSet
 		final String val;
 		final String MonetDBtype;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -1867,13 +1904,16 @@ public class MonetResultSet
 	public short getShort(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
-			if (val == null) {
+			if (tlp.isNull(columnIndex - 1)) {
 				lastReadWasNull = true;
 				return 0;
 			}
 			lastReadWasNull = false;
-			return Short.parseShort(val);
+			final int val = tlp.getInt(columnIndex - 1);
+			if (val < Short.MIN_VALUE || val > Short.MAX_VALUE)
+				// let parseShort() report the value out of range
+				return Short.parseShort(tlp.getValue(columnIndex - 1));
+			return (short) val;
 		} catch (NumberFormatException e) {
 			throw newSQLNumberFormatException(e);
 		} catch (IndexOutOfBoundsException e) {
@@ -1922,7 +1962,7 @@ public class MonetResultSet
 	public String getString(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -2044,7 +2084,7 @@ public class MonetResultSet
 		int JdbcType;
 		boolean negativeYear = false;
 		try {
-			monetDateStr = tlp.values[columnIndex - 1];
+			monetDateStr = tlp.getValue(columnIndex - 1);
 			if (monetDateStr == null) {
 				lastReadWasNull = true;
 				return -1;
@@ -2219,6 +2259,235 @@ public class MonetResultSet
 		}
 	}
 
+	/**
+	 * Decoder for the fixed text format in which MonetDB sends date, time
+	 * and timestamp values: [-]yyyy-MM-dd, HH:mm:ss[.fffffffff][+hh:mm]
+	 * and the combination of both separated by a space.
+	 * The fields are decoded directly from the String, without creating
+	 * any intermediate objects.  Range checking of the fields is left to
+	 * the java.time factory methods.
+	 */
+	private static final class DateTimeDecoder {
+		int year;
+		int month;
+		int day;
+		int hour;
+		int minute;
+		int second;
+		int nanos;
+		int offsetSeconds;
+		boolean hasDate;
+		boolean hasTime;
+		boolean hasOffset;
+
+		/**
+		 * Decodes the given value into the fields of this decoder.
+		 *
+		 * @param s the value as sent by the server
+		 * @return true if the whole value matched the fixed format
+		 */
+		boolean decode(final String s) {
+			hasDate = false;
+			hasTime = false;
+			hasOffset = false;
+			final int len = s.length();
+			int pos = 0;
+			if (len >= 10 && s.charAt(2) != ':') {
+				// a date part, the year has exactly 4 digits and may be negative
+				final int p = s.charAt(0) == '-' ? 1 : 0;
+				if (len < p + 10 || s.charAt(p + 4) != '-' || s.charAt(p + 7) != '-')
+					return false;
+				year = digits(s, p, 4);
+				month = digits(s, p + 5, 2);
+				day = digits(s, p + 8, 2);
+				if (year < 0 || month < 0 || day < 0)
+					return false;
+				if (p == 1)
+					year = -year;
+				hasDate = true;
+				pos = p + 10;
+				if (pos == len)
+					return true;
+				final char sep = s.charAt(pos++);
+				if (sep != ' ' && sep != 'T')
+					return false;
+			}
+			// a time part: HH:mm:ss with optional fraction and offset
+			if (len < pos + 8 || s.charAt(pos + 2) != ':' || s.charAt(pos + 5) != ':')
+				return false;
+			hour = digits(s, pos, 2);
+			minute = digits(s, pos + 3, 2);
+			second = digits(s, pos + 6, 2);
+			if (hour < 0 || minute < 0 || second < 0)
+				return false;
+			pos += 8;
+			nanos = 0;
+			if (pos < len && s.charAt(pos) == '.') {
+				final int start = ++pos;
+				while (pos < len) {
+					final char c = s.charAt(pos);
+					if (c < '0' || c > '9')
+						break;
+					nanos = nanos * 10 + (c - '0');
+					pos++;
+				}
+				final int n = pos - start;
+				if (n == 0 || n > 9)
+					return false;
+				for (int i = n; i < 9; i++)
+					nanos *= 10;
+			}
+			hasTime = true;
+			if (pos == len)
+				return true;
+			// an offset part: +hh:mm or -hh:mm
+			final char sign = s.charAt(pos);
+			if ((sign != '+' && sign != '-') || len != pos + 6 || s.charAt(pos + 3) != ':')
+				return false;
+			final int oh = digits(s, pos + 1, 2);
+			final int om = digits(s, pos + 4, 2);
+			if (oh < 0 || om < 0)
+				return false;
+			offsetSeconds = (sign == '-') ? -(oh * 3600 + om * 60) : (oh * 3600 + om * 60);
+			hasOffset = true;
+			return true;
+		}
+
+		/**
+		 * Returns the value of n decimal digits starting at pos, or -1
+		 * if one of the chars is not an ISO-LATIN-1 digit.
+		 */
+		private static int digits(final String s, int pos, final int n) {
+			int v = 0;
+			for (final int end = pos + n; pos < end; pos++) {
+				final char c = s.charAt(pos);
+				if (c < '0' || c > '9')
+					return -1;
+				v = v * 10 + (c - '0');
+			}
+			return v;
+		}
+	}
+
+	/** the decoder for date/time values, created at first usage */
+	private DateTimeDecoder decoder;
+
+	/**
+	 * Small helper method that decodes the given date/time value with
+	 * the fixed format decoder of this ResultSet.
+	 *
+	 * @param val the value to decode
+	 * @return the decoder holding the decoded fields, or null if the value
+	 *         does not match the fixed format
+	 */
+	private DateTimeDecoder decode(final String val) {
+		if (decoder == null)
+			decoder = new DateTimeDecoder();
+		return decoder.decode(val) ? decoder : null;
+	}
+
+	/**
+	 * Small helper method that returns the offset the java.sql types
+	 * should be constructed in: the decoded offset for the types with a
+	 * time zone, else the time zone of the given Calendar.
+	 *
+	 * @param d the decoder holding the decoded fields
+	 * @param cal the Calendar passed by the caller, may be null
+	 * @param ldt the decoded local date and time
+	 * @return the ZoneOffset to use, or null to use the default time zone
+	 */
+	private static ZoneOffset getZoneOffset(final DateTimeDecoder d, final Calendar cal, final LocalDateTime ldt) {
+		if (d.hasOffset)
+			return ZoneOffset.ofTotalSeconds(d.offsetSeconds);
+		if (cal == null)
+			return null;
+		final ZoneId zone = cal.getTimeZone().toZoneId();
+		return zone.getRules().getOffset(ldt);
+	}
+
+	/**
+	 * Converts the value of a DATE column to a java.sql.Date using the
+	 * fixed format decoder.  Values for which the java.util and java.time
+	 * calendars may differ (years before 1583) and values which do not
+	 * match the fixed format are left to the getJavaDate() path.
+	 *
+	 * @return the Date, or null if the value must be converted by getJavaDate()
+	 */
+	private Date decodeDate(final int columnIndex, final String val, final Calendar cal) {
+		if (JdbcSQLTypes[columnIndex - 1] != Types.DATE)
+			return null;
+		final DateTimeDecoder d = decode(val);
+		if (d == null || !d.hasDate || d.hasTime || d.year < 1583)
+			return null;
+		final LocalDate ld;
+		try {
+			ld = LocalDate.of(d.year, d.month, d.day);
+		} catch (DateTimeException e) {
+			return null;
+		}
+		if (cal == null)
+			return Date.valueOf(ld);
+		final LocalDateTime ldt = ld.atStartOfDay();
+		return new Date(ldt.toEpochSecond(getZoneOffset(d, cal, ldt)) * 1000L);
+	}
+
+	/**
+	 * Converts the value of a TIME or TIMETZ column to a java.sql.Time
+	 * using the fixed format decoder.  Like getJavaDate() the fraction is
+	 * kept up to milliseconds.
+	 *
+	 * @return the Time, or null if the value must be converted by getJavaDate()
+	 */
+	private Time decodeTime(final int columnIndex, final String val, final Calendar cal) {
+		final int type = JdbcSQLTypes[columnIndex - 1];
+		if (type != Types.TIME && type != Types.TIME_WITH_TIMEZONE)
+			return null;
+		final DateTimeDecoder d = decode(val);
+		if (d == null || d.hasDate || !d.hasTime || d.hasOffset != (type == Types.TIME_WITH_TIMEZONE))
+			return null;
+		final LocalTime lt;
+		try {
+			lt = LocalTime.of(d.hour, d.minute, d.second);
+		} catch (DateTimeException e) {
+			return null;
+		}
+		final int millis = d.nanos / 1000000;
+		if (cal == null && !d.hasOffset) {
+			final Time t = Time.valueOf(lt);
+			if (millis != 0)
+				t.setTime(t.getTime() + millis);
+			return t;
+		}
+		final LocalDateTime ldt = LocalDateTime.of(LocalDate.ofEpochDay(0), lt);
+		return new Time(ldt.toEpochSecond(getZoneOffset(d, cal, ldt)) * 1000L + millis);
+	}
+
+	/**
+	 * Converts the value of a TIMESTAMP or TIMESTAMPTZ column to a
+	 * java.sql.Timestamp using the fixed format decoder.
+	 *
+	 * @return the Timestamp, or null if the value must be converted by getJavaDate()
+	 */
+	private Timestamp decodeTimestamp(final int columnIndex, final String val, final Calendar cal) {
+		final int type = JdbcSQLTypes[columnIndex - 1];
+		if (type != Types.TIMESTAMP && type != Types.TIMESTAMP_WITH_TIMEZONE)
+			return null;
+		final DateTimeDecoder d = decode(val);
+		if (d == null || !d.hasDate || !d.hasTime || d.hasOffset != (type == Types.TIMESTAMP_WITH_TIMEZONE) || d.year < 1583)
+			return null;
+		final LocalDateTime ldt;
+		try {
+			ldt = LocalDateTime.of(d.year, d.month, d.day, d.hour, d.minute, d.second, d.nanos);
+		} catch (DateTimeException e) {
+			return null;
+		}
+		if (cal == null && !d.hasOffset)
+			return Timestamp.valueOf(ldt);
+		final Timestamp ts = new Timestamp(ldt.toEpochSecond(getZoneOffset(d, cal, ldt)) * 1000L);
+		ts.setNanos(d.nanos);
+		return ts;
+	}
+
 	/**
 	 * Retrieves the value of the designated column in the current row of this
 	 * ResultSet object as a java.sql.Date object in the Java programming
@@ -2252,12 +2521,15 @@ public class MonetResultSet
 	{
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final Date d = decodeDate(columnIndex, val, cal);
+			if (d != null)
+				return d;
 			if (cal == null) {
 				// try to convert string directly to a Date object
 				// Note: the string must be in JDBC date escape format: yyyy-[m]m-[d]d
@@ -2342,12 +2614,15 @@ public class MonetResultSet
 	{
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final Time t = decodeTime(columnIndex, val, cal);
+			if (t != null)
+				return t;
 			if (cal == null) {
 				// try to convert string directly to a Time object
 				// Note: the string must be in JDBC time escape format: hh:mm:ss
@@ -2432,12 +2707,15 @@ public class MonetResultSet
 	{
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final Timestamp t = decodeTimestamp(columnIndex, val, cal);
+			if (t != null)
+				return t;
 			if (cal == null) {
 				// try to convert the string directly to a Timestamp object
 				// Note: the string must be in JDBC timestamp escape format: yyyy-[m]m-[d]d hh:mm:ss[.f...]
@@ -2519,7 +2797,7 @@ public class MonetResultSet
 	public URL getURL(final int columnIndex) throws SQLException {
 		checkNotClosed();
 		try {
-			final String val = tlp.values[columnIndex - 1];
+			final String val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -3261,7 +3539,7 @@ public class MonetResultSet
 
 		final String val;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
@@ -3464,12 +3742,20 @@ public class MonetResultSet
 	private LocalDate getLocalDate(final int columnIndex) throws SQLException {
 		final String val;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final DateTimeDecoder d = decode(val);
+			if (d != null && d.hasDate && !d.hasTime) {
+				try {
+					return LocalDate.of(d.year, d.month, d.day);
+				} catch (DateTimeException e) {
+					// let the parse below report the error
+				}
+			}
 
 			// Note: ISO_LOCAL_DATE format requires the year to have 4 (or more) digits else parse will fail
 			// This means years -999 to 999 will fail to parse. They should have been zero padded, so -0999 to 0999.
@@ -3493,12 +3779,20 @@ public class MonetResultSet
 	private LocalDateTime getLocalDateTime(final int columnIndex) throws SQLException {
 		final String val;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final DateTimeDecoder d = decode(val);
+			if (d != null && d.hasDate && d.hasTime && !d.hasOffset) {
+				try {
+					return LocalDateTime.of(d.year, d.month, d.day, d.hour, d.minute, d.second, d.nanos);
+				} catch (DateTimeException e) {
+					// let the parse below report the error
+				}
+			}
 
 			// ISO_LOCAL_DATE_TIME format expects a 'T' instead of a space between date and time parts
 			// replace the space between date and time parts with 'T'
@@ -3531,12 +3825,20 @@ public class MonetResultSet
 	private LocalTime getLocalTime(final int columnIndex) throws SQLException {
 		final String val;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final DateTimeDecoder d = decode(val);
+			if (d != null && !d.hasDate && d.hasTime && !d.hasOffset) {
+				try {
+					return LocalTime.of(d.hour, d.minute, d.second, d.nanos);
+				} catch (DateTimeException e) {
+					// let the parse below report the error
+				}
+			}
 			return LocalTime.parse(val, DateTimeFormatter.ISO_LOCAL_TIME);
 		} catch (IndexOutOfBoundsException e) {
 			throw newSQLInvalidColumnIndexException(columnIndex);
@@ -3557,12 +3859,21 @@ public class MonetResultSet
 	private OffsetDateTime getOffsetDateTime(final int columnIndex) throws SQLException {
 		final String val;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final DateTimeDecoder d = decode(val);
+			if (d != null && d.hasDate && d.hasOffset) {
+				try {
+					return OffsetDateTime.of(d.year, d.month, d.day, d.hour, d.minute, d.second, d.nanos,
+						ZoneOffset.ofTotalSeconds(d.offsetSeconds));
+				} catch (DateTimeException e) {
+					// let the parse below report the error
+				}
+			}
 
 			// ISO_OFFSET_DATE_TIME format expects a 'T' instead of a space between date and time parts
 			// replace the space between date and time parts with 'T'
@@ -3595,12 +3906,21 @@ public class MonetResultSet
 	private OffsetTime getOffsetTime(final int columnIndex) throws SQLException {
 		final String val;
 		try {
-			val = tlp.values[columnIndex - 1];
+			val = tlp.getValue(columnIndex - 1);
 			if (val == null) {
 				lastReadWasNull = true;
 				return null;
 			}
 			lastReadWasNull = false;
+			final DateTimeDecoder d = decode(val);
+			if (d != null && !d.hasDate && d.hasOffset) {
+				try {
+					return OffsetTime.of(d.hour, d.minute, d.second, d.nanos,
+						ZoneOffset.ofTotalSeconds(d.offsetSeconds));
+				} catch (DateTimeException e) {
+					// let the parse below report the error
+				}
+			}
 			return OffsetTime.parse(val, DateTimeFormatter.ISO_TIME);
 		} catch (IndexOutOfBoundsException e) {
 			throw newSQLInvalidColumnIndexException(columnIndex);
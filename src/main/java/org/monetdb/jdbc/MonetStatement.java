@@ -19,8 +19,12 @@ import java.sql.Statement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
 import java.sql.SQLWarning;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -69,8 +73,17 @@ public class MonetStatement
 	private boolean closeOnCompletion = false;
 	/** The timeout (in sec) for the query to return, 0 means no timeout */
 	private int queryTimeout;
+	/** Whether a query of this Statement is being executed, cancel() only acts then */
+	private volatile boolean executing;
+	/** Whether the running query was stopped by cancel() */
+	private volatile boolean cancelled;
+	/** Whether the running query was stopped because its queryTimeout expired */
+	private volatile boolean timedOut;
 	/** The size of the blocks of results to ask for at the server */
 	private int fetchSize;
+	/** Whether the fetch size was set by the application, otherwise the
+	 *  connection adapts the size of the blocks to the result */
+	private boolean fetchSizeSet = false;
 	/** The maximum number of rows to return in a ResultSet, 0 indicates unlimited */
 	private long maxRows;
 	/** The type of ResultSet to produce; i.e. forward only, random access */
@@ -206,10 +219,6 @@ public class MonetStatement
 	 */
 	@Override
 	public int[] executeBatch() throws SQLException {
-		if (batch == null || batch.isEmpty()) {
-			return new int[0];
-		}
-
 		final long[] ret = executeLargeBatch();
 		// copy contents of long[] into new int[]
 		final int[] counts = new int[ret.length];
@@ -226,13 +235,34 @@ public class MonetStatement
 	 * Cancels this Statement object if both the DBMS and driver support aborting an SQL statement.
 	 * This method can be used by one thread to cancel a statement that is being executed by another thread.
 	 *
+	 * The query is stopped through a separate control connection, see
+	 * MonetConnection.stopRunningQuery().  The executing thread receives
+	 * an SQLException with SQLState HY008 and the connection can be used
+	 * again.  When no query of this Statement is running, nothing happens.
+	 *
 	 * @throws SQLException - if a database access error occurs or this method is called on a closed Statement
 	 * @throws SQLFeatureNotSupportedException - if the JDBC driver does not support this method
 	 */
 	@Override
 	public void cancel() throws SQLException {
-		throw new SQLFeatureNotSupportedException("Query cancelling is currently not supported by the driver.", "0A000");
-		// a request to implement this is already logged, see: https://github.com/MonetDB/MonetDB/issues/6222
+		if (closed)
+			throw new SQLException("Cannot call on closed Statement", "M1M20");
+		if (!executing)
+			return;
+		cancelled = true;
+		connection.stopRunningQuery(this);
+	}
+
+	/**
+	 * Called by the deadline scheduler of the connection when the
+	 * queryTimeout of the running query expired.  The query is stopped
+	 * on another thread, see MonetConnection.stopRunningQueryLater().
+	 */
+	private void queryTimeoutExpired() {
+		if (!executing)
+			return;
+		timedOut = true;
+		connection.stopRunningQueryLater(this);
 	}
 
 	/**
@@ -456,17 +486,64 @@ public class MonetStatement
 
 		// create a container for the result
 		lastResponseList = connection.new ResponseList(
-			fetchSize,
+			fetchSizeSet ? fetchSize : 0,
 			maxRows,
 			resultSetType,
 			resultSetConcurrency
 		);
 		// fill the header list by processing the query
-		lastResponseList.processQuery(sql);
+		executeMonitored(() -> lastResponseList.processQuery(sql));
 
 		return getMoreResults();
 	}
 
+	/** Something which executes on the server, see executeMonitored() */
+	interface Execution {
+		void run() throws SQLException;
+	}
+
+	/**
+	 * Runs the given execution on the server such that it can be
+	 * cancelled with cancel() and is stopped when the query timeout
+	 * expires.
+	 *
+	 * @param execution the execution to run
+	 * @throws SQLException if the execution fails, is cancelled or times out
+	 */
+	private void executeMonitored(final Execution execution) throws SQLException {
+		// enforce the query timeout on the client side as well
+		final ScheduledFuture<?> deadline = (queryTimeout > 0)
+			? MonetConnection.scheduleDeadline(this::queryTimeoutExpired, queryTimeout * 1000L)
+			: null;
+		cancelled = false;
+		timedOut = false;
+		executing = true;
+		try {
+			connection.runExecution(this, execution);
+		} catch (SQLException e) {
+			if (timedOut || cancelled)
+				throw stopped(e);
+			throw e;
+		} finally {
+			executing = false;
+			if (deadline != null)
+				deadline.cancel(false);
+		}
+	}
+
+	/**
+	 * Returns the exception to throw for an execution which was stopped
+	 * because its query timeout expired or it was cancelled.
+	 *
+	 * @param cause the failure of the execution
+	 * @return an SQLTimeoutException or an SQLException with SQLState HY008
+	 */
+	private SQLException stopped(final SQLException cause) {
+		if (timedOut)
+			return new SQLTimeoutException("Query timeout of " + queryTimeout + " seconds expired", "HYT00", cause);
+		return new SQLException("Statement was cancelled", "HY008", cause);
+	}
+
 	/**
 	 * Executes the given SQL query, which returns a single ResultSet object.
 	 *
@@ -970,6 +1047,7 @@ public class MonetStatement
 	public void setFetchSize(final int rows) throws SQLException {
 		if (rows >= 0 && !(maxRows != 0 && rows > getMaxRows())) {
 			fetchSize = rows;
+			fetchSizeSet = rows > 0;
 		} else {
 			throw new SQLException("Illegal fetch size value: " + rows, "M1M05");
 		}
@@ -1216,6 +1294,12 @@ public class MonetStatement
 	 * afterwards execution.  Failing queries result in SQLExceptions
 	 * too and may cause subparts of the batch to fail as well.
 	 *
+	 * When the batch is cancelled or its query timeout expires, the
+	 * commands not sent yet are not executed and get EXECUTE_FAILED.
+	 * An SQLException with SQLState HY008, or an SQLTimeoutException, is
+	 * thrown then, with the BatchUpdateException holding the update
+	 * counts as its cause.
+	 *
 	 * @return an array of update counts containing one element for each
 	 *	command in the batch. The elements of the array are ordered
 	 *	according to the order in which commands were added to the batch.
@@ -1239,52 +1323,71 @@ public class MonetStatement
 		}
 		batchLock.lock();
 		try {
-			final long[] counts = new long[batch.size()];
+			final int size = batch.size();
+			final long[] counts = new long[size];
 			final String sep = connection.queryTempl[2];
 			final int sepLen = sep.length();
-			final BatchUpdateException e = new BatchUpdateException(
-					"Error(s) occurred while executing the batch, " +
-					"see chained SQLExceptions for details", "22000", 22000, counts, null);
-			final StringBuilder tmpBatch = new StringBuilder(MapiSocket.BLOCK);
-			int offset = 0;
-			boolean first = true;
-			boolean error = false;
-
-			for (int i = 0; i < batch.size(); i++) {
-				String tmp = batch.get(i);
-				if (sepLen + tmp.length() > MapiSocket.BLOCK) {
-					// The thing is too big.  Way too big.  Since it won't
-					// be optimal anyway, just add it to whatever we have
-					// and continue.
-					if (!first)
-						tmpBatch.append(sep);
-					tmpBatch.append(tmp);
-					// send and receive
-					error |= internalBatch(tmpBatch, counts, offset, i + 1, e);
-					offset = i;
-					tmpBatch.setLength(0);	// clear the buffer
-					first = true;
-					continue;
+			final SQLException e = new SQLException();
+			final boolean[] error = { false };
+			// the index after the last command of each chunk sent
+			final ArrayList<Integer> chunkEnds = new ArrayList<Integer>();
+
+			// The commands are joined into chunks of about a block.  The
+			// chunks are sent in a pipeline: the next chunks are sent while
+			// the responses to a chunk are read.
+			final Iterator<String> chunks = new Iterator<String>() {
+				private final StringBuilder tmpBatch = new StringBuilder(MapiSocket.BLOCK);
+				private int pos = 0;
+
+				@Override
+				public boolean hasNext() {
+					// do not send the rest after a cancel() or timeout
+					return pos < size && !cancelled && !timedOut;
 				}
-				if (tmpBatch.length() + sepLen + tmp.length() >= MapiSocket.BLOCK) {
-					// send and receive
-					error |= internalBatch(tmpBatch, counts, offset, i + 1, e);
-					offset = i;
-					tmpBatch.setLength(0);	// clear the buffer
-					first = true;
+
+				@Override
+				public String next() {
+					tmpBatch.setLength(0);
+					// a command larger than a block is sent on its own
+					tmpBatch.append(batch.get(pos++));
+					while (pos < size && tmpBatch.length() + sepLen + batch.get(pos).length() < MapiSocket.BLOCK)
+						tmpBatch.append(sep).append(batch.get(pos++));
+					chunkEnds.add(pos);
+					return tmpBatch.toString();
 				}
-				if (first)
-					first = false;
-				else
-					tmpBatch.append(sep);
-				tmpBatch.append(tmp);
+			};
+
+			// close previous query, if not closed already
+			if (lastResponseList != null) {
+				lastResponseList.close();
+				lastResponseList = null;
+			}
+			if (queryTimeout != connection.lastSetQueryTimeout) {
+				// set requested/changed queryTimeout on the server side first
+				connection.setQueryTimeout(queryTimeout);
 			}
-			// send and receive
-			error |= internalBatch(tmpBatch, counts, offset, counts.length, e);
+			executeMonitored(() -> connection.pipeline(chunks, (index, responses, err) -> {
+				final int start = (index == 0) ? 0 : chunkEnds.get(index - 1);
+				error[0] |= batchCounts(responses, err, counts, start, chunkEnds.get(index), e);
+			}));
+
+			// the commands after the last chunk sent are not executed
+			final int sent = chunkEnds.isEmpty() ? 0 : chunkEnds.get(chunkEnds.size() - 1);
+			final boolean stopped = (cancelled || timedOut) && (sent < size || error[0]);
+			for (int i = sent; i < size; i++)
+				counts[i] = EXECUTE_FAILED;
 
 			// throw BatchUpdateException if it contains something
-			if (error)
-				throw e;
+			if (error[0] || stopped) {
+				// the BatchUpdateException keeps a copy of the counts, so create it afterwards
+				final BatchUpdateException bue = new BatchUpdateException(
+					"Error(s) occurred while executing the batch, " +
+					"see chained SQLExceptions for details", "22000", 22000, counts, null);
+				bue.setNextException(e.getNextException());
+				if (stopped)
+					throw stopped(bue);
+				throw bue;
+			}
 
 			// otherwise just return the counts
 			return counts;
@@ -1294,36 +1397,44 @@ public class MonetStatement
 		}
 	}
 
-	private boolean internalBatch(
-			final StringBuilder batch,
+	/**
+	 * Sets the update counts of the commands of a chunk of the batch
+	 * from the responses to the chunk.
+	 *
+	 * @param responses the responses to the chunk
+	 * @param err the error of the chunk, or null if it succeeded
+	 * @param counts the update counts of the batch
+	 * @param offset the index of the first command of the chunk
+	 * @param max the index after the last command of the chunk
+	 * @param e the SQLException to chain failures to
+	 * @return true if the chunk failed
+	 */
+	private static boolean batchCounts(
+			final List<MonetConnection.Response> responses,
+			final SQLException err,
 			final long[] counts,
 			int offset,
 			final int max,
-			final BatchUpdateException e)
-		throws BatchUpdateException
+			final SQLException e)
 	{
-		if (batch.length() == 0)
-			return false;
 		try {
-			long count = -1;
-			boolean hasResultSet = internalExecute(batch.toString());
-
-			if (!hasResultSet)
-				count = getLargeUpdateCount();
-
-			do {
+			if (err != null)
+				throw err;
+			for (MonetConnection.Response res : responses) {
 				if (offset >= max)
 					throw new SQLException("Overflow: don't use multi statements when batching (" + max + ")", "M1M16");
-				if (hasResultSet) {
+				if (res instanceof MonetConnection.ResultSetResponse) {
 					e.setNextException(
 						new SQLException("Batch query produced a ResultSet! " +
 							"Ignoring and setting update count to value " + EXECUTE_FAILED, "M1M17"));
 					counts[offset] = EXECUTE_FAILED;
 				} else {
+					final long count = (res instanceof MonetConnection.UpdateResponse)
+						? ((MonetConnection.UpdateResponse) res).count : -1;
 					counts[offset] = (count >= 0) ? count : SUCCESS_NO_INFO;
 				}
 				offset++;
-			} while ((hasResultSet = getMoreResults()) || (count = getLargeUpdateCount()) != -1);
+			}
 		} catch (SQLException ex) {
 			e.setNextException(ex);
 			for (; offset < max; offset++) {
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * Helper class to read and classify the lines of a query response.
@@ -34,13 +35,34 @@ import java.nio.charset.Charset;
  * is usually done automatically by the accompanying {@link BufferedMCLWriter}
  * whenever a new request is sent to the server.
  *
+ * When constructed from an InputStream, the reader operates in byte mode:
+ * lines are located and classified directly on the raw bytes, without
+ * decoding them into characters first.  The current line is then also
+ * available as a slice of the internal byte buffer, see
+ * {@link #getLineBuffer()}, {@link #getLineOffset()} and
+ * {@link #getLineLength()}.  The String returned by {@link #getLine()} is
+ * only decoded when it is asked for.
+ *
  * @author Fabian Groffen
  * @see org.monetdb.mcl.net.MapiSocket
  * @see org.monetdb.mcl.io.BufferedMCLWriter
  */
 public final class BufferedMCLReader {
 
+	/** initial size of the byte buffer, it grows when a line does not fit */
+	private static final int INITIAL_BUFSIZE = 8192;
+
+	/* character mode: the wrapped Reader, null in byte mode */
 	private final BufferedReader inner;
+	/* byte mode: the wrapped InputStream and the charset of its bytes, null in character mode */
+	private final InputStream bytesIn;
+	private final Charset charset;
+	private byte[] buf;
+	private int bufPos = 0;	// start of the unconsumed bytes in buf
+	private int bufEnd = 0;	// end of the valid bytes in buf
+	private int lineOffset = 0;
+	private int lineLength = -1;	// -1 means there is no current line
+
 	private String current = null;
 	private LineType lineType = LineType.UNKNOWN;
 
@@ -52,17 +74,24 @@ public final class BufferedMCLReader {
 	 */
 	public BufferedMCLReader(final Reader in) {
 		inner = new BufferedReader(in);
+		bytesIn = null;
+		charset = null;
 	}
 
 	/**
-	 * Create a buffering character-input stream that uses a
-	 * default-sized input buffer, from an InputStream.
+	 * Create a buffering byte-input stream that uses a default-sized
+	 * input buffer, from an InputStream.  Lines are split and classified
+	 * on the raw bytes, and only decoded using the given Charset when
+	 * they are requested as String.
 	 *
 	 * @param in An InputStream
 	 * @param cs A Charset
 	 */
 	public BufferedMCLReader(final InputStream in, final Charset cs) {
-		this(new java.io.InputStreamReader(in, cs));
+		inner = null;
+		bytesIn = in;
+		charset = cs;
+		buf = new byte[INITIAL_BUFSIZE];
 	}
 
 	/**
@@ -76,6 +105,11 @@ public final class BufferedMCLReader {
 		if (lineType == LineType.PROMPT)
 			return;
 
+		if (inner == null) {
+			advanceBytes();
+			return;
+		}
+
 		current = inner.readLine();
 		lineType = LineType.classify(current);
 		if (lineType == LineType.ERROR && current != null && !current.matches("^![0-9A-Z]{5}!.+")) {
@@ -83,6 +117,67 @@ public final class BufferedMCLReader {
 		}
 	}
 
+	/**
+	 * Byte mode variant of {@link #advance()}.  Locates the next newline
+	 * in the buffer, reading more bytes from the InputStream as long as
+	 * none is found, and classifies the line on its first bytes.
+	 *
+	 * @throws IOException if exception occurred during reading
+	 */
+	private void advanceBytes() throws IOException {
+		current = null;
+		int scanPos = bufPos;
+		int nl;
+		while (true) {
+			nl = -1;
+			for (int i = scanPos; i < bufEnd; i++) {
+				if (buf[i] == '\n') {
+					nl = i;
+					break;
+				}
+			}
+			if (nl >= 0)
+				break;
+
+			// no complete line in the buffer, make room and read more
+			scanPos = bufEnd - bufPos;
+			if (bufPos > 0) {
+				System.arraycopy(buf, bufPos, buf, 0, scanPos);
+				bufPos = 0;
+				bufEnd = scanPos;
+			}
+			if (bufEnd == buf.length)
+				buf = Arrays.copyOf(buf, buf.length * 2);
+			final int n = bytesIn.read(buf, bufEnd, buf.length - bufEnd);
+			if (n == -1) {
+				if (bufEnd > bufPos) {
+					// last line without a terminating newline
+					nl = bufEnd;
+					break;
+				}
+				lineLength = -1;
+				lineType = LineType.UNKNOWN;
+				return;
+			}
+			bufEnd += n;
+		}
+
+		lineOffset = bufPos;
+		lineLength = nl - bufPos;
+		bufPos = (nl < bufEnd) ? nl + 1 : nl;
+		if (lineLength > 0 && buf[lineOffset + lineLength - 1] == '\r')
+			lineLength--;
+
+		lineType = LineType.classify(buf, lineOffset, lineLength);
+		if (lineType == LineType.ERROR) {
+			// errors are rare, decode them right away
+			current = new String(buf, lineOffset, lineLength, charset);
+			if (!current.matches("^![0-9A-Z]{5}!.+")) {
+				current = "!22000!" + current.substring(1);
+			}
+		}
+	}
+
 	/**
 	 * Reset the linetype to UNKNOWN.
 	 */
@@ -95,9 +190,55 @@ public final class BufferedMCLReader {
 	 * @return the current line or null
 	 */
 	public String getLine() {
+		if (current == null && inner == null && lineLength >= 0)
+			current = new String(buf, lineOffset, lineLength, charset);
 		return current;
 	}
 
+	/**
+	 * Returns whether there is a current line, without decoding it.
+	 *
+	 * @return false if we're at the end or before the beginning
+	 */
+	private boolean hasLine() {
+		return (inner == null) ? lineLength >= 0 : current != null;
+	}
+
+	/**
+	 * Return the buffer holding the raw bytes of the current line in
+	 * byte mode, or null in character mode.  The current line starts at
+	 * {@link #getLineOffset()} and spans {@link #getLineLength()} bytes,
+	 * without the terminating newline.
+	 *
+	 * The returned array and the slice within it are only valid until
+	 * the next call to {@link #advance()}.
+	 *
+	 * @return the internal byte buffer or null
+	 */
+	public byte[] getLineBuffer() {
+		return buf;
+	}
+
+	/**
+	 * Return the offset of the current line in {@link #getLineBuffer()}.
+	 *
+	 * @return the offset of the current line
+	 */
+	public int getLineOffset() {
+		return lineOffset;
+	}
+
+	/**
+	 * Return the length in bytes of the current line in
+	 * {@link #getLineBuffer()}, or -1 if there is no current line or
+	 * this reader is not in byte mode.
+	 *
+	 * @return the length of the current line or -1
+	 */
+	public int getLineLength() {
+		return inner == null ? lineLength : -1;
+	}
+
 	/**
 	 * Return a substring of the current line, or null if we're at the end or before the beginning.
 	 *
@@ -163,7 +304,7 @@ public final class BufferedMCLReader {
 	final synchronized String discard(StringBuilder errmsgs) throws IOException {
 		while (lineType != LineType.PROMPT) {
 			advance();
-			if (getLine() == null)
+			if (!hasLine())
 				throw new IOException("Connection to server lost!");
 			if (getLineType() == LineType.ERROR) {
 				if (errmsgs == null)
@@ -181,10 +322,13 @@ public final class BufferedMCLReader {
 	}
 
 	/**
-	 * Close the wrapped Reader.
+	 * Close the wrapped Reader or InputStream.
 	 * @throws IOException if an IO exception occurs while talking to the server
 	 */
 	public void close() throws IOException {
-		inner.close();
+		if (inner != null)
+			inner.close();
+		else
+			bytesIn.close();
 	}
 }
@@ -16,7 +16,13 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Write text to a character-output stream, buffering characters so as
@@ -41,6 +47,15 @@ import java.nio.charset.Charset;
  */
 public final class BufferedMCLWriter extends BufferedWriter {
 	private BufferedMCLReader reader;
+	/** The stream to encode lines to directly, or null if not UTF-8 */
+	private final OutputStream direct;
+	/** Whether characters were written which are not flushed yet */
+	private boolean pending;
+	/** The buffers lines are encoded with by writeLine(String, CharSequence, String) */
+	private char[] chars;
+	private byte[] bytes;
+	private ByteBuffer bb;
+	private CharsetEncoder encoder;
 
 	/**
 	 * Create a buffered character-output stream that uses a
@@ -50,6 +65,7 @@ public final class BufferedMCLWriter extends BufferedWriter {
 	 */
 	public BufferedMCLWriter(final Writer in) {
 		super(in);
+		direct = null;
 	}
 
 	/**
@@ -61,6 +77,31 @@ public final class BufferedMCLWriter extends BufferedWriter {
 	 */
 	public BufferedMCLWriter(final OutputStream in, final Charset cs) {
 		super(new java.io.OutputStreamWriter(in, cs));
+		direct = StandardCharsets.UTF_8.equals(cs) ? in : null;
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		pending = true;
+		super.write(c);
+	}
+
+	@Override
+	public void write(final char[] cbuf, final int off, final int len) throws IOException {
+		pending = true;
+		super.write(cbuf, off, len);
+	}
+
+	@Override
+	public void write(final String s, final int off, final int len) throws IOException {
+		pending = true;
+		super.write(s, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		super.flush();
+		pending = false;
 	}
 
 	/**
@@ -101,4 +142,96 @@ public final class BufferedMCLWriter extends BufferedWriter {
 		if (reader != null)
 			reader.resetLineType();
 	}
+
+	/**
+	 * Write a single line consisting of a prefix, a text and a suffix,
+	 * and flush the stream.  This has the same effect as
+	 * writeLine(prefix + text + suffix), but when this writer encodes
+	 * to an OutputStream in UTF-8, the parts are encoded to the stream
+	 * in small pieces, without creating the concatenated String first
+	 * and without going through the buffers of this writer and its
+	 * OutputStreamWriter.  For a large query text that saves several
+	 * full copies of it.  A null part is skipped.
+	 *
+	 * @param prefix The text to write before the text, e.g. a query template prefix
+	 * @param text The text to write
+	 * @param suffix The text to write after the text, e.g. a query template suffix
+	 * @throws IOException If an I/O error occurs
+	 */
+	public void writeLine(final String prefix, final CharSequence text, final String suffix) throws IOException {
+		if (direct == null || pending) {
+			if (prefix != null)
+				write(prefix);
+			append(text);
+			if (suffix != null)
+				write(suffix);
+			flush();
+		} else {
+			if (bytes == null) {
+				chars = new char[8192];
+				bytes = new byte[8192];
+				bb = ByteBuffer.wrap(bytes);
+				encoder = StandardCharsets.UTF_8.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			}
+			bb.clear();
+			encoder.reset();
+			if (prefix != null)
+				encode(prefix);
+			encode(text);
+			if (suffix != null)
+				encode(suffix);
+			direct.write(bytes, 0, bb.position());
+			direct.flush();
+		}
+
+		// reset reader state, last line isn't valid any more now
+		if (reader != null)
+			reader.resetLineType();
+	}
+
+	/**
+	 * Encodes the given text in UTF-8 into the bytes buffer, which is
+	 * written to the direct stream whenever it is full.  The text is
+	 * taken in pieces of at most the size of the chars buffer.
+	 * Unpaired surrogates are replaced by '?', like the
+	 * OutputStreamWriter does.
+	 */
+	private void encode(final CharSequence text) throws IOException {
+		final char[] cs = chars;
+		final int len = text.length();
+		for (int start = 0; start < len; ) {
+			// a high surrogate at the end of a piece is taken with the next piece
+			int end = Math.min(len, start + cs.length);
+			if (end < len && Character.isHighSurrogate(text.charAt(end - 1)))
+				end--;
+			getChars(text, start, end, cs);
+			final CharBuffer cb = CharBuffer.wrap(cs, 0, end - start);
+			start = end;
+			while (true) {
+				final CoderResult cr = encoder.encode(cb, bb, true);
+				if (cr.isUnderflow())
+					break;
+				if (cr.isOverflow()) {
+					direct.write(bytes, 0, bb.position());
+					bb.clear();
+				} else {
+					cr.throwException();
+				}
+			}
+		}
+	}
+
+	/** Copies the characters start to end of the given text to dst. */
+	private static void getChars(final CharSequence text, final int start, final int end, final char[] dst) {
+		if (text instanceof String) {
+			((String) text).getChars(start, end, dst, 0);
+		} else if (text instanceof StringBuilder) {
+			((StringBuilder) text).getChars(start, end, dst, 0);
+		} else {
+			for (int i = start; i < end; i++)
+				dst[i - start] = text.charAt(i);
+		}
+	}
 }
@@ -80,11 +80,26 @@ public enum LineType {
 	 * @return LineType the type of line
 	 */
 	public static final LineType classify(byte[] line) {
-		if (line != null) {
-			if (line.length > 1) {
-				return classify(line[0], line[1]);
-			} else if (line.length == 1) {
-				return classify(line[0], 0);
+		if (line != null)
+			return classify(line, 0, line.length);
+		return UNKNOWN;
+	}
+
+	/**
+	 * Look at a mapi message stored in a slice of a byte array and
+	 * decide the LineType
+	 *
+	 * @param buf the byte array containing the coded LineType
+	 * @param off the offset of the message in buf
+	 * @param len the length of the message in buf
+	 * @return LineType the type of line
+	 */
+	public static final LineType classify(byte[] buf, int off, int len) {
+		if (buf != null) {
+			if (len > 1) {
+				return classify(buf[off], buf[off + 1]);
+			} else if (len == 1) {
+				return classify(buf[off], 0);
 			}
 		}
 		return UNKNOWN;
@@ -107,6 +107,10 @@ public final class MapiSocket {
 	private Target target;
 	/** The TCP Socket to mserver */
 	private Socket con;
+	/** The Unix domain socket to mserver, used instead of con */
+	private UnixSocket unixCon;
+	/** The non-blocking TCP channel to mserver, used instead of con */
+	private NioSocket nioCon;
 	/** Stream from the Socket for reading */
 	private BlockInputStream fromMonet;
 	/** Stream from the Socket for writing */
@@ -137,6 +141,10 @@ public final class MapiSocket {
 
 	/** A short in two bytes for holding the block size in bytes */
 	private final byte[] blklen = new byte[2];
+	/** The number of reads from the socket, see {@link #getSocketReads()} */
+	private long socketReads = 0;
+	/** The number of blocks read, see {@link #getBlocksRead()} */
+	private long blocksRead = 0;
 
 	/**
 	 * Constructs a new MapiSocket.
@@ -226,6 +234,12 @@ public final class MapiSocket {
 		if (con != null) {
 			con.setSoTimeout(s);
 		}
+		if (unixCon != null) {
+			unixCon.setSoTimeout(s);
+		}
+		if (nioCon != null) {
+			nioCon.setSoTimeout(s);
+		}
 	}
 
 	/**
@@ -318,12 +332,24 @@ public final class MapiSocket {
 			return scanUnixSockets(callback);
 		}
 
+		return connectAttempts(callback, null);
+	}
+
+	/**
+	 * Connects to the target, following redirects as far as allowed.
+	 *
+	 * @param callback the callback for the options of the handshake
+	 * @param unixPath the Unix domain socket to use for the first
+	 *        attempt instead of the one of the target, or null
+	 * @return A List with informational (warning) messages
+	 */
+	private List<String> connectAttempts(OptionsCallback callback, String unixPath) throws MCLException, MCLParseException, IOException {
 		ArrayList<String> warnings = new ArrayList<>();
 		int attempts = 0;
 		do {
 			boolean ok = false;
 			try {
-				boolean done = tryConnect(callback, warnings);
+				boolean done = tryConnect(callback, warnings, attempts == 0 ? unixPath : null);
 				ok = true;
 				if (done) {
 					return warnings;
@@ -337,19 +363,74 @@ public final class MapiSocket {
 	}
 
 	private List<String> scanUnixSockets(OptionsCallback callback) throws MCLException, MCLParseException, IOException {
-		// Because we do not support Unix Domain sockets, we just go back to connect().
-		// target.connectScan() will now return false;
+		// Try the .s.monetdb.PORT sockets in sockdir, the ones owned by
+		// the current user first.  The target is left as it is, so a
+		// later connect with it scans again.
+		if (UnixSocket.isSupported()) {
+			for (String sockPath : findUnixSockets(target.getSockdir())) {
+				try {
+					return connectAttempts(callback, sockPath);
+				} catch (MCLException | IOException e) {
+					// try the next one
+				}
+			}
+		}
+		// finally fall back to TCP on localhost, target.connectScan()
+		// will now return false
 		target.setHost("localhost");
 		return connect(target, callback);
 	}
 
-	private boolean tryConnect(OptionsCallback callback, ArrayList<String> warningBuffer) throws MCLException, IOException {
+	/**
+	 * Lists the MonetDB Unix domain sockets (.s.monetdb.PORT) in the
+	 * given directory, the ones owned by the current user first.
+	 *
+	 * @param sockdir the directory to scan
+	 * @return the paths of the sockets found, possibly empty
+	 */
+	private static List<String> findUnixSockets(final String sockdir) {
+		final ArrayList<String> mine = new ArrayList<>();
+		final ArrayList<String> others = new ArrayList<>();
+		final java.io.File[] files = new java.io.File(sockdir).listFiles();
+		if (files == null)
+			return mine;
+		Arrays.sort(files);
+		final String user = System.getProperty("user.name");
+		for (java.io.File f : files) {
+			final String name = f.getName();
+			if (!name.startsWith(".s.monetdb."))
+				continue;
+			try {
+				Integer.parseInt(name.substring(".s.monetdb.".length()));
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			String owner = null;
+			try {
+				owner = java.nio.file.Files.getOwner(f.toPath()).getName();
+			} catch (IOException | UnsupportedOperationException e) {
+				// unknown owner, try it after the ones we own
+			}
+			if (user != null && user.equals(owner))
+				mine.add(f.getPath());
+			else
+				others.add(f.getPath());
+		}
+		mine.addAll(others);
+		return mine;
+	}
+
+	private boolean tryConnect(OptionsCallback callback, ArrayList<String> warningBuffer, String unixPath) throws MCLException, IOException {
 		try {
 			// We need a valid target
 			Target.Validated validated = target.validate();
 			// con will be non-null if the previous attempt ended in a redirect to mapi:monetdb://proxy
-			if (con == null)
-				connectSocket(validated);
+			if (con == null && unixCon == null && nioCon == null) {
+				if (unixPath != null)
+					connectUnixSocket(validated, unixPath);
+				else
+					connectSocket(validated);
+			}
 			return handshake(validated, callback, warningBuffer);
 		} catch (IOException | MCLException e) {
 			close();
@@ -363,28 +444,34 @@ public final class MapiSocket {
 	private void connectSocket(Target.Validated validated) throws MCLException, IOException {
 		// This method performs steps 2-6 of the procedure outlined in the URL spec
 		String tcpHost = validated.connectTcp();
-		if (tcpHost.isEmpty()) {
-			throw new MCLException("Unix domain sockets are not supported, only TCP");
+		String unixPath = validated.connectUnix();
+		if (!unixPath.isEmpty()) {
+			try {
+				connectUnixSocket(validated, unixPath);
+				return;
+			} catch (MCLException e) {
+				// only fall back to TCP if that is allowed
+				if (tcpHost.isEmpty())
+					throw e;
+			}
 		}
 		int port = validated.connectPort();
+		if (target.isNio() && !validated.getTls()) {
+			connectNioSocket(validated, tcpHost, port);
+			return;
+		}
 		Socket sock = null;
 		try {
-			sock = new Socket(tcpHost, port);
+			sock = new Socket();
+			// the socket timeout bounds the connect as well
+			sock.connect(new InetSocketAddress(tcpHost, port), validated.getSoTimeout());
 			sock.setSoTimeout(validated.getSoTimeout());
 			sock.setTcpNoDelay(true);
 			sock.setKeepAlive(true);
 
 			sock = wrapTLS(sock, validated);
 
-			fromMonet = new BlockInputStream(sock.getInputStream());
-			toMonet = new BlockOutputStream(sock.getOutputStream());
-			reader = new BufferedMCLReader(fromMonet, StandardCharsets.UTF_8);
-			writer = new BufferedMCLWriter(toMonet, StandardCharsets.UTF_8);
-			writer.registerReader(reader);
-			reader.advance();
-			if (reader.getLine() == null) {
-				throw new IOException("server did not send a challenge");
-			}
+			setupStreams(sock.getInputStream(), sock.getOutputStream());
 
 			// Only assign to sock when everything went ok so far
 			con = sock;
@@ -403,6 +490,71 @@ public final class MapiSocket {
 		}
 	}
 
+	private void connectUnixSocket(Target.Validated validated, String path) throws MCLException {
+		UnixSocket sock = null;
+		try {
+			sock = UnixSocket.connect(path, validated.getSoTimeout());
+			// Tell the server we are not going to pass a file descriptor,
+			// this is expected as the first byte on a Unix domain socket.
+			final OutputStream out = sock.getOutputStream();
+			out.write('0');
+			out.flush();
+
+			setupStreams(sock.getInputStream(), out);
+
+			// Only assign to sock when everything went ok so far
+			unixCon = sock;
+			sock = null;
+		} catch (IOException e) {
+			throw new MCLException("Could not connect to " + path + ": " + e.getMessage(), e);
+		} finally {
+			if (sock != null)
+				try {
+					sock.close();
+				} catch (IOException e) {
+					// ignore
+				}
+		}
+	}
+
+	private void connectNioSocket(Target.Validated validated, String tcpHost, int port) throws MCLException {
+		NioSocket sock = null;
+		try {
+			sock = NioSocket.connect(tcpHost, port, validated.getSoTimeout());
+			final OutputStream out = sock.getOutputStream();
+			// see wrapTLS() for why these are sent
+			out.write(NUL_BYTES);
+			out.flush();
+
+			setupStreams(sock.getInputStream(), out);
+
+			// Only assign to sock when everything went ok so far
+			nioCon = sock;
+			sock = null;
+		} catch (IOException e) {
+			throw new MCLException("Could not connect to " + tcpHost + ":" + port + ": " + e.getMessage(), e);
+		} finally {
+			if (sock != null)
+				try {
+					sock.close();
+				} catch (IOException e) {
+					// ignore
+				}
+		}
+	}
+
+	private void setupStreams(InputStream in, OutputStream out) throws IOException {
+		fromMonet = new BlockInputStream(in, Math.max(8, target.getReadBuffer()) * 1024);
+		toMonet = new BlockOutputStream(out, Math.max(8, target.getWriteBuffer()) * 1024);
+		reader = new BufferedMCLReader(fromMonet, StandardCharsets.UTF_8);
+		writer = new BufferedMCLWriter(toMonet, StandardCharsets.UTF_8);
+		writer.registerReader(reader);
+		reader.advance();
+		if (reader.getLine() == null) {
+			throw new IOException("server did not send a challenge");
+		}
+	}
+
 	private Socket wrapTLS(Socket sock, Target.Validated validated) throws IOException {
 		if (validated.getTls())
 			return SecureSocket.wrap(validated, sock);
@@ -689,6 +841,60 @@ public final class MapiSocket {
 		return writer;
 	}
 
+	/**
+	 * Checks whether the server still responds, using a single round
+	 * trip.  The remainder of a previous reply is skipped first, then the
+	 * given command is sent and its reply is read up to the prompt,
+	 * without interpreting it.  The command should be one that produces
+	 * no output, such as a control command.
+	 *
+	 * Unlike the SO_TIMEOUT, which limits each read, the timeout limits
+	 * the whole round trip, including skipping the previous reply.  When
+	 * it expires the reply has not been read completely, so the
+	 * connection can no longer be used.
+	 *
+	 * @param command the command to send, including its prefix
+	 * @param timeout the maximum time in milliseconds for the round trip,
+	 *        0 means no limit
+	 * @return the error line the server replied with, or null
+	 * @throws SocketTimeoutException if no complete reply arrived in time
+	 * @throws IOException if an IO error occurs while talking to the server
+	 */
+	public String ping(final String command, final int timeout) throws IOException {
+		if (timeout < 0)
+			throw new IllegalArgumentException("timeout can't be negative");
+		final int soTimeout = getSoTimeout();
+		final long deadline = System.currentTimeMillis() + timeout;
+		try {
+			if (timeout > 0)
+				setSoTimeout(timeout);
+			reader.discardRemainder();
+			if (timeout > 0 && System.currentTimeMillis() >= deadline)
+				throw new SocketTimeoutException("ping timed out");
+			writer.writeLine(command);
+			String error = null;
+			while (true) {
+				if (timeout > 0) {
+					final long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0)
+						throw new SocketTimeoutException("ping timed out");
+					setSoTimeout((int) remaining);
+				}
+				reader.advance();
+				final LineType type = reader.getLineType();
+				if (type == LineType.PROMPT)
+					return error;
+				if (type == LineType.UNKNOWN && reader.getLine() == null)
+					throw new IOException("Connection to server lost!");
+				if (type == LineType.ERROR && error == null)
+					error = reader.getLine();
+			}
+		} finally {
+			if (timeout > 0)
+				setSoTimeout(soTimeout);
+		}
+	}
+
 	/**
 	 * Returns the mapi protocol version used by this socket.  The
 	 * protocol version depends on the server being used.  Users of the
@@ -782,10 +988,49 @@ public final class MapiSocket {
 		return target.isDebug();
 	}
 
+	/**
+	 * Returns a description of the server end of the connection, for use
+	 * in messages.
+	 *
+	 * @return host:port for TCP connections, the socket path for Unix domain sockets
+	 */
+	private String peerName() {
+		if (unixCon != null)
+			return unixCon.getPath();
+		if (nioCon != null)
+			return nioCon.getPeerName();
+		if (con != null)
+			return con.getInetAddress().getHostName() + ":" + con.getPort();
+		return "<closed>";
+	}
+
 	public boolean canClientInfo() {
 		return supportsClientInfo;
 	}
 
+	/**
+	 * Returns the number of read calls on the socket stream since the
+	 * connection was made.  Together with {@link #getBlocksRead()} this
+	 * shows how well the read-ahead buffer, sized with the read_buffer
+	 * connection parameter, works: ideally many blocks are received per
+	 * socket read.
+	 *
+	 * @return the number of socket reads
+	 */
+	public long getSocketReads() {
+		return socketReads;
+	}
+
+	/**
+	 * Returns the number of blocks received from the server since the
+	 * connection was made.
+	 *
+	 * @return the number of blocks read
+	 */
+	public long getBlocksRead() {
+		return blocksRead;
+	}
+
 
 	/**
 	 * Inner class that is used to write data on a normal stream as a
@@ -799,18 +1044,24 @@ public final class MapiSocket {
 	final class BlockOutputStream extends FilterOutputStream {
 		private int writePos = 0;
 		private int blocksize = 0;
-		private final byte[] block = new byte[BLOCK];
+		// the two byte length header, followed by the block
+		private final byte[] block = new byte[2 + BLOCK];
 
 		/**
 		 * Constructs this BlockOutputStream, backed by the given
 		 * OutputStream.  A BufferedOutputStream is internally used.
 		 * @param out an OutputStream
+		 * @param bufferSize the size of the buffer in which blocks are
+		 *        gathered until the next flush
 		 */
-		public BlockOutputStream(final OutputStream out) {
+		public BlockOutputStream(final OutputStream out, final int bufferSize) {
 			// always use a buffered stream, even though we know how
-			// much bytes to write/read, since this is just faster for
-			// some reason
-			super(new BufferedOutputStream(out));
+			// much bytes to write/read.  Each block is written to it
+			// as one array, header included, and many blocks are
+			// gathered before they are written to the socket, which
+			// only happens when the buffer is full or at the end of
+			// a message, see flush().
+			super(new BufferedOutputStream(out, bufferSize));
 		}
 
 		@Override
@@ -844,20 +1095,19 @@ public final class MapiSocket {
 				blocksize = (short)writePos;
 				// this is the last block, so encode least
 				// significant bit in the first byte (little-endian)
-				blklen[0] = (byte)(blocksize << 1 & 0xFF | 1);
-				blklen[1] = (byte)(blocksize >> 7);
+				block[0] = (byte)(blocksize << 1 & 0xFF | 1);
+				block[1] = (byte)(blocksize >> 7);
 			} else {
 				// always fits, because of BLOCK's size
 				blocksize = (short)BLOCK;
 				// another block will follow, encode least
 				// significant bit in the first byte (little-endian)
-				blklen[0] = (byte)(blocksize << 1 & 0xFF);
-				blklen[1] = (byte)(blocksize >> 7);
+				block[0] = (byte)(blocksize << 1 & 0xFF);
+				block[1] = (byte)(blocksize >> 7);
 			}
 
-			out.write(blklen);
-			// write the actual block
-			out.write(block, 0, writePos);
+			// write the header and the actual block in one go
+			out.write(block, 0, 2 + writePos);
 
 			if (isDebug()) {
 				if (last) {
@@ -865,7 +1115,7 @@ public final class MapiSocket {
 				} else {
 					log("TD ", "write block: " + writePos + " bytes", false);
 				}
-				log("TX ", new String(block, 0, writePos, StandardCharsets.UTF_8), true);
+				log("TX ", new String(block, 2, writePos, StandardCharsets.UTF_8), true);
 			}
 
 			writePos = 0;
@@ -876,7 +1126,7 @@ public final class MapiSocket {
 			if (writePos == BLOCK) {
 				writeBlock(false);
 			}
-			block[writePos++] = (byte)b;
+			block[2 + writePos++] = (byte)b;
 		}
 
 		@Override
@@ -889,13 +1139,13 @@ public final class MapiSocket {
 			while (len > 0) {
 				int t = BLOCK - writePos;
 				if (len > t) {
-					System.arraycopy(b, off, block, writePos, t);
+					System.arraycopy(b, off, block, 2 + writePos, t);
 					off += t;
 					len -= t;
 					writePos += t;
 					writeBlock(false);
 				} else {
-					System.arraycopy(b, off, block, writePos, len);
+					System.arraycopy(b, off, block, 2 + writePos, len);
 					writePos += len;
 					break;
 				}
@@ -911,6 +1161,28 @@ public final class MapiSocket {
 	}
 
 
+	/**
+	 * Inner class that counts the read calls on the socket stream, for
+	 * {@link #getSocketReads()}.
+	 */
+	private final class CountingInputStream extends FilterInputStream {
+		CountingInputStream(final InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			socketReads++;
+			return in.read();
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			socketReads++;
+			return in.read(b, off, len);
+		}
+	}
+
 	/**
 	 * Inner class that is used to make the data on the blocked stream
 	 * available as a normal stream.
@@ -926,12 +1198,14 @@ public final class MapiSocket {
 		 * Constructs this BlockInputStream, backed by the given
 		 * InputStream.  A BufferedInputStream is internally used.
 		 * @param in an InputStream
+		 * @param bufferSize the size of the read-ahead buffer
 		 */
-		public BlockInputStream(final InputStream in) {
+		public BlockInputStream(final InputStream in, final int bufferSize) {
 			// always use a buffered stream, even though we know how
-			// much bytes to write/read, since this is just faster for
-			// some reason
-			super(new BufferedInputStream(in));
+			// much bytes to write/read.  A buffer much larger than a
+			// block lets one socket read receive many blocks, instead
+			// of at least two reads (header and body) per block.
+			super(new BufferedInputStream(new CountingInputStream(in), bufferSize));
 		}
 
 		public boolean setInsertFakePrompts(boolean doFake) {
@@ -988,9 +1262,8 @@ public final class MapiSocket {
 							log("RD ", "the following incomplete block was received:", false);
 							log("RX ", new String(b, 0, off, StandardCharsets.UTF_8), true);
 						}
-						throw new IOException("Read from " +
-								con.getInetAddress().getHostName() + ":" +
-								con.getPort() + ": Incomplete block read from stream");
+						throw new IOException("Read from " + peerName() +
+								": Incomplete block read from stream");
 					}
 					if (isDebug())
 						log("RD ", "server closed the connection (EOF)", true);
@@ -1042,6 +1315,7 @@ public final class MapiSocket {
 			wasEndBlock = (blklen[0] & 0x1) == 1;
 
 			readPos = 0;
+			blocksRead++;
 
 			if (isDebug()) {
 				if (wasEndBlock) {
@@ -1229,6 +1503,18 @@ public final class MapiSocket {
 				con = null;
 			} catch (IOException e) { /* ignore it */ }
 		}
+		if (unixCon != null) {
+			try {
+				unixCon.close();	// close the Unix domain socket
+				unixCon = null;
+			} catch (IOException e) { /* ignore it */ }
+		}
+		if (nioCon != null) {
+			try {
+				nioCon.close();	// close the channel
+				nioCon = null;
+			} catch (IOException e) { /* ignore it */ }
+		}
 		if (isDebug() && log != null && log instanceof FileWriter) {
 			try {
 				log.close();
@@ -1463,10 +1749,11 @@ public final class MapiSocket {
 		public void close() throws IOException {
 			if (closed)
 				return;
-			closed = true;
+			// discard the data which was not read
 			while (!endBlockSeen) {
 				nextBlock();
 			}
+			closed = true;
 			// Send acknowledgement to server
 			out.write('\n');
 			out.flush();
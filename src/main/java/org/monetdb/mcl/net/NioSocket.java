@@ -0,0 +1,523 @@
+/*
+ * SPDX-License-Identifier: MPL-2.0
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0.  If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * Copyright 2024, 2025 MonetDB Foundation;
+ * Copyright August 2008 - 2023 MonetDB B.V.;
+ * Copyright 1997 - July 2008 CWI.
+ */
+
+package org.monetdb.mcl.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A TCP connection on a non-blocking SocketChannel, served by a
+ * selector thread which is shared by all NioSockets of the JVM.
+ *
+ * The selector thread reads the data from the server as soon as it
+ * arrives into pooled direct ByteBuffers, and writes the data queued by
+ * the client when the socket accepts it.  This is an alternative
+ * transport, not an asynchronous API: towards MapiSocket this class
+ * behaves like a blocking Socket.  It offers an InputStream and an
+ * OutputStream and honours the socket timeout, so the block streams and
+ * everything above them work unchanged, and a thread reading a reply
+ * still waits until the selector thread has received the data.  What
+ * it changes is that the reading ahead and the writing of large
+ * messages happen on the selector thread, with bounded queues in
+ * between.
+ */
+final class NioSocket {
+	/** The size of the pooled buffers */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** The maximum number of buffers kept in the pool */
+	private static final int POOL_MAX = 256;
+	/** The maximum number of received bytes queued before reading pauses */
+	private static final int INBOUND_MAX = 4 * 1024 * 1024;
+	/** The maximum number of bytes queued for writing before writers wait */
+	private static final int OUTBOUND_MAX = 4 * 1024 * 1024;
+
+	/** The pool of direct buffers, shared by all NioSockets */
+	private static final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+
+	private final String host;
+	private final int port;
+	private final SocketChannel channel;
+	private final Engine engine;
+	private SelectionKey key;
+	private volatile int soTimeout;
+
+	// the fields below are guarded by the monitor of this NioSocket
+
+	/** The buffers received, ready to be read */
+	private final ArrayDeque<ByteBuffer> inbound = new ArrayDeque<>();
+	private int inboundBytes;
+	private boolean readPaused;
+	private boolean eof;
+	/** The buffers to be written, the first one possibly partially written */
+	private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+	private int outboundBytes;
+	/** The buffer being filled by the OutputStream, not yet queued */
+	private ByteBuffer current;
+	/** The failure of the selector thread on this socket, if any */
+	private IOException failure;
+	private boolean closed;
+
+	private NioSocket(final String host, final int port, final SocketChannel channel, final int soTimeout) {
+		this.host = host;
+		this.port = port;
+		this.channel = channel;
+		this.soTimeout = soTimeout;
+		this.engine = Engine.get();
+	}
+
+	/**
+	 * Connects to the given host and port and registers the channel
+	 * with the shared selector thread.
+	 *
+	 * @param host the host name
+	 * @param port the port number
+	 * @param soTimeout the connect and read timeout in milliseconds, 0 means infinite
+	 * @return the connected NioSocket
+	 * @throws IOException if connecting fails
+	 */
+	static NioSocket connect(final String host, final int port, final int soTimeout) throws IOException {
+		final SocketChannel ch = SocketChannel.open();
+		try {
+			ch.socket().setTcpNoDelay(true);
+			ch.socket().setKeepAlive(true);
+			// the socket timeout bounds the connect as well
+			ch.socket().connect(new InetSocketAddress(host, port), soTimeout);
+			ch.configureBlocking(false);
+			final NioSocket sock = new NioSocket(host, port, ch, soTimeout);
+			sock.engine.register(sock);
+			return sock;
+		} catch (IOException | RuntimeException e) {
+			try {
+				ch.close();
+			} catch (IOException e2) { /* ignore it */ }
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the host and port this NioSocket is connected to.
+	 *
+	 * @return host:port
+	 */
+	String getPeerName() {
+		return host + ":" + port;
+	}
+
+	/**
+	 * Sets the read timeout, like Socket.setSoTimeout().
+	 *
+	 * @param timeout the timeout in milliseconds, 0 means infinite
+	 */
+	void setSoTimeout(final int timeout) {
+		soTimeout = timeout;
+	}
+
+	InputStream getInputStream() {
+		return new InputStream() {
+			private final byte[] one = new byte[1];
+
+			@Override
+			public int read() throws IOException {
+				final int n = read(one, 0, 1);
+				return n <= 0 ? -1 : one[0] & 0xFF;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException {
+				if (len == 0)
+					return 0;
+				return NioSocket.this.read(b, off, len);
+			}
+
+			@Override
+			public int available() {
+				synchronized (NioSocket.this) {
+					return inboundBytes;
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				NioSocket.this.close();
+			}
+		};
+	}
+
+	OutputStream getOutputStream() {
+		return new OutputStream() {
+			@Override
+			public void write(final int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException {
+				NioSocket.this.write(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				NioSocket.this.flush();
+			}
+
+			@Override
+			public void close() throws IOException {
+				NioSocket.this.close();
+			}
+		};
+	}
+
+	/**
+	 * Closes the channel and returns the buffers to the pool.
+	 *
+	 * @throws IOException if closing the channel fails
+	 */
+	void close() throws IOException {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+			for (ByteBuffer buf : inbound)
+				release(buf);
+			inbound.clear();
+			inboundBytes = 0;
+			for (ByteBuffer buf : outbound)
+				release(buf);
+			outbound.clear();
+			outboundBytes = 0;
+			if (current != null) {
+				release(current);
+				current = null;
+			}
+			notifyAll();
+		}
+		try {
+			channel.close();
+		} finally {
+			engine.wakeup();
+		}
+	}
+
+
+	//== the client side, called by the threads using the streams
+
+	private synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+		long deadline = 0;
+		while (inbound.isEmpty()) {
+			if (closed)
+				throw new IOException("Socket closed");
+			if (failure != null)
+				throw failure;
+			if (eof)
+				return -1;
+			final int timeout = soTimeout;
+			try {
+				if (timeout > 0) {
+					final long now = System.currentTimeMillis();
+					if (deadline == 0)
+						deadline = now + timeout;
+					else if (now >= deadline)
+						throw new SocketTimeoutException("Read timed out");
+					wait(Math.max(1, deadline - now));
+				} else {
+					wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while reading");
+			}
+		}
+		int n = 0;
+		while (n < len && !inbound.isEmpty()) {
+			final ByteBuffer buf = inbound.peekFirst();
+			final int k = Math.min(len - n, buf.remaining());
+			buf.get(b, off + n, k);
+			n += k;
+			if (!buf.hasRemaining())
+				release(inbound.pollFirst());
+		}
+		inboundBytes -= n;
+		if (readPaused && inboundBytes <= INBOUND_MAX / 2) {
+			readPaused = false;
+			engine.execute(this::resumeReading);
+		}
+		return n;
+	}
+
+	private synchronized void write(final byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			checkWritable();
+			if (current == null)
+				current = acquire();
+			final int k = Math.min(len, current.remaining());
+			current.put(b, off, k);
+			off += k;
+			len -= k;
+			if (!current.hasRemaining())
+				queueCurrent();
+		}
+	}
+
+	private synchronized void flush() throws IOException {
+		checkWritable();
+		if (current != null && current.position() > 0)
+			queueCurrent();
+	}
+
+	private void checkWritable() throws IOException {
+		if (closed)
+			throw new IOException("Socket closed");
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Queues the current buffer for writing.  When nothing else is
+	 * queued, it is first written directly, which saves a round trip
+	 * through the selector thread for the common short message.  The
+	 * caller waits while too much is queued.
+	 */
+	private void queueCurrent() throws IOException {
+		final ByteBuffer buf = current;
+		current = null;
+		buf.flip();
+		if (outbound.isEmpty()) {
+			try {
+				channel.write(buf);
+			} catch (IOException e) {
+				release(buf);
+				failure = e;
+				throw e;
+			}
+			if (!buf.hasRemaining()) {
+				release(buf);
+				return;
+			}
+			outbound.add(buf);
+			outboundBytes += buf.remaining();
+			engine.execute(this::resumeWriting);
+		} else {
+			outbound.add(buf);
+			outboundBytes += buf.remaining();
+		}
+		try {
+			while (outboundBytes > OUTBOUND_MAX) {
+				wait();
+				checkWritable();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing");
+		}
+	}
+
+
+	//== the selector side, called on the selector thread
+
+	private void register(final Selector selector) {
+		try {
+			key = channel.register(selector, SelectionKey.OP_READ, this);
+		} catch (ClosedChannelException e) {
+			fail(new IOException("Socket closed"));
+		}
+	}
+
+	private void resumeReading() {
+		if (key != null && key.isValid())
+			key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+	}
+
+	private void resumeWriting() {
+		if (key != null && key.isValid())
+			key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+	}
+
+	/** Reads what the channel has available. */
+	private void readReady() {
+		try {
+			while (true) {
+				final ByteBuffer buf = acquire();
+				final int n;
+				try {
+					n = channel.read(buf);
+				} catch (IOException e) {
+					release(buf);
+					throw e;
+				}
+				if (n <= 0) {
+					release(buf);
+					if (n < 0) {
+						key.cancel();
+						synchronized (this) {
+							eof = true;
+							notifyAll();
+						}
+					}
+					break;
+				}
+				buf.flip();
+				synchronized (this) {
+					if (closed) {
+						release(buf);
+						return;
+					}
+					inbound.add(buf);
+					inboundBytes += n;
+					notifyAll();
+					if (inboundBytes > INBOUND_MAX) {
+						readPaused = true;
+						key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+						break;
+					}
+				}
+				if (n < buf.capacity())
+					break;
+			}
+		} catch (IOException | CancelledKeyException e) {
+			fail(e instanceof IOException ? (IOException) e : new IOException("Socket closed"));
+		}
+	}
+
+	/** Writes the queued buffers as far as the channel accepts them. */
+	private void writeReady() {
+		try {
+			synchronized (this) {
+				while (!outbound.isEmpty()) {
+					final ByteBuffer buf = outbound.peekFirst();
+					final int n = channel.write(buf);
+					outboundBytes -= n;
+					if (buf.hasRemaining())
+						break;
+					release(outbound.pollFirst());
+				}
+				if (outbound.isEmpty())
+					key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+				notifyAll();
+			}
+		} catch (IOException | CancelledKeyException e) {
+			fail(e instanceof IOException ? (IOException) e : new IOException("Socket closed"));
+		}
+	}
+
+	private void fail(final IOException e) {
+		synchronized (this) {
+			if (failure == null)
+				failure = e;
+			notifyAll();
+		}
+		if (key != null)
+			key.cancel();
+	}
+
+	private static ByteBuffer acquire() {
+		final ByteBuffer buf = pool.poll();
+		return buf != null ? buf : ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	private static void release(final ByteBuffer buf) {
+		buf.clear();
+		// the size of the pool is checked loosely, which is good enough
+		if (pool.size() < POOL_MAX)
+			pool.add(buf);
+	}
+
+	/**
+	 * The selector thread, shared by all NioSockets.  Changes to the
+	 * registrations are handed to it as tasks, because they would block
+	 * while the thread waits in select().
+	 */
+	private static final class Engine implements Runnable {
+		private static Engine instance;
+
+		private final Selector selector;
+		private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private Engine() throws IOException {
+			selector = Selector.open();
+			final Thread t = new Thread(this, "MonetDB NIO selector");
+			t.setDaemon(true);
+			t.start();
+		}
+
+		static synchronized Engine get() {
+			if (instance == null) {
+				try {
+					instance = new Engine();
+				} catch (IOException e) {
+					throw new IllegalStateException("Could not open a selector: " + e.getMessage(), e);
+				}
+			}
+			return instance;
+		}
+
+		void register(final NioSocket sock) {
+			execute(() -> sock.register(selector));
+		}
+
+		void execute(final Runnable task) {
+			tasks.add(task);
+			selector.wakeup();
+		}
+
+		void wakeup() {
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				Runnable task;
+				while ((task = tasks.poll()) != null) {
+					try {
+						task.run();
+					} catch (RuntimeException e) {
+						// a task on a socket closed meanwhile, ignore it
+					}
+				}
+				try {
+					selector.select();
+				} catch (IOException e) {
+					// should not happen, try again
+					continue;
+				}
+				final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					final SelectionKey k = it.next();
+					it.remove();
+					final NioSocket sock = (NioSocket) k.attachment();
+					try {
+						if (k.isValid() && k.isWritable())
+							sock.writeReady();
+						if (k.isValid() && k.isReadable())
+							sock.readReady();
+					} catch (CancelledKeyException e) {
+						// closed meanwhile
+					}
+				}
+			}
+		}
+	}
+}
@@ -40,7 +40,7 @@ public enum Parameter {
 	AUTOCOMMIT("autocommit", ParameterType.Bool, true, "initial value of autocommit", false),
 	SCHEMA("schema", ParameterType.Str, "", "initial schema", false),
 	TIMEZONE("timezone", ParameterType.Int, null, "client time zone as minutes east of UTC", false),
-	BINARY("binary", ParameterType.Str, "on", "whether to use binary result set format (number or bool)", false),
+	BINARY("binary", ParameterType.Str, "on", "whether to use binary result set format (number or bool), not used yet: this driver always receives result sets as text", false),
 	REPLYSIZE("replysize", ParameterType.Int, 250, "rows beyond this limit are retrieved on demand, <1 means unlimited", false),
 	FETCHSIZE("fetchsize", ParameterType.Int, null, "alias for replysize, specific to jdbc", false),
 	HASH("hash", ParameterType.Str, "", "specific to jdbc", false),
@@ -53,6 +53,18 @@ public enum Parameter {
 	CLIENT_INFO("client_info", ParameterType.Bool, true, "whether to send ClientInfo when connecting", false),
 	CLIENT_APPLICATION("client_application", ParameterType.Str, "", "application name to send in ClientInfo", false),
 	CLIENT_REMARK("client_remark", ParameterType.Str, "", "any client remark to send in ClientInfo", false),
+	PREFETCH("prefetch", ParameterType.Int, 0, "number of result blocks to fetch ahead in the background for forward only result sets, 0 means no prefetching", false),
+	PREFETCH_MEMORY("prefetch_memory", ParameterType.Int, 16, "maximum number of MiB of result data to fetch ahead when prefetch is enabled", false),
+	BLOCK_CACHE("block_cache", ParameterType.Int, 0, "maximum number of MiB of result blocks to keep in memory for scrollable result sets, 0 means no limit", false),
+	FETCH_MEMORY("fetch_memory", ParameterType.Int, 16, "maximum number of MiB of result data to fetch per block when the fetch size adapts to the result", false),
+	VALID_WINDOW("valid_window", ParameterType.Int, 0, "number of milliseconds after a successful server reply during which isValid() does not contact the server", false),
+	STATEMENT_CACHE("statement_cache", ParameterType.Int, 0, "maximum number of closed prepared statements to keep prepared on the server for reuse, 0 disables the cache", false),
+	BATCH_INSERT_ROWS("batch_insert_rows", ParameterType.Int, 0, "maximum number of batched rows of a simple INSERT statement to send as one multi-row INSERT, 0 disables this rewriting", false),
+	BATCH_COPY_ROWS("batch_copy_rows", ParameterType.Int, 0, "minimum number of batched rows of a simple INSERT statement to load with COPY INTO ON CLIENT, 0 disables this", false),
+	READ_BUFFER("read_buffer", ParameterType.Int, 256, "size in KiB of the buffer in which data from the server is read ahead, so that many blocks are received per socket read", false),
+	WRITE_BUFFER("write_buffer", ParameterType.Int, 256, "size in KiB of the buffer in which blocks to the server are gathered, so that many blocks are sent per socket write", false),
+	NIO("nio", ParameterType.Bool, false, "use a non-blocking socket channel served by a shared selector thread for TCP connections without TLS", false),
+	ASYNC_QUEUE("async_queue", ParameterType.Int, 256, "maximum number of asynchronous queries waiting for their turn on a connection, more are rejected", false),
 	;
 
 	public final String name;
@@ -137,6 +149,30 @@ public enum Parameter {
 				return CLIENT_APPLICATION;
 			case "client_remark":
 				return CLIENT_REMARK;
+			case "prefetch":
+				return PREFETCH;
+			case "prefetch_memory":
+				return PREFETCH_MEMORY;
+			case "block_cache":
+				return BLOCK_CACHE;
+			case "fetch_memory":
+				return FETCH_MEMORY;
+			case "valid_window":
+				return VALID_WINDOW;
+			case "statement_cache":
+				return STATEMENT_CACHE;
+			case "batch_insert_rows":
+				return BATCH_INSERT_ROWS;
+			case "batch_copy_rows":
+				return BATCH_COPY_ROWS;
+			case "read_buffer":
+				return READ_BUFFER;
+			case "write_buffer":
+				return WRITE_BUFFER;
+			case "nio":
+				return NIO;
+			case "async_queue":
+				return ASYNC_QUEUE;
 			default:
 				return null;
 		}
@@ -225,8 +261,6 @@ public enum Parameter {
 			switch (parm) {
 				case TABLESCHEMA:
 				case TABLE:
-				case SOCK:
-				case SOCKDIR:
 				case BINARY:
 				case CLIENTKEY:
 				case CLIENTCERT:
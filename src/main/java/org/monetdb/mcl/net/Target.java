@@ -49,6 +49,18 @@ public final class Target {
 	private boolean clientInfo = true;
 	private String clientApplication = "";
 	private String clientRemark = "";
+	private int prefetch = 0;
+	private int prefetchMemory = 16;
+	private int blockCache = 0;
+	private int fetchMemory = 16;
+	private int validWindow = 0;
+	private int statementCache = 0;
+	private int batchInsertRows = 0;
+	private int batchCopyRows = 0;
+	private int readBuffer = 256;
+	private int writeBuffer = 256;
+	private boolean nio = false;
+	private int asyncQueue = 256;
 	private boolean userWasSet = false;
 	private boolean passwordWasSet = false;
 	private Validated validated = null;
@@ -214,12 +226,55 @@ public final class Target {
 			case CLIENT_REMARK:
 				setClientRemark((String) value);
 				break;
+			case PREFETCH:
+				setPrefetch((int) value);
+				break;
+			case PREFETCH_MEMORY:
+				setPrefetchMemory((int) value);
+				break;
+			case BLOCK_CACHE:
+				setBlockCache((int) value);
+				break;
+			case FETCH_MEMORY:
+				setFetchMemory((int) value);
+				break;
+			case VALID_WINDOW:
+				setValidWindow((int) value);
+				break;
+			case STATEMENT_CACHE:
+				setStatementCache((int) value);
+				break;
+			case BATCH_INSERT_ROWS:
+				setBatchInsertRows((int) value);
+				break;
+			case BATCH_COPY_ROWS:
+				setBatchCopyRows((int) value);
+				break;
+			case READ_BUFFER:
+				setReadBuffer((int) value);
+				break;
+			case WRITE_BUFFER:
+				setWriteBuffer((int) value);
+				break;
+			case NIO:
+				setNio((boolean) value);
+				break;
+			case ASYNC_QUEUE:
+				setAsyncQueue((int) value);
+				break;
 
 			default:
 				throw new IllegalStateException("unreachable -- missing case: " + parm.name);
 		}
 	}
 
+	public Target copy() {
+		Target copy = new Target();
+		for (Parameter parm : Parameter.values())
+			copy.assign(parm, getObject(parm));
+		return copy;
+	}
+
 	public String getString(Parameter parm) {
 		Object value = getObject(parm);
 		return parm.type.format(value);
@@ -287,6 +342,30 @@ public final class Target {
 				return clientApplication;
 			case CLIENT_REMARK:
 				return clientRemark;
+			case PREFETCH:
+				return prefetch;
+			case PREFETCH_MEMORY:
+				return prefetchMemory;
+			case BLOCK_CACHE:
+				return blockCache;
+			case FETCH_MEMORY:
+				return fetchMemory;
+			case VALID_WINDOW:
+				return validWindow;
+			case STATEMENT_CACHE:
+				return statementCache;
+			case BATCH_INSERT_ROWS:
+				return batchInsertRows;
+			case BATCH_COPY_ROWS:
+				return batchCopyRows;
+			case READ_BUFFER:
+				return readBuffer;
+			case WRITE_BUFFER:
+				return writeBuffer;
+			case NIO:
+				return nio;
+			case ASYNC_QUEUE:
+				return asyncQueue;
 			default:
 				throw new IllegalStateException("unreachable -- missing case");
 		}
@@ -552,6 +631,102 @@ public final class Target {
 		this.clientRemark = clientRemark;
 	}
 
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	public void setPrefetch(int prefetch) {
+		this.prefetch = prefetch;
+	}
+
+	public int getPrefetchMemory() {
+		return prefetchMemory;
+	}
+
+	public void setPrefetchMemory(int prefetchMemory) {
+		this.prefetchMemory = prefetchMemory;
+	}
+
+	public int getBlockCache() {
+		return blockCache;
+	}
+
+	public void setBlockCache(int blockCache) {
+		this.blockCache = blockCache;
+	}
+
+	public int getFetchMemory() {
+		return fetchMemory;
+	}
+
+	public void setFetchMemory(int fetchMemory) {
+		this.fetchMemory = fetchMemory;
+	}
+
+	public int getValidWindow() {
+		return validWindow;
+	}
+
+	public void setValidWindow(int validWindow) {
+		this.validWindow = validWindow;
+	}
+
+	public int getStatementCache() {
+		return statementCache;
+	}
+
+	public void setStatementCache(int statementCache) {
+		this.statementCache = statementCache;
+	}
+
+	public int getBatchInsertRows() {
+		return batchInsertRows;
+	}
+
+	public void setBatchInsertRows(int batchInsertRows) {
+		this.batchInsertRows = batchInsertRows;
+	}
+
+	public int getBatchCopyRows() {
+		return batchCopyRows;
+	}
+
+	public void setBatchCopyRows(int batchCopyRows) {
+		this.batchCopyRows = batchCopyRows;
+	}
+
+	public int getReadBuffer() {
+		return readBuffer;
+	}
+
+	public void setReadBuffer(int readBuffer) {
+		this.readBuffer = readBuffer;
+	}
+
+	public int getWriteBuffer() {
+		return writeBuffer;
+	}
+
+	public void setWriteBuffer(int writeBuffer) {
+		this.writeBuffer = writeBuffer;
+	}
+
+	public boolean isNio() {
+		return nio;
+	}
+
+	public void setNio(boolean nio) {
+		this.nio = nio;
+	}
+
+	public int getAsyncQueue() {
+		return asyncQueue;
+	}
+
+	public void setAsyncQueue(int asyncQueue) {
+		this.asyncQueue = asyncQueue;
+	}
+
 	public Validated validate() throws ValidationError {
 		if (validated == null)
 			validated = new Validated();
@@ -0,0 +1,249 @@
+/*
+ * SPDX-License-Identifier: MPL-2.0
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0.  If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * Copyright 2024, 2025 MonetDB Foundation;
+ * Copyright August 2008 - 2023 MonetDB B.V.;
+ * Copyright 1997 - July 2008 CWI.
+ */
+
+package org.monetdb.mcl.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A connection to a Unix domain socket, as used by mserver5 and
+ * monetdbd for local connections (/tmp/.s.monetdb.PORT).
+ *
+ * Unix domain socket channels are available as of Java 16.  As this
+ * driver is compiled for Java 8, the required classes and methods are
+ * looked up by reflection.  Use {@link #isSupported()} to find out
+ * whether the running JVM provides them.
+ *
+ * The channel is used in non-blocking mode, so that the socket timeout
+ * can be honoured in the same way as SO_TIMEOUT on a TCP Socket: a read
+ * which does not get any data within the timeout throws a
+ * SocketTimeoutException.
+ */
+final class UnixSocket {
+	/** SocketChannel.open(ProtocolFamily), null if not available */
+	private static final Method openMethod;
+	/** UnixDomainSocketAddress.of(String), null if not available */
+	private static final Method addressMethod;
+	/** StandardProtocolFamily.UNIX, null if not available */
+	private static final ProtocolFamily unixFamily;
+
+	static {
+		Method open = null;
+		Method address = null;
+		ProtocolFamily family = null;
+		try {
+			family = StandardProtocolFamily.valueOf("UNIX");
+			open = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+			address = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+		} catch (IllegalArgumentException | ReflectiveOperationException e) {
+			// this JVM has no support for Unix domain socket channels
+			open = null;
+			address = null;
+			family = null;
+		}
+		openMethod = open;
+		addressMethod = address;
+		unixFamily = family;
+	}
+
+	private final String path;
+	private final SocketChannel channel;
+	private final Selector readSelector;
+	private final Selector writeSelector;
+	private volatile int soTimeout;
+
+	private UnixSocket(final String path, final SocketChannel channel, final int soTimeout) throws IOException {
+		this.path = path;
+		this.channel = channel;
+		this.soTimeout = soTimeout;
+		channel.configureBlocking(false);
+		readSelector = Selector.open();
+		writeSelector = Selector.open();
+		channel.register(readSelector, SelectionKey.OP_READ);
+		channel.register(writeSelector, SelectionKey.OP_WRITE);
+	}
+
+	/**
+	 * Returns whether the running JVM supports Unix domain sockets.
+	 *
+	 * @return true if Unix domain socket channels are available
+	 */
+	static boolean isSupported() {
+		return openMethod != null;
+	}
+
+	/**
+	 * Connects to the Unix domain socket at the given path.
+	 *
+	 * @param path the file system path of the socket
+	 * @param soTimeout the read timeout in milliseconds, 0 means infinite
+	 * @return the connected UnixSocket
+	 * @throws IOException if the JVM has no Unix domain socket support or
+	 *         connecting fails
+	 */
+	static UnixSocket connect(final String path, final int soTimeout) throws IOException {
+		if (!isSupported())
+			throw new IOException("Unix domain sockets require Java 16 or newer");
+
+		final SocketChannel ch;
+		final SocketAddress addr;
+		try {
+			ch = (SocketChannel) openMethod.invoke(null, unixFamily);
+			addr = (SocketAddress) addressMethod.invoke(null, path);
+		} catch (InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			throw new IOException(cause.getMessage(), cause);
+		} catch (IllegalAccessException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		try {
+			ch.connect(addr);
+			return new UnixSocket(path, ch, soTimeout);
+		} catch (IOException | RuntimeException e) {
+			try {
+				ch.close();
+			} catch (IOException e2) { /* ignore it */ }
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the path of the socket this UnixSocket is connected to.
+	 *
+	 * @return the socket path
+	 */
+	String getPath() {
+		return path;
+	}
+
+	/**
+	 * Sets the read timeout, like Socket.setSoTimeout().
+	 *
+	 * @param timeout the timeout in milliseconds, 0 means infinite
+	 */
+	void setSoTimeout(final int timeout) {
+		soTimeout = timeout;
+	}
+
+	InputStream getInputStream() {
+		return new InputStream() {
+			private final byte[] one = new byte[1];
+
+			@Override
+			public int read() throws IOException {
+				final int n = read(one, 0, 1);
+				return n <= 0 ? -1 : one[0] & 0xFF;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException {
+				if (len == 0)
+					return 0;
+				final ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+				long deadline = 0;
+				synchronized (readSelector) {
+					try {
+						while (true) {
+							final int n = channel.read(buf);
+							if (n != 0)
+								return n;
+							final int timeout = soTimeout;
+							if (timeout > 0) {
+								final long now = System.currentTimeMillis();
+								if (deadline == 0)
+									deadline = now + timeout;
+								else if (now >= deadline)
+									throw new SocketTimeoutException("Read timed out");
+								readSelector.select(Math.max(1, deadline - now));
+							} else {
+								readSelector.select();
+							}
+							readSelector.selectedKeys().clear();
+						}
+					} catch (ClosedSelectorException e) {
+						throw new IOException("Socket closed");
+					}
+				}
+			}
+
+			@Override
+			public int available() throws IOException {
+				return 0;
+			}
+
+			@Override
+			public void close() throws IOException {
+				UnixSocket.this.close();
+			}
+		};
+	}
+
+	OutputStream getOutputStream() {
+		return new OutputStream() {
+			@Override
+			public void write(final int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException {
+				final ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+				synchronized (writeSelector) {
+					try {
+						while (buf.hasRemaining()) {
+							if (channel.write(buf) == 0) {
+								writeSelector.select();
+								writeSelector.selectedKeys().clear();
+							}
+						}
+					} catch (ClosedSelectorException e) {
+						throw new IOException("Socket closed");
+					}
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				UnixSocket.this.close();
+			}
+		};
+	}
+
+	/**
+	 * Closes the channel and the selectors used for waiting on it.
+	 *
+	 * @throws IOException if closing the channel fails
+	 */
+	void close() throws IOException {
+		try {
+			readSelector.close();
+			writeSelector.close();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -12,6 +12,7 @@
 
 package org.monetdb.mcl.parser;
 
+import java.nio.charset.StandardCharsets;
 
 /**
  * The HeaderLineParser is a generic MCLParser that extracts values from
@@ -31,6 +32,8 @@ public final class HeaderLineParser extends MCLParser {
 	public final int intValues[];
 
 	private final QuotedStringParser qsparser = new QuotedStringParser();
+	/** reused buffer for the characters of header lines given as bytes */
+	private char[] chars = new char[256];
 
 	/**
 	 * Constructs a HeaderLineParser which expects columncount columns.
@@ -54,7 +57,44 @@ public final class HeaderLineParser extends MCLParser {
 	@Override
 	public int parse(final String source) throws MCLParseException {
 		final char[] chrLine = source.toCharArray();
-		int len = chrLine.length;
+		return parse(chrLine, chrLine.length);
+	}
+
+	/**
+	 * Parses the UTF-8 bytes line[offset..offset+length) as header line.
+	 * Header lines are nearly always plain ASCII, those bytes are copied
+	 * into a reused character buffer without decoding them.  If the line
+	 * cannot be parsed, an MCLParseException is thrown.
+	 *
+	 * @param line the buffer holding the header line which should be parsed
+	 * @param offset the offset of the header line in the buffer
+	 * @param length the length of the header line in bytes
+	 * @return the type of the parsed header line
+	 * @throws MCLParseException if an error occurs during parsing
+	 */
+	public int parse(final byte[] line, final int offset, final int length) throws MCLParseException {
+		if (chars.length < length)
+			chars = new char[Math.max(length, chars.length * 2)];
+		for (int i = 0; i < length; i++) {
+			final byte b = line[offset + i];
+			if (b < 0) {
+				// a multi-byte character, decode the whole line
+				return parse(new String(line, offset, length, StandardCharsets.UTF_8));
+			}
+			chars[i] = (char) b;
+		}
+		return parse(chars, length);
+	}
+
+	/**
+	 * Parses the characters chrLine[0..len) as header line.
+	 *
+	 * @param chrLine the characters of the header line
+	 * @param len the number of characters of the header line
+	 * @return the type of the parsed header line
+	 * @throws MCLParseException if an error occurs during parsing
+	 */
+	private int parse(final char[] chrLine, int len) throws MCLParseException {
 		int pos = 0;
 		boolean foundChar = false;
 		boolean nameFound = false;
@@ -218,7 +258,7 @@ public final class HeaderLineParser extends MCLParser {
 					tmp *= 10;
 					tmp += (int)chrLine[i] - (int)'0';
 				} else {
-					throw new MCLParseException("expected a digit in " + new String(chrLine) + " at " + i);
+					throw new MCLParseException("expected a digit in " + new String(chrLine, 0, stop) + " at " + i);
 				}
 			}
 		}
@@ -12,6 +12,9 @@
 
 package org.monetdb.mcl.parser;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
 /**
  * The TupleLineParser extracts the values from a given tuple.
  * The number of values that are expected are known upfront to speed up
@@ -21,7 +24,28 @@ package org.monetdb.mcl.parser;
  * @author Martin van Dinther
  */
 public final class TupleLineParser extends MCLParser {
+	/* kinds of field values, as recorded by parseLazily() */
+	private static final byte LOADED = 0;	// values[] holds the (possibly null) value
+	private static final byte PLAIN = 1;	// value is row[fieldStart..fieldEnd) as is
+	private static final byte ESCAPED = 2;	// value is row[fieldStart..fieldEnd) with escape codes
+	private static final byte LONG = 3;	// value is longValues[], set by setLong()
+	private static final byte DECIMAL = 4;	// value is longValues[] unscaled with scales[], set by setDecimal()
+	private static final byte OID = 5;	// value is longValues[] with an @0 suffix, set by setOid()
+
+	/* the powers of ten which are exact as double */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
 	private StringBuilder uesc = null;	// used for building field string value when an escape is present in the field value
+	private byte[] row;	// the buffer holding the UTF-8 bytes of the last parsed line
+	private final int[] fieldStart;
+	private final int[] fieldEnd;
+	private final byte[] fieldKind;
+	private long[] longValues;
+	private int[] scales;
+	private long decoded;	// the result of the last successful decodeLong()
 
 	/**
 	 * Constructs a TupleLineParser which expects columncount columns.
@@ -33,11 +57,19 @@ public final class TupleLineParser extends MCLParser {
 	 */
 	public TupleLineParser(final int columncount) {
 		super(columncount);
+		fieldStart = new int[columncount];
+		fieldEnd = new int[columncount];
+		fieldKind = new byte[columncount];
 	}
 
 	/**
 	 * Parses the given String source as tuple line.
 	 * If source cannot be parsed, a MCLParseException is thrown.
+	 * All field values are extracted into the public values array.
+	 *
+	 * The fields are found like parseLazily() does, but on the chars of
+	 * the String, so the line is not encoded to bytes to be decoded again
+	 * field by field.
 	 *
 	 * @param source a String representing a tuple line which should be parsed
 	 * @return 0, as there is no 'type' of TupleLine
@@ -48,9 +80,10 @@ public final class TupleLineParser extends MCLParser {
 		final int len = source.length();
 		if (len <= 0)
 			throw new MCLParseException("Missing tuple data");
+		row = null;
 
 		// first detect whether this is a single value line (=) or a real tuple ([)
-		char chr = source.charAt(0);
+		final char chr = source.charAt(0);
 		if (chr == '=') {
 			if (values.length != 1)
 				throw new MCLParseException(values.length +
@@ -58,6 +91,7 @@ public final class TupleLineParser extends MCLParser {
 
 			// return the whole string but without the leading =
 			values[0] = source.substring(1);
+			fieldKind[0] = LOADED;
 
 			// reset colnr
 			colnr = 0;
@@ -67,13 +101,122 @@ public final class TupleLineParser extends MCLParser {
 		if (chr != '[')
 			throw new MCLParseException("Expected a data row starting with [");
 
-		// It is a tuple. Extract separate fields by examining the string data char for char
-		// For parsing it is faster to use an char[] to avoid overhead of source.charAt(i) method calls
-		final char[] chrLine = source.toCharArray();
+		// It is a tuple. Extract the separate fields by examining the string char for char,
+		// see parseLazily() for how the quotes and escapes are tracked
 		boolean inString = false, escaped = false, fieldHasEscape = false;
 		int column = 0, cursor = 2;
-		// scan the characters, when a field separator is found extract the field value as String dealing with possible escape characters
 		for (int i = 2; i < len; i++) {
+			switch(source.charAt(i)) {
+				case '\\':
+					escaped = !escaped;
+					fieldHasEscape = true;
+					break;
+				case '"':
+					if (!inString) {
+						inString = true;
+					} else if (!escaped) {
+						inString = false;
+					}
+					// reset escaped flag
+					escaped = false;
+					break;
+				case '\t':		// potential field separator found
+					if (!inString &&
+						((source.charAt(i - 1) == ',') ||		// found field separator: ,\t
+						 ((i + 1 == len - 1) && source.charAt(++i) == ']'))) // found last field: \t]
+					{
+						if (column >= values.length)
+							throw new MCLParseException("illegal result length: more than " + values.length + " values found");
+
+						final int endpos = i - 2;	// minus the tab and the comma or ]
+						if (source.charAt(cursor) == '"' &&
+						    source.charAt(endpos) == '"')	// field is surrounded by double quotes, so a string with possible escape codes
+						{
+							values[column] = fieldHasEscape
+								? unescape(source, cursor + 1, endpos)
+								: source.substring(cursor + 1, endpos);
+						} else if (i - 1 - cursor == 4 && source.startsWith("NULL", cursor)) {
+							// the field contains NULL, so no value
+							values[column] = null;
+						} else {
+							// the field is a string NOT surrounded by double quotes and thus without escape chars
+							values[column] = source.substring(cursor, i - 1);
+						}
+						fieldKind[column] = LOADED;
+						cursor = i + 1;
+						fieldHasEscape = false;		// reset for next field scan
+						column++;
+					}
+					// reset escaped flag
+					escaped = false;
+					break;
+				default:
+					escaped = false;
+					break;
+			} // end of switch()
+		} // end of for()
+
+		// check if this result is of the size we expected it to be
+		if (column != values.length)
+			throw new MCLParseException("illegal result length: " + column + "\nlast read: " + (column > 0 ? values[column - 1] : "<none>"));
+
+		// reset colnr
+		colnr = 0;
+		return 0;
+	}
+
+	/**
+	 * Parses the UTF-8 bytes line[offset..offset+length) as tuple line,
+	 * but only records where each field value starts and ends instead of
+	 * extracting them.  The line is not copied.  The values are
+	 * materialized on demand by {@link #getValue(int)}, numeric values
+	 * can be decoded without creating a String using {@link #getInt(int)}
+	 * and {@link #getLong(int)}.
+	 * If the line cannot be parsed, a MCLParseException is thrown.
+	 *
+	 * The public values array is not filled by this method, only by
+	 * getValue().  The recorded offsets are valid until the next call to
+	 * parse() or parseLazily(), and as long as the given bytes are not
+	 * modified.
+	 *
+	 * @param line the buffer holding the tuple line which should be parsed
+	 * @param offset the offset of the tuple line in the buffer
+	 * @param length the length of the tuple line in bytes
+	 * @return 0, as there is no 'type' of TupleLine
+	 * @throws MCLParseException if the line is not compliant to expected tuple/single value format
+	 */
+	public int parseLazily(final byte[] line, final int offset, final int length) throws MCLParseException {
+		if (length <= 0)
+			throw new MCLParseException("Missing tuple data");
+
+		row = line;
+		final byte[] chrLine = line;
+		final int len = offset + length;
+
+		// first detect whether this is a single value line (=) or a real tuple ([)
+		final byte chr = chrLine[offset];
+		if (chr == '=') {
+			if (values.length != 1)
+				throw new MCLParseException(values.length +
+						" columns expected, but only single value found");
+
+			// the whole line but without the leading =
+			setField(0, offset + 1, len, PLAIN);
+
+			// reset colnr
+			colnr = 0;
+			return 0;
+		}
+
+		if (chr != '[')
+			throw new MCLParseException("Expected a data row starting with [");
+
+		// It is a tuple. Find the separate fields by examining the line byte for byte.
+		// The bytes of multi-byte UTF-8 characters never match the ASCII separators.
+		boolean inString = false, escaped = false, fieldHasEscape = false;
+		int column = 0, cursor = offset + 2;
+		// scan the bytes, when a field separator is found record the position of the field value
+		for (int i = offset + 2; i < len; i++) {
 			switch(chrLine[i]) {
 				case '\\':
 					escaped = !escaped;
@@ -106,108 +249,25 @@ public final class TupleLineParser extends MCLParser {
 						((chrLine[i - 1] == ',') ||		// found field separator: ,\t
 						 ((i + 1 == len - 1) && chrLine[++i] == ']'))) // found last field: \t]
 					{
-						// extract the field value as a string, without the potential escape codes
+						if (column >= values.length)
+							throw new MCLParseException("illegal result length: more than " + values.length + " values found");
+
 						final int endpos = i - 2;	// minus the tab and the comma or ]
 						if (chrLine[cursor] == '"' &&
 						    chrLine[endpos] == '"')	// field is surrounded by double quotes, so a string with possible escape codes
 						{
-							cursor++;
-							final int fieldlen = endpos - cursor;
-							if (fieldHasEscape) {
-								if (uesc == null) {
-									// first time use, create it with enough capacity, minimum 1024
-									uesc = new StringBuilder(Math.max(fieldlen, 1024));
-								} else {
-									// reuse the StringBuilder by cleaning it
-									uesc.setLength(0);
-									if (fieldlen > 1024) {
-										// prevent multiple capacity increments during the append()'s in the inner loop
-										uesc.ensureCapacity(fieldlen);
-									}
-								}
-								// parse the field value (excluding the double quotes) and convert it to a string without any escape characters
-								for (int pos = cursor; pos < endpos; pos++) {
-									chr = chrLine[pos];
-									if (chr == '\\' && pos + 1 < endpos) {
-										// we detected an escape
-										// escapedStr and GDKstrFromStr in gdk_atoms.c only
-										// support \\ \f \n \r \t \" and \377
-										pos++;
-										chr = chrLine[pos];
-										switch (chr) {
-											case 'f':
-												uesc.append('\f');
-												break;
-											case 'n':
-												uesc.append('\n');
-												break;
-											case 'r':
-												uesc.append('\r');
-												break;
-											case 't':
-												uesc.append('\t');
-												break;
-											case '0': case '1': case '2': case '3':
-												// this could be an octal number, let's check it out
-												if (pos + 2 < endpos) {
-													char chr2 = chrLine[pos + 1];
-													char chr3 = chrLine[pos + 2];
-													if (chr2 >= '0' && chr2 <= '7' && chr3 >= '0' && chr3 <= '7') {
-														// we got an octal number between \000 and \377
-														try {
-															uesc.append((char)(Integer.parseInt(new String(chrLine, pos, 3), 8)));
-															pos += 2;
-														} catch (NumberFormatException e) {
-															// hmmm, this point should never be reached actually...
-															throw new AssertionError("Flow error, should never try to parse non-number");
-														}
-													} else {
-														// do default action if number seems not to be an octal number
-														uesc.append(chr);
-													}
-												} else {
-													// do default action if number seems not to be an octal number
-													uesc.append(chr);
-												}
-												break;
-											/* case '\\':	optimisation: this code does the same as the default case, so not needed
-												uesc.append('\\');
-												break;
-											*/
-											/* case '"':	optimisation: this code does the same as the default case, so not needed
-												uesc.append('"');
-												break;
-											*/
-											default:
-												// this is wrong usage of escape (except for '\\' and '"'), just ignore the \-escape and print the char
-												uesc.append(chr);
-												break;
-										}
-									} else {
-										uesc.append(chr);
-									}
-								}
-								// put the unescaped string in the right place
-								values[column] = uesc.toString();
-							} else {
-								// the field is a string surrounded by double quotes and without escape chars
-								values[column] = new String(chrLine, cursor, fieldlen);
-								// if (values[column].contains("\\")) {
-								//	throw new MCLParseException("Invalid parsing: detected a \\ in double quoted string: " + fieldVal);
-								// }
-							}
+							// record the field value without the double quotes
+							setField(column, cursor + 1, endpos, fieldHasEscape ? ESCAPED : PLAIN);
 						} else {
 							final int vlen = i - 1 - cursor;
 							if (vlen == 4 &&
 							    chrLine[cursor] == 'N' && chrLine[cursor+1] == 'U' && chrLine[cursor+2] == 'L' && chrLine[cursor+3] == 'L') {
 								// the field contains NULL, so no value
 								values[column] = null;
+								fieldKind[column] = LOADED;
 							} else {
 								// the field is a string NOT surrounded by double quotes and thus without escape chars
-								values[column] = new String(chrLine, cursor, vlen);
-								// if (values[column].contains("\\")) {
-								//	throw new MCLParseException("Invalid parsing: detected a \\ in unquoted string: " + fieldVal);
-								// }
+								setField(column, cursor, cursor + vlen, PLAIN);
 							}
 						}
 						cursor = i + 1;
@@ -225,10 +285,601 @@ public final class TupleLineParser extends MCLParser {
 
 		// check if this result is of the size we expected it to be
 		if (column != values.length)
-			throw new MCLParseException("illegal result length: " + column + "\nlast read: " + (column > 0 ? values[column - 1] : "<none>"));
+			throw new MCLParseException("illegal result length: " + column + "\nlast read: " + (column > 0 ? getValue(column - 1) : "<none>"));
 
 		// reset colnr
 		colnr = 0;
 		return 0;
 	}
+
+	private void setField(final int column, final int start, final int end, final byte kind) {
+		fieldStart[column] = start;
+		fieldEnd[column] = end;
+		fieldKind[column] = kind;
+		values[column] = null;
+	}
+
+	/**
+	 * Returns whether the given field of the last parsed line is NULL,
+	 * without materializing its value.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return true if the field value is NULL
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public boolean isNull(final int column) {
+		return fieldKind[column] == LOADED && values[column] == null;
+	}
+
+	/**
+	 * Returns the String value of the given field of the last parsed
+	 * line, or null if the field value is NULL.  The String is created
+	 * on first request and stored in the public values array.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return the field value or null
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public String getValue(final int column) {
+		switch (fieldKind[column]) {
+			case PLAIN:
+				values[column] = new String(row, fieldStart[column], fieldEnd[column] - fieldStart[column], StandardCharsets.UTF_8);
+				fieldKind[column] = LOADED;
+				break;
+			case ESCAPED: {
+				// the escape codes apply to the characters, so decode them first
+				final String field = new String(row, fieldStart[column], fieldEnd[column] - fieldStart[column], StandardCharsets.UTF_8);
+				values[column] = unescape(field, 0, field.length());
+				fieldKind[column] = LOADED;
+				break;
+			}
+			case LONG:
+				if (values[column] == null)
+					values[column] = Long.toString(longValues[column]);
+				break;
+			case DECIMAL:
+				if (values[column] == null)
+					values[column] = BigDecimal.valueOf(longValues[column], scales[column]).toPlainString();
+				break;
+			case OID:
+				if (values[column] == null)
+					values[column] = longValues[column] + "@0";
+				break;
+			default:
+				break;
+		}
+		return values[column];
+	}
+
+	/**
+	 * Returns the value of the given field of the last parsed line as
+	 * long.  Plain decimal digits are decoded straight from the line
+	 * buffer, anything else is left to Long.parseLong().  The caller
+	 * should check {@link #isNull(int)} first.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return the field value as long
+	 * @throws NumberFormatException if the value is not a valid long
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public long getLong(final int column) throws NumberFormatException {
+		if (fieldKind[column] == LONG || (fieldKind[column] == DECIMAL && scales[column] == 0))
+			return longValues[column];
+		if (fieldKind[column] == PLAIN && decodeLong(fieldStart[column], fieldEnd[column]))
+			return decoded;
+		return Long.parseLong(getValue(column));
+	}
+
+	/**
+	 * Returns the value of the given oid field of the last parsed line
+	 * as long.  The text of oid values has a @0 suffix, which is skipped
+	 * without creating a substring.  The caller should check
+	 * {@link #isNull(int)} first.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return the field value as long
+	 * @throws NumberFormatException if the value is not a valid oid
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public long getOid(final int column) throws NumberFormatException {
+		if (fieldKind[column] == OID)
+			return longValues[column];
+		if (fieldKind[column] == PLAIN) {
+			final int end = fieldEnd[column];
+			if (end - fieldStart[column] > 2 && row[end - 2] == '@' && row[end - 1] == '0' &&
+			    decodeLong(fieldStart[column], end - 2))
+				return decoded;
+		}
+		final String val = getValue(column);
+		if (val.endsWith("@0"))
+			return Long.parseLong(val.substring(0, val.length() - 2));
+		return Long.parseLong(val);
+	}
+
+	/**
+	 * Returns the value of the given field of the last parsed line as
+	 * BigDecimal.  Values set by {@link #setDecimal(int, long, int)} and
+	 * decimal numbers of at most 18 digits are turned into a BigDecimal
+	 * straight from their unscaled long, anything else is left to the
+	 * BigDecimal(String) constructor.  The result is the
+	 * same in both cases, including its scale.  The caller should check
+	 * {@link #isNull(int)} first.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param scale the number of digits after the decimal point the
+	 *        value is expected to have, as given by the column type, or
+	 *        -1 if not known
+	 * @return the field value as BigDecimal
+	 * @throws NumberFormatException if the value is not a valid number
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public BigDecimal getBigDecimal(final int column, final int scale) throws NumberFormatException {
+		switch (fieldKind[column]) {
+			case LONG:
+				return BigDecimal.valueOf(longValues[column]);
+			case DECIMAL:
+				return BigDecimal.valueOf(longValues[column], scales[column]);
+			case PLAIN: {
+				int pos = fieldStart[column];
+				final int end = fieldEnd[column];
+				final boolean negative = pos < end && row[pos] == '-';
+				if (negative || (pos < end && row[pos] == '+'))
+					pos++;
+				long val = 0;
+				int digits = 0;
+				int fraction = -1;
+				for (; pos < end; pos++) {
+					final byte chr = row[pos];
+					if (chr == '.' && fraction < 0) {
+						fraction = 0;
+						continue;
+					}
+					final int digit = chr - '0';
+					// at most 18 digits always fit in a long
+					if (digit < 0 || digit > 9 || ++digits > 18)
+						break;
+					val = val * 10 + digit;
+					if (fraction >= 0)
+						fraction++;
+				}
+				if (fraction < 0)
+					fraction = 0;
+				if (pos == end && digits > 0 && (scale < 0 || scale == fraction))
+					return BigDecimal.valueOf(negative ? -val : val, fraction);
+				break;
+			}
+			default:
+				break;
+		}
+		return new BigDecimal(getValue(column));
+	}
+
+	/**
+	 * Returns the value of the given field of the last parsed line as
+	 * int.  Plain decimal digits are decoded straight from the line
+	 * buffer, anything else is left to Integer.parseInt().  The caller
+	 * should check {@link #isNull(int)} first.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return the field value as int
+	 * @throws NumberFormatException if the value is not a valid int
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public int getInt(final int column) throws NumberFormatException {
+		if (fieldKind[column] == LONG ||
+		    (fieldKind[column] == DECIMAL && scales[column] == 0) ||
+		    (fieldKind[column] == PLAIN && fieldEnd[column] - fieldStart[column] <= 11)) {
+			final long val = getLong(column);
+			if (val >= Integer.MIN_VALUE && val <= Integer.MAX_VALUE)
+				return (int) val;
+		}
+		return Integer.parseInt(getValue(column));
+	}
+
+	/**
+	 * Returns the value of the given field of the last parsed line as
+	 * double.  Values set by {@link #setLong(int, long)} are returned
+	 * without conversion.  Decimal numbers of at most 15 digits, without
+	 * exponent, are computed as their digits divided by a power of ten.
+	 * Both numbers are exact as double, so the division gives the same
+	 * correctly rounded result as Double.parseDouble(), which is used
+	 * for anything else.  The caller should check {@link #isNull(int)}
+	 * first.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return the field value as double
+	 * @throws NumberFormatException if the value is not a valid double
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public double getDouble(final int column) throws NumberFormatException {
+		switch (fieldKind[column]) {
+			case LONG:
+				return longValues[column];
+			case DECIMAL: {
+				final long val = longValues[column];
+				if (val > -(1L << 53) && val < (1L << 53) && scales[column] < POWERS_OF_TEN.length)
+					return val / POWERS_OF_TEN[scales[column]];
+				break;
+			}
+			case PLAIN: {
+				int pos = fieldStart[column];
+				final int end = fieldEnd[column];
+				final boolean negative = pos < end && row[pos] == '-';
+				if (negative)
+					pos++;
+				long val = 0;
+				int digits = 0;
+				int fraction = -1;
+				for (; pos < end; pos++) {
+					final byte chr = row[pos];
+					if (chr == '.' && fraction < 0) {
+						fraction = 0;
+						continue;
+					}
+					final int digit = chr - '0';
+					// at most 15 digits are always exact as double
+					if (digit < 0 || digit > 9 || ++digits > 15)
+						break;
+					val = val * 10 + digit;
+					if (fraction >= 0)
+						fraction++;
+				}
+				if (pos == end && digits > 0) {
+					// apply the sign last, to get -0.0 for a negative zero
+					final double d = fraction > 0 ? val / POWERS_OF_TEN[fraction] : val;
+					return negative ? -d : d;
+				}
+				break;
+			}
+			default:
+				break;
+		}
+		return Double.parseDouble(getValue(column));
+	}
+
+	/**
+	 * Returns whether the given field of the last parsed line is an
+	 * integer number in canonical notation: an optional minus sign
+	 * followed by at most 18 digits without leading zeros.  Such a
+	 * value converts to a long and back to the same text.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return true if the field value is a canonical integer
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public boolean isCanonicalInteger(final int column) {
+		if (fieldKind[column] == LONG)
+			return true;
+		if (fieldKind[column] != PLAIN)
+			return false;
+		int pos = fieldStart[column];
+		final int end = fieldEnd[column];
+		if (pos < end && row[pos] == '-')
+			pos++;
+		if (pos < end && row[pos] == '0' && pos > fieldStart[column])
+			return false;	// -0
+		return isDigits(pos, end);
+	}
+
+	/**
+	 * Returns whether the given field of the last parsed line is a
+	 * decimal number in the notation the server uses for a column of the
+	 * given scale: an optional minus sign, an integer part without
+	 * leading zeros and exactly scale digits after the decimal point,
+	 * at most 18 digits in total and no negative zero.  Such a value is
+	 * given by its unscaled long, see {@link #getUnscaledDecimal(int)}.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param scale the number of digits after the decimal point
+	 * @return true if the field value is a canonical decimal
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public boolean isCanonicalDecimal(final int column, final int scale) {
+		if (fieldKind[column] != PLAIN || scale < 0 || scale > 18)
+			return false;
+		int pos = fieldStart[column];
+		final int end = fieldEnd[column];
+		final boolean negative = pos < end && row[pos] == '-';
+		if (negative)
+			pos++;
+		if (scale == 0)
+			return (!negative || pos >= end || row[pos] != '0') && isDigits(pos, end);
+		final int point = end - scale - 1;
+		if (point <= pos || end - pos - 1 > 18 || row[point] != '.' ||
+		    !isDigits(pos, point))
+			return false;
+		boolean zero = point - pos == 1 && row[pos] == '0';
+		for (int i = point + 1; i < end; i++) {
+			if (row[i] < '0' || row[i] > '9')
+				return false;
+			if (row[i] != '0')
+				zero = false;
+		}
+		return !(negative && zero);
+	}
+
+	/**
+	 * Returns the value of the given field of the last parsed line as
+	 * unscaled long, which is the number without its decimal point.
+	 * The caller should check {@link #isCanonicalDecimal(int, int)}
+	 * first.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return the unscaled value of the field
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public long getUnscaledDecimal(final int column) {
+		int pos = fieldStart[column];
+		final int end = fieldEnd[column];
+		final boolean negative = row[pos] == '-';
+		if (negative)
+			pos++;
+		long val = 0;
+		for (; pos < end; pos++) {
+			if (row[pos] != '.')
+				val = val * 10 + (row[pos] - '0');
+		}
+		return negative ? -val : val;
+	}
+
+	/**
+	 * Returns whether the given field of the last parsed line is an oid
+	 * in canonical notation: at most 18 digits without leading zeros,
+	 * followed by @0.  Its value is given by {@link #getOid(int)}.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return true if the field value is a canonical oid
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public boolean isCanonicalOid(final int column) {
+		if (fieldKind[column] != PLAIN)
+			return false;
+		final int end = fieldEnd[column] - 2;
+		return end > fieldStart[column] && row[end] == '@' && row[end + 1] == '0' &&
+			isDigits(fieldStart[column], end);
+	}
+
+	/**
+	 * Returns whether the bytes row[start..end) are at most 18 digits
+	 * without leading zeros, or a single zero.
+	 */
+	private boolean isDigits(final int start, final int end) {
+		if (start >= end || end - start > 18 || (row[start] == '0' && end - start > 1))
+			return false;
+		for (int pos = start; pos < end; pos++) {
+			if (row[pos] < '0' || row[pos] > '9')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the value of the given field, as if it was parsed from a
+	 * line.  This allows reusing the getters of this parser for values
+	 * which were stored elsewhere after parsing.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param value the field value, null for NULL
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public void setValue(final int column, final String value) {
+		values[column] = value;
+		fieldKind[column] = LOADED;
+	}
+
+	/**
+	 * Sets the value of the given field to a long number.  Its String
+	 * value is only created when requested by {@link #getValue(int)}.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param value the field value
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public void setLong(final int column, final long value) {
+		if (longValues == null)
+			longValues = new long[values.length];
+		longValues[column] = value;
+		values[column] = null;
+		fieldKind[column] = LONG;
+	}
+
+	/**
+	 * Sets the value of the given field to a decimal number, given by
+	 * its unscaled value and scale.  Its String value is only created
+	 * when requested by {@link #getValue(int)}.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param unscaled the field value without its decimal point
+	 * @param scale the number of digits after the decimal point
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public void setDecimal(final int column, final long unscaled, final int scale) {
+		if (longValues == null)
+			longValues = new long[values.length];
+		if (scales == null)
+			scales = new int[values.length];
+		longValues[column] = unscaled;
+		scales[column] = scale;
+		values[column] = null;
+		fieldKind[column] = DECIMAL;
+	}
+
+	/**
+	 * Sets the value of the given field to an oid.  Its String value,
+	 * with the @0 suffix, is only created when requested by
+	 * {@link #getValue(int)}.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param value the field value
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public void setOid(final int column, final long value) {
+		if (longValues == null)
+			longValues = new long[values.length];
+		longValues[column] = value;
+		values[column] = null;
+		fieldKind[column] = OID;
+	}
+
+	/**
+	 * Sets the value of the given field to the UTF-8 bytes
+	 * buf[start..end), as if it was parsed from a line.  Its String value
+	 * is only created when requested by {@link #getValue(int)}.  The
+	 * buffer replaces the line of the last parse, so all fields of a row
+	 * which are set this way must refer to the same buffer.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param buf the buffer holding the text of the field value
+	 * @param start the offset of the text in the buffer
+	 * @param end the offset of the end of the text in the buffer
+	 * @param escaped whether the text contains escape codes
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public void setBytes(final int column, final byte[] buf, final int start, final int end, final boolean escaped) {
+		row = buf;
+		setField(column, start, end, escaped ? ESCAPED : PLAIN);
+	}
+
+	/**
+	 * Returns the length in bytes of the text of the given field of the
+	 * last parsed line, without its quotes, or -1 if the field value is
+	 * NULL or was not parsed from a line.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return the length of the field text in bytes or -1
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public int getFieldLength(final int column) {
+		final byte kind = fieldKind[column];
+		return (kind == PLAIN || kind == ESCAPED) ? fieldEnd[column] - fieldStart[column] : -1;
+	}
+
+	/**
+	 * Copies the text of the given field of the last parsed line, as
+	 * counted by {@link #getFieldLength(int)}, into the given buffer.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @param dst the buffer to copy the text to
+	 * @param pos the offset in dst to copy the text to
+	 * @throws IndexOutOfBoundsException if column is not a valid field
+	 *         index or the text does not fit
+	 */
+	public void copyField(final int column, final byte[] dst, final int pos) {
+		System.arraycopy(row, fieldStart[column], dst, pos, fieldEnd[column] - fieldStart[column]);
+	}
+
+	/**
+	 * Returns whether the text of the given field of the last parsed
+	 * line contains escape codes, which {@link #getValue(int)} replaces.
+	 *
+	 * @param column the field index, the first field is 0
+	 * @return true if the field text has escape codes
+	 * @throws IndexOutOfBoundsException if column is not a valid field index
+	 */
+	public boolean isEscaped(final int column) {
+		return fieldKind[column] == ESCAPED;
+	}
+
+	/**
+	 * Decodes the bytes row[start..end) as an optionally signed
+	 * integer of at most 18 digits, which always fits in a long.
+	 *
+	 * @return true if the bytes form such an integer, which is
+	 *         then stored in decoded, false otherwise
+	 */
+	private boolean decodeLong(final int start, final int end) {
+		int pos = start;
+		final boolean negative = pos < end && row[pos] == '-';
+		if (negative || (pos < end && row[pos] == '+'))
+			pos++;
+		if (pos >= end || end - pos > 18)
+			return false;
+		long val = 0;
+		for (; pos < end; pos++) {
+			final int digit = row[pos] - '0';
+			if (digit < 0 || digit > 9)
+				return false;
+			val = val * 10 + digit;
+		}
+		decoded = negative ? -val : val;
+		return true;
+	}
+
+	/**
+	 * Returns the chars field[start..endpos) as String, replacing the
+	 * escape codes by the characters they represent.
+	 */
+	private String unescape(final String field, final int start, final int endpos) {
+		final int fieldlen = endpos - start;
+		char chr;
+		if (uesc == null) {
+			// first time use, create it with enough capacity, minimum 1024
+			uesc = new StringBuilder(Math.max(fieldlen, 1024));
+		} else {
+			// reuse the StringBuilder by cleaning it
+			uesc.setLength(0);
+			if (fieldlen > 1024) {
+				// prevent multiple capacity increments during the append()'s in the inner loop
+				uesc.ensureCapacity(fieldlen);
+			}
+		}
+		// parse the field value (excluding the double quotes) and convert it to a string without any escape characters
+		for (int pos = start; pos < endpos; pos++) {
+			chr = field.charAt(pos);
+			if (chr == '\\' && pos + 1 < endpos) {
+				// we detected an escape
+				// escapedStr and GDKstrFromStr in gdk_atoms.c only
+				// support \\ \f \n \r \t \" and \377
+				pos++;
+				chr = field.charAt(pos);
+				switch (chr) {
+					case 'f':
+						uesc.append('\f');
+						break;
+					case 'n':
+						uesc.append('\n');
+						break;
+					case 'r':
+						uesc.append('\r');
+						break;
+					case 't':
+						uesc.append('\t');
+						break;
+					case '0': case '1': case '2': case '3':
+						// this could be an octal number, let's check it out
+						if (pos + 2 < endpos) {
+							char chr2 = field.charAt(pos + 1);
+							char chr3 = field.charAt(pos + 2);
+							if (chr2 >= '0' && chr2 <= '7' && chr3 >= '0' && chr3 <= '7') {
+								// we got an octal number between \000 and \377
+								uesc.append((char)(((chr - '0') << 6) | ((chr2 - '0') << 3) | (chr3 - '0')));
+								pos += 2;
+							} else {
+								// do default action if number seems not to be an octal number
+								uesc.append(chr);
+							}
+						} else {
+							// do default action if number seems not to be an octal number
+							uesc.append(chr);
+						}
+						break;
+					/* case '\\':	optimisation: this code does the same as the default case, so not needed
+						uesc.append('\\');
+						break;
+					*/
+					/* case '"':	optimisation: this code does the same as the default case, so not needed
+						uesc.append('"');
+						break;
+					*/
+					default:
+						// this is wrong usage of escape (except for '\\' and '"'), just ignore the \-escape and print the char
+						uesc.append(chr);
+						break;
+				}
+			} else {
+				uesc.append(chr);
+			}
+		}
+		return uesc.toString();
+	}
 }
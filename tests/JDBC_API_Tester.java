@@ -17,8 +17,14 @@ import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
+import org.monetdb.jdbc.MonetBulkLoader;
+import org.monetdb.jdbc.MonetBulkReader;
 import org.monetdb.jdbc.MonetConnection;
+import org.monetdb.jdbc.MonetPoolingDataSource;
+import org.monetdb.jdbc.MonetResultSet;
 import org.monetdb.jdbc.types.INET;
 import org.monetdb.jdbc.types.URL;
 
@@ -48,7 +54,7 @@ public final class JDBC_API_Tester {
 	final private boolean isPostDec2025;	// Dec2025-SP1 or later
 	private boolean foundDifferences = false;
 
-	final private static int sbInitLen = 5468; // max needed size of sb
+	final private static int sbInitLen = 6257; // max needed size of sb
 
 	/**
 	 * constructor
@@ -93,10 +99,17 @@ public final class JDBC_API_Tester {
 		JDBC_API_Tester jt = new JDBC_API_Tester(conn);
 
 		// run the tests
+		jt.Test_Casync();
 		jt.Test_Cautocommit(con_URL);
+		jt.Test_Cbulkloader();
+		jt.Test_Cbulkreader();
 		jt.Test_CisValid();
 		jt.Test_Clargequery();
 		jt.Test_Cmanycon(con_URL);
+		jt.Test_Cnio(con_URL);
+		jt.Test_Cpipeline();
+		jt.Test_Cpooling(con_URL);
+		jt.Test_Creadahead();
 		jt.Test_Creplysize();
 		jt.Test_Csavepoints();
 		jt.Test_Ctransaction();
@@ -113,6 +126,9 @@ public final class JDBC_API_Tester {
 		jt.Test_PSlargebatchval();
 		jt.Test_PSlargeresponse(con_URL);
 		jt.Test_PSmanycon(con_URL);
+		jt.Test_PScache(con_URL);
+		jt.Test_PSbatchinsert(con_URL);
+		jt.Test_PSbatchcopy(con_URL);
 		jt.Test_PSmetadata();
 		jt.Test_PSsetBytes();
 		jt.Test_PSsomeamount();
@@ -123,14 +139,21 @@ public final class JDBC_API_Tester {
 		jt.Test_CallableStmt();
 		jt.Test_Rbooleans();
 		jt.Test_Rmetadata();
+		jt.Test_Rnumerics();
 		jt.Test_RfetchManyColumnsInfo();
 		jt.Test_Rpositioning();
+		jt.Test_Rprefetch(con_URL);
 		jt.Test_Rsqldata();
 		jt.Test_Rtimedate();
 		jt.Test_RSgetMetaData();
 		jt.Test_Sbatching();
+		jt.Test_Sbatchcancel();
+		jt.Test_Sbatchchunks();
+		jt.Test_Scancel();
+		jt.Test_ScloseOnCompletion();
 		jt.Test_SgeneratedKeys();
 		jt.Test_Smoreresults();
+		jt.Test_Smultibyte();
 		jt.Test_Wrapper();
 		if (jt.isPostDec2023)
 			jt.Test_ClientInfo(con_URL);
@@ -278,6 +301,142 @@ public final class JDBC_API_Tester {
 				"7. commit...passed :)\n");
 	}
 
+	private void Test_Casync() {
+		sb.setLength(0);	// clear the output log buffer
+
+		final MonetConnection mcon = (MonetConnection) con;
+		try {
+			// queue several queries, then wait for them in order
+			final CompletableFuture<Long> create = mcon.executeUpdateAsync("CREATE TABLE table_Test_Casync (id int)");
+			final CompletableFuture<Long> insert = mcon.executeUpdateAsync("INSERT INTO table_Test_Casync VALUES (1), (2), (3)");
+			final CompletableFuture<MonetResultSet> select = mcon.executeAsync("SELECT SUM(id) FROM table_Test_Casync");
+			final CompletableFuture<MonetResultSet> error = mcon.executeAsync("SELECT * FROM table_Test_Casync_does_not_exist");
+			final CompletableFuture<Long> drop = mcon.executeUpdateAsync("DROP TABLE table_Test_Casync", 10);
+
+			sb.append("1. create: ").append(create.get()).append("\n");
+			sb.append("2. insert: ").append(insert.get()).append("\n");
+			// closing the ResultSet also closes its Statement
+			final MonetResultSet rs = select.get();
+			rs.next();
+			sb.append("3. sum: ").append(rs.getInt(1)).append("\n");
+			rs.close();
+			sb.append("4. statement closed: ").append(rs.getStatement().isClosed()).append("\n");
+			try {
+				error.get();
+			} catch (ExecutionException e) {
+				sb.append("5. error: ").append(((SQLException) e.getCause()).getSQLState()).append("\n");
+			}
+			sb.append("6. drop: ").append(drop.get()).append("\n");
+		} catch (SQLException | InterruptedException | ExecutionException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+
+		compareExpectedOutput("Test_Casync",
+			"1. create: 0\n" +
+			"2. insert: 3\n" +
+			"3. sum: 6\n" +
+			"4. statement closed: true\n" +
+			"5. error: 42S02\n" +
+			"6. drop: 0\n");
+	}
+
+	private void Test_Cbulkloader() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = con.createStatement();
+			stmt.executeUpdate("CREATE TABLE table_Test_Cbulkloader (id bigint, val varchar(20), ts timestamp, d date)");
+			try (MonetBulkLoader loader = ((MonetConnection) con).bulkLoader("table_Test_Cbulkloader", "id", "val", "ts", "d")) {
+				final String[] vals = { "plain", "it's, \"quoted\"", null, "", "back\\slash", "two\nlines" };
+				for (int i = 0; i < vals.length; i++) {
+					loader.writeLong(i + 1);
+					loader.writeString(vals[i]);
+					if (i == 2)
+						loader.writeNull();
+					else
+						loader.writeTimestamp(java.time.LocalDateTime.of(2024, 1, i + 1, 12, 34, 56, i * 1000));
+					loader.writeDate(java.time.LocalDate.of(2024, 2, i + 1));
+					loader.endRow();
+				}
+				loader.writeLong(7);
+				try {
+					loader.endRow();
+					sb.append("1. endRow() should have failed\n");
+				} catch (SQLException e) {
+					sb.append("1. ").append(e.getMessage()).append("\n");
+				}
+				sb.append("2. loaded: ").append(loader.finish()).append(" of ").append(loader.getRowCount()).append("\n");
+			}
+
+			rs = stmt.executeQuery("SELECT id, val, ts, d FROM table_Test_Cbulkloader ORDER BY id");
+			while (rs.next())
+				sb.append(rs.getLong(1)).append(" ").append(rs.getString(2)).append(" ").append(rs.getString(3)).append(" ").append(rs.getString(4)).append("\n");
+			rs.close();
+			stmt.executeUpdate("DROP TABLE table_Test_Cbulkloader");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Cbulkloader",
+			"1. Row has 1 values, expected 4\n" +
+			"2. loaded: 6 of 6\n" +
+			"1 plain 2024-01-01 12:34:56.000000 2024-02-01\n" +
+			"2 it's, \"quoted\" 2024-01-02 12:34:56.000001 2024-02-02\n" +
+			"3 null null 2024-02-03\n" +
+			"4  2024-01-04 12:34:56.000003 2024-02-04\n" +
+			"5 back\\slash 2024-01-05 12:34:56.000004 2024-02-05\n" +
+			"6 two\nlines 2024-01-06 12:34:56.000005 2024-02-06\n");
+	}
+
+	private void Test_Cbulkreader() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		try {
+			stmt = con.createStatement();
+			stmt.executeUpdate("CREATE TABLE table_Test_Cbulkreader (id bigint, val varchar(20), ts timestamp, d date, b boolean)");
+			stmt.executeUpdate("INSERT INTO table_Test_Cbulkreader VALUES " +
+				"(1, 'plain', '2024-01-01 12:34:56', '2024-02-01', true), " +
+				"(2, 'it''s, \"quoted\"', '2024-01-02 12:34:56.000001', NULL, false), " +
+				"(3, NULL, NULL, '2024-02-03', NULL), " +
+				"(4, '', '2024-01-04 00:00:00', '2024-02-04', true), " +
+				"(5, E'back\\\\slash', '2024-01-05 12:34:56', '2024-02-05', false), " +
+				"(6, 'two' || E'\\n' || 'lines', '2024-01-06 12:34:56', '2024-02-06', true)");
+			try (MonetBulkReader reader = ((MonetConnection) con).bulkReader("SELECT id, val, ts, d, b FROM table_Test_Cbulkreader ORDER BY id")) {
+				while (reader.next()) {
+					sb.append(reader.getColumnCount()).append(": ").append(reader.getLong(1))
+						.append(" ").append(reader.getString(2))
+						.append(" ").append(reader.getTimestamp(3))
+						.append(" ").append(reader.getDate(4))
+						.append(" ").append(reader.getBoolean(5)).append(reader.wasNull() ? " (null)" : "").append("\n");
+				}
+				sb.append("rows: ").append(reader.getRowCount()).append("\n");
+			}
+			// stop reading early, the connection must remain usable
+			try (MonetBulkReader reader = ((MonetConnection) con).bulkReader("SELECT id FROM table_Test_Cbulkreader ORDER BY id")) {
+				reader.next();
+				sb.append("first: ").append(reader.getInt(1)).append("\n");
+			}
+			stmt.executeUpdate("DROP TABLE table_Test_Cbulkreader");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, null);
+
+		compareExpectedOutput("Test_Cbulkreader",
+			"5: 1 plain 2024-01-01T12:34:56 2024-02-01 true\n" +
+			"5: 2 it's, \"quoted\" 2024-01-02T12:34:56.000001 null false\n" +
+			"5: 3 null null 2024-02-03 false (null)\n" +
+			"5: 4  2024-01-04T00:00 2024-02-04 true\n" +
+			"5: 5 back\\slash 2024-01-05T12:34:56 2024-02-05 false\n" +
+			"5: 6 two\nlines 2024-01-06T12:34:56 2024-02-06 true\n" +
+			"rows: 6\n" +
+			"first: 1\n");
+	}
+
 	private void Test_CisValid() {
 		sb.setLength(0);	// clear the output log buffer
 
@@ -421,6 +580,202 @@ public final class JDBC_API_Tester {
 			"51, 52, 53, 54, 55, 56, 57, 58, 59, 60, ");
 	}
 
+	private void Test_Cnio(String arg0) {
+		sb.setLength(0);	// clear the output log buffer
+
+		final Properties props = new Properties();
+		props.setProperty("nio", "true");
+		final int maxCons = 10;
+		List<Connection> cons = new ArrayList<Connection>(maxCons);
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			// several connections served by the one selector thread
+			for (int i = 0; i < maxCons; i++)
+				cons.add(DriverManager.getConnection(arg0, props));
+			int sum = 0;
+			for (int i = 0; i < maxCons; i++) {
+				stmt = cons.get(i).createStatement();
+				rs = stmt.executeQuery("SELECT " + i);
+				rs.next();
+				sum += rs.getInt(1);
+				closeStmtResSet(stmt, rs);
+			}
+			sb.append("1. sum: ").append(sum).append("\n");
+
+			// a result spanning many blocks
+			stmt = cons.get(0).createStatement();
+			stmt.setFetchSize(100000);
+			rs = stmt.executeQuery("SELECT value FROM sys.generate_series(0, 100000)");
+			long total = 0;
+			while (rs.next())
+				total += rs.getLong(1);
+			sb.append("2. sum: ").append(total).append("\n");
+			closeStmtResSet(stmt, rs);
+
+			// an error leaves the connection usable
+			stmt = cons.get(0).createStatement();
+			try {
+				stmt.executeQuery("SELECT * FROM table_Test_Cnio_does_not_exist");
+			} catch (SQLException e) {
+				sb.append("3. error: ").append(e.getSQLState()).append("\n");
+			}
+			rs = stmt.executeQuery("SELECT 42");
+			rs.next();
+			sb.append("4. value: ").append(rs.getInt(1)).append("\n");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+		for (Connection conx : cons)
+			closeConx(conx);
+
+		compareExpectedOutput("Test_Cnio",
+			"1. sum: 45\n" +
+			"2. sum: 4999950000\n" +
+			"3. error: 42S02\n" +
+			"4. value: 42\n");
+	}
+
+	private void Test_Cpipeline() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			final MonetConnection mcon = (MonetConnection) con;
+			final List<String> statements = new ArrayList<String>();
+			statements.add("CREATE TABLE table_Test_Cpipeline (id int)");
+			for (int i = 1; i <= 100; i++)
+				statements.add("INSERT INTO table_Test_Cpipeline VALUES (" + i + ")");
+			statements.add("UPDATE table_Test_Cpipeline SET id = -id WHERE id > 90");
+			final long[] counts = mcon.executePipeline(statements);
+			sb.append("1. counts: ").append(counts.length).append(" ").append(counts[0]).append(" ").append(counts[1])
+				.append(" ").append(counts[100]).append(" ").append(counts[101]).append("\n");
+
+			// a failing statement does not stop the ones after it
+			try {
+				mcon.executePipeline(Arrays.asList(
+					"INSERT INTO table_Test_Cpipeline VALUES (101)",
+					"INSERT INTO table_Test_Cpipeline_missing VALUES (1)",
+					"SELECT 1",
+					"DELETE FROM table_Test_Cpipeline WHERE id < 0"));
+				sb.append("2. executePipeline() should have failed\n");
+			} catch (BatchUpdateException e) {
+				sb.append("2. counts: ").append(Arrays.toString(e.getLargeUpdateCounts())).append("\n");
+				for (SQLException ex = e.getNextException(); ex != null; ex = ex.getNextException())
+					sb.append(ex.getSQLState()).append("\n");
+			}
+
+			stmt = con.createStatement();
+			rs = stmt.executeQuery("SELECT COUNT(*), SUM(id) FROM table_Test_Cpipeline");
+			if (rs.next())
+				sb.append("3. rows: ").append(rs.getInt(1)).append(", sum: ").append(rs.getLong(2)).append("\n");
+			rs.close();
+			stmt.executeUpdate("DROP TABLE table_Test_Cpipeline");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Cpipeline",
+			"1. counts: 102 -2 1 1 10\n" +
+			"2. counts: [1, -3, -3, 10]\n" +
+			"42S02\n" +
+			"M1M17\n" +
+			"3. rows: 91, sum: 4196\n");
+	}
+
+	private void Test_Cpooling(String arg0) {
+		sb.setLength(0);	// clear the output log buffer
+
+		final MonetPoolingDataSource ds = new MonetPoolingDataSource();
+		ds.setURL(arg0);
+		ds.setMaxPoolSize(2);
+		ds.setConnectionTimeout(1);
+		try {
+			Connection c1 = ds.getConnection();
+			Connection c2 = ds.getConnection();
+			sb.append("1. active: ").append(ds.getActiveConnections()).append(", idle: ").append(ds.getIdleConnections()).append("\n");
+			try {
+				ds.getConnection();
+				sb.append("2. third connection should have timed out\n");
+			} catch (SQLException e) {
+				sb.append("2. exhausted: ").append(e.getSQLState()).append("\n");
+			}
+			final Connection physical = c1.unwrap(MonetConnection.class);
+			c1.setAutoCommit(false);
+			c1.close();
+			sb.append("3. closed: ").append(c1.isClosed()).append(", active: ").append(ds.getActiveConnections()).append(", idle: ").append(ds.getIdleConnections()).append("\n");
+			try {
+				c1.createStatement();
+			} catch (SQLException e) {
+				sb.append("4. closed handle: ").append(e.getSQLState()).append("\n");
+			}
+			Connection c3 = ds.getConnection();
+			sb.append("5. reused: ").append(c3.unwrap(MonetConnection.class) == physical).append(", autocommit: ").append(c3.getAutoCommit()).append("\n");
+			Statement st = c3.createStatement();
+			ResultSet rs = st.executeQuery("SELECT 1");
+			rs.next();
+			sb.append("6. value: ").append(rs.getInt(1)).append(", statement of handle: ").append(st.getConnection() == c3).append(", unwrapped: ").append(c3.unwrap(Connection.class) == c3).append("\n");
+			final String schema = c3.getSchema();
+			c3.setSchema("tmp");
+			c3.close();
+			sb.append("7. statement closed: ").append(st.isClosed()).append("\n");
+			Connection c4 = ds.getConnection();
+			sb.append("8. schema restored: ").append(schema.equals(c4.getSchema())).append("\n");
+			c4.close();
+			c2.close();
+			sb.append("9. active: ").append(ds.getActiveConnections()).append(", idle: ").append(ds.getIdleConnections()).append("\n");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		ds.close();
+		sb.append("10. idle after close: ").append(ds.getIdleConnections()).append("\n");
+
+		compareExpectedOutput("Test_Cpooling",
+			"1. active: 2, idle: 0\n" +
+			"2. exhausted: 08M33\n" +
+			"3. closed: true, active: 1, idle: 1\n" +
+			"4. closed handle: M1M20\n" +
+			"5. reused: true, autocommit: true\n" +
+			"6. value: 1, statement of handle: true, unwrapped: true\n" +
+			"7. statement closed: true\n" +
+			"8. schema restored: true\n" +
+			"9. active: 0, idle: 2\n" +
+			"10. idle after close: 0\n");
+	}
+
+	private void Test_Creadahead() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			final MonetConnection mcon = (MonetConnection) con;
+			final long reads = mcon.getSocketReads();
+			final long blocks = mcon.getBlocksRead();
+			stmt = con.createStatement();
+			stmt.setFetchSize(100000);
+			rs = stmt.executeQuery("SELECT value, 'a value of some length to fill the blocks' FROM sys.generate_series(0, 100000)");
+			long sum = 0;
+			while (rs.next())
+				sum += rs.getLong(1);
+			sb.append("sum: ").append(sum).append("\n");
+			// the exact numbers depend on the network, only check they moved
+			sb.append("blocks read: ").append(mcon.getBlocksRead() - blocks > 10).append("\n");
+			sb.append("socket reads: ").append(mcon.getSocketReads() - reads > 0).append("\n");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Creadahead",
+			"sum: 4999950000\n" +
+			"blocks read: true\n" +
+			"socket reads: true\n");
+	}
+
 	private void Test_Creplysize() {
 		sb.setLength(0);	// clear the output log buffer
 
@@ -772,18 +1127,32 @@ public final class JDBC_API_Tester {
 			"2  host  false    IP number, domain name or one of the special values `localhost` and `localhost.`\n" +
 			"3  port  false  -1  Port to connect to, 1..65535 or -1 for 'not set'\n" +
 			"4  database  false    name of database to connect to\n" +
-			"5  autocommit  false  true  initial value of autocommit\n" +
-			"6  schema  false    initial schema\n" +
-			"7  timezone  false  <tz>  client time zone as minutes east of UTC\n" +
-			"8  replysize  false  250  rows beyond this limit are retrieved on demand, <1 means unlimited\n" +
-			"9  debug  false  false  enable tracing of socket communication for debugging\n" +
-			"10  logfile  false    when debug is enabled its output will be written to this logfile\n" +
-			"11  so_timeout  false  0  abort if network I/O does not complete in this many milliseconds, 0 means no timeout\n" +
-			"12  treat_clob_as_varchar  false  true  map CLOB/TEXT data to type VARCHAR instead of type CLOB\n" +
-			"13  treat_blob_as_binary  false  true  map BLOB data to type BINARY instead of type BLOB\n" +
-			"14  client_info  false  true  whether to send ClientInfo when connecting\n" +
-			"15  client_application  false    application name to send in ClientInfo\n" +
-			"16  client_remark  false    any client remark to send in ClientInfo\n" +
+			"5  sock  false    path to Unix domain socket to connect to\n" +
+			"6  sockdir  false  /tmp  Directory for implicit Unix domain sockets (.s.monetdb.PORT)\n" +
+			"7  autocommit  false  true  initial value of autocommit\n" +
+			"8  schema  false    initial schema\n" +
+			"9  timezone  false  <tz>  client time zone as minutes east of UTC\n" +
+			"10  replysize  false  250  rows beyond this limit are retrieved on demand, <1 means unlimited\n" +
+			"11  debug  false  false  enable tracing of socket communication for debugging\n" +
+			"12  logfile  false    when debug is enabled its output will be written to this logfile\n" +
+			"13  so_timeout  false  0  abort if network I/O does not complete in this many milliseconds, 0 means no timeout\n" +
+			"14  treat_clob_as_varchar  false  true  map CLOB/TEXT data to type VARCHAR instead of type CLOB\n" +
+			"15  treat_blob_as_binary  false  true  map BLOB data to type BINARY instead of type BLOB\n" +
+			"16  client_info  false  true  whether to send ClientInfo when connecting\n" +
+			"17  client_application  false    application name to send in ClientInfo\n" +
+			"18  client_remark  false    any client remark to send in ClientInfo\n" +
+			"19  prefetch  false  0  number of result blocks to fetch ahead in the background for forward only result sets, 0 means no prefetching\n" +
+			"20  prefetch_memory  false  16  maximum number of MiB of result data to fetch ahead when prefetch is enabled\n" +
+			"21  block_cache  false  0  maximum number of MiB of result blocks to keep in memory for scrollable result sets, 0 means no limit\n" +
+			"22  fetch_memory  false  16  maximum number of MiB of result data to fetch per block when the fetch size adapts to the result\n" +
+			"23  valid_window  false  0  number of milliseconds after a successful server reply during which isValid() does not contact the server\n" +
+			"24  statement_cache  false  0  maximum number of closed prepared statements to keep prepared on the server for reuse, 0 disables the cache\n" +
+			"25  batch_insert_rows  false  0  maximum number of batched rows of a simple INSERT statement to send as one multi-row INSERT, 0 disables this rewriting\n" +
+			"26  batch_copy_rows  false  0  minimum number of batched rows of a simple INSERT statement to load with COPY INTO ON CLIENT, 0 disables this\n" +
+			"27  read_buffer  false  256  size in KiB of the buffer in which data from the server is read ahead, so that many blocks are received per socket read\n" +
+			"28  write_buffer  false  256  size in KiB of the buffer in which blocks to the server are gathered, so that many blocks are sent per socket write\n" +
+			"29  nio  false  false  use a non-blocking socket channel served by a shared selector thread for TCP connections without TLS\n" +
+			"30  async_queue  false  256  maximum number of asynchronous queries waiting for their turn on a connection, more are rejected\n" +
 			"getPropertyInfo of jdbc:monetdbs:\n" +
 			"0  user  true    user name to authenticate as\n" +
 			"1  password  true    password to authenticate with\n" +
@@ -791,20 +1160,34 @@ public final class JDBC_API_Tester {
 			"3  host  false    IP number, domain name or one of the special values `localhost` and `localhost.`\n" +
 			"4  port  false  -1  Port to connect to, 1..65535 or -1 for 'not set'\n" +
 			"5  database  false    name of database to connect to\n" +
-			"6  cert  false    path to TLS certificate to authenticate server with\n" +
-			"7  certhash  false    hash of server TLS certificate must start with these hex digits; overrides cert\n" +
-			"8  autocommit  false  true  initial value of autocommit\n" +
-			"9  schema  false    initial schema\n" +
-			"10  timezone  false  <tz>  client time zone as minutes east of UTC\n" +
-			"11  replysize  false  250  rows beyond this limit are retrieved on demand, <1 means unlimited\n" +
-			"12  debug  false  false  enable tracing of socket communication for debugging\n" +
-			"13  logfile  false    when debug is enabled its output will be written to this logfile\n" +
-			"14  so_timeout  false  0  abort if network I/O does not complete in this many milliseconds, 0 means no timeout\n" +
-			"15  treat_clob_as_varchar  false  true  map CLOB/TEXT data to type VARCHAR instead of type CLOB\n" +
-			"16  treat_blob_as_binary  false  true  map BLOB data to type BINARY instead of type BLOB\n" +
-			"17  client_info  false  true  whether to send ClientInfo when connecting\n" +
-			"18  client_application  false    application name to send in ClientInfo\n" +
-			"19  client_remark  false    any client remark to send in ClientInfo\n");
+			"6  sock  false    path to Unix domain socket to connect to\n" +
+			"7  sockdir  false  /tmp  Directory for implicit Unix domain sockets (.s.monetdb.PORT)\n" +
+			"8  cert  false    path to TLS certificate to authenticate server with\n" +
+			"9  certhash  false    hash of server TLS certificate must start with these hex digits; overrides cert\n" +
+			"10  autocommit  false  true  initial value of autocommit\n" +
+			"11  schema  false    initial schema\n" +
+			"12  timezone  false  <tz>  client time zone as minutes east of UTC\n" +
+			"13  replysize  false  250  rows beyond this limit are retrieved on demand, <1 means unlimited\n" +
+			"14  debug  false  false  enable tracing of socket communication for debugging\n" +
+			"15  logfile  false    when debug is enabled its output will be written to this logfile\n" +
+			"16  so_timeout  false  0  abort if network I/O does not complete in this many milliseconds, 0 means no timeout\n" +
+			"17  treat_clob_as_varchar  false  true  map CLOB/TEXT data to type VARCHAR instead of type CLOB\n" +
+			"18  treat_blob_as_binary  false  true  map BLOB data to type BINARY instead of type BLOB\n" +
+			"19  client_info  false  true  whether to send ClientInfo when connecting\n" +
+			"20  client_application  false    application name to send in ClientInfo\n" +
+			"21  client_remark  false    any client remark to send in ClientInfo\n" +
+			"22  prefetch  false  0  number of result blocks to fetch ahead in the background for forward only result sets, 0 means no prefetching\n" +
+			"23  prefetch_memory  false  16  maximum number of MiB of result data to fetch ahead when prefetch is enabled\n" +
+			"24  block_cache  false  0  maximum number of MiB of result blocks to keep in memory for scrollable result sets, 0 means no limit\n" +
+			"25  fetch_memory  false  16  maximum number of MiB of result data to fetch per block when the fetch size adapts to the result\n" +
+			"26  valid_window  false  0  number of milliseconds after a successful server reply during which isValid() does not contact the server\n" +
+			"27  statement_cache  false  0  maximum number of closed prepared statements to keep prepared on the server for reuse, 0 disables the cache\n" +
+			"28  batch_insert_rows  false  0  maximum number of batched rows of a simple INSERT statement to send as one multi-row INSERT, 0 disables this rewriting\n" +
+			"29  batch_copy_rows  false  0  minimum number of batched rows of a simple INSERT statement to load with COPY INTO ON CLIENT, 0 disables this\n" +
+			"30  read_buffer  false  256  size in KiB of the buffer in which data from the server is read ahead, so that many blocks are received per socket read\n" +
+			"31  write_buffer  false  256  size in KiB of the buffer in which blocks to the server are gathered, so that many blocks are sent per socket write\n" +
+			"32  nio  false  false  use a non-blocking socket channel served by a shared selector thread for TCP connections without TLS\n" +
+			"33  async_queue  false  256  maximum number of asynchronous queries waiting for their turn on a connection, more are rejected\n");
 	}
 
 	private void listDriverProperties(String url) throws SQLException {
@@ -2466,6 +2849,170 @@ public final class JDBC_API_Tester {
 			"2. empty call... passed\n");
 	}
 
+	private void Test_PScache(String arg0) {
+		sb.setLength(0);	// clear the output log buffer
+
+		final Properties props = new Properties();
+		props.setProperty("statement_cache", "2");
+		Connection conx = null;
+		Statement stmt = null;
+		try {
+			conx = DriverManager.getConnection(arg0, props);
+			final MonetConnection mcon = conx.unwrap(MonetConnection.class);
+			final String[] queries = { "SELECT ? + 1", "SELECT ? + 2" };
+			for (int i = 1; i <= 3; i++) {
+				for (String q : queries) {
+					PreparedStatement pstmt = conx.prepareStatement(q);
+					pstmt.setInt(1, i);
+					ResultSet rs = pstmt.executeQuery();
+					rs.next();
+					sb.append(rs.getInt(1)).append(" ");
+					closeStmtResSet(pstmt, rs);
+				}
+			}
+			sb.append("\n1. hits: ").append(mcon.getStatementCacheHits()).append(", misses: ").append(mcon.getStatementCacheMisses()).append(", size: ").append(mcon.getStatementCacheSize()).append("\n");
+
+			// a not poolable statement is released on close
+			PreparedStatement pstmt = conx.prepareStatement("SELECT ? + 3");
+			pstmt.setPoolable(false);
+			pstmt.close();
+			sb.append("2. hits: ").append(mcon.getStatementCacheHits()).append(", misses: ").append(mcon.getStatementCacheMisses()).append(", size: ").append(mcon.getStatementCacheSize()).append("\n");
+
+			// a schema change invalidates the cached statements
+			stmt = conx.createStatement();
+			stmt.executeUpdate("CREATE TABLE table_Test_PScache (id int)");
+			stmt.executeUpdate("DROP TABLE table_Test_PScache");
+			pstmt = conx.prepareStatement("SELECT ? + 1");
+			pstmt.setInt(1, 4);
+			ResultSet rs = pstmt.executeQuery();
+			rs.next();
+			sb.append("3. value: ").append(rs.getInt(1)).append(", hits: ").append(mcon.getStatementCacheHits()).append(", misses: ").append(mcon.getStatementCacheMisses()).append("\n");
+			closeStmtResSet(pstmt, rs);
+			sb.append("4. size: ").append(mcon.getStatementCacheSize()).append("\n");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, null);
+		closeConx(conx);
+
+		compareExpectedOutput("Test_PScache",
+			"2 3 3 4 4 5 \n" +
+			"1. hits: 4, misses: 2, size: 2\n" +
+			"2. hits: 4, misses: 3, size: 2\n" +
+			"3. value: 5, hits: 4, misses: 4\n" +
+			"4. size: 1\n");
+	}
+
+	private void Test_PSbatchinsert(String arg0) {
+		sb.setLength(0);	// clear the output log buffer
+
+		final Properties props = new Properties();
+		props.setProperty("batch_insert_rows", "2");
+		Connection conx = null;
+		Statement stmt = null;
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			conx = DriverManager.getConnection(arg0, props);
+			stmt = conx.createStatement();
+			stmt.executeUpdate("CREATE TABLE table_Test_PSbatchinsert (id int NOT NULL, val varchar(10))");
+			pstmt = conx.prepareStatement("INSERT INTO table_Test_PSbatchinsert (id, val) VALUES (?, ?)");
+			for (int i = 1; i <= 5; i++) {
+				pstmt.setInt(1, i);
+				pstmt.setString(2, (i == 3) ? null : "it's " + i);
+				pstmt.addBatch();
+			}
+			sb.append("1. counts: ").append(Arrays.toString(pstmt.executeBatch())).append("\n");
+
+			// a failing multi-row INSERT fails all its rows
+			for (int i = 6; i <= 8; i++) {
+				if (i == 7)
+					pstmt.setNull(1, Types.INTEGER);
+				else
+					pstmt.setInt(1, i);
+				pstmt.setString(2, "row " + i);
+				pstmt.addBatch();
+			}
+			try {
+				pstmt.executeBatch();
+				sb.append("2. batch should have failed\n");
+			} catch (BatchUpdateException e) {
+				sb.append("2. counts: ").append(Arrays.toString(e.getUpdateCounts())).append("\n");
+			}
+			pstmt.close();
+
+			rs = stmt.executeQuery("SELECT id, val FROM table_Test_PSbatchinsert ORDER BY id");
+			while (rs.next())
+				sb.append(rs.getInt(1)).append(" ").append(rs.getString(2)).append("\n");
+			rs.close();
+			stmt.executeUpdate("DROP TABLE table_Test_PSbatchinsert");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(pstmt, null);
+		closeStmtResSet(stmt, rs);
+		closeConx(conx);
+
+		compareExpectedOutput("Test_PSbatchinsert",
+			"1. counts: [1, 1, 1, 1, 1]\n" +
+			"2. counts: [-3, -3, 1]\n" +
+			"1 it's 1\n" +
+			"2 it's 2\n" +
+			"3 null\n" +
+			"4 it's 4\n" +
+			"5 it's 5\n" +
+			"8 row 8\n");
+	}
+
+	private void Test_PSbatchcopy(String arg0) {
+		sb.setLength(0);	// clear the output log buffer
+
+		final Properties props = new Properties();
+		props.setProperty("batch_copy_rows", "3");
+		Connection conx = null;
+		Statement stmt = null;
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			conx = DriverManager.getConnection(arg0, props);
+			stmt = conx.createStatement();
+			stmt.executeUpdate("CREATE TABLE table_Test_PSbatchcopy (id int, val varchar(20), ts timestamp)");
+			pstmt = conx.prepareStatement("INSERT INTO table_Test_PSbatchcopy (id, val, ts) VALUES (?, ?, ?)");
+			final String[] vals = { "plain", "it's, \"quoted\"", null, "NULL", "back\\slash", "two\nlines" };
+			for (int i = 0; i < vals.length; i++) {
+				pstmt.setInt(1, i + 1);
+				pstmt.setString(2, vals[i]);
+				if (i == 2)
+					pstmt.setNull(3, Types.TIMESTAMP);
+				else
+					pstmt.setTimestamp(3, Timestamp.valueOf("2024-01-0" + (i + 1) + " 12:34:56"));
+				pstmt.addBatch();
+			}
+			sb.append("1. counts: ").append(Arrays.toString(pstmt.executeBatch())).append("\n");
+			pstmt.close();
+
+			rs = stmt.executeQuery("SELECT id, val, ts FROM table_Test_PSbatchcopy ORDER BY id");
+			while (rs.next())
+				sb.append(rs.getInt(1)).append(" ").append(rs.getString(2)).append(" ").append(rs.getString(3)).append("\n");
+			rs.close();
+			stmt.executeUpdate("DROP TABLE table_Test_PSbatchcopy");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(pstmt, null);
+		closeStmtResSet(stmt, rs);
+		closeConx(conx);
+
+		compareExpectedOutput("Test_PSbatchcopy",
+			"1. counts: [1, 1, 1, 1, 1, 1]\n" +
+			"1 plain 2024-01-01 12:34:56.000000\n" +
+			"2 it's, \"quoted\" 2024-01-02 12:34:56.000000\n" +
+			"3 null null\n" +
+			"4 NULL 2024-01-04 12:34:56.000000\n" +
+			"5 back\\slash 2024-01-05 12:34:56.000000\n" +
+			"6 two\nlines 2024-01-06 12:34:56.000000\n");
+	}
+
 	private void Test_PSmanycon(String arg0) {
 		sb.setLength(0);	// clear the output log buffer
 
@@ -4289,6 +4836,41 @@ public final class JDBC_API_Tester {
 			"180 columns start at 1\n");
 	}
 
+	private void Test_Rnumerics() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = con.createStatement();
+			stmt.executeUpdate("CREATE TABLE table_Test_Rnumerics (id int, d decimal(10,2), o oid, f double)");
+			stmt.executeUpdate("INSERT INTO table_Test_Rnumerics VALUES" +
+				" (1, 123.45, CAST(12 AS oid), 1.5), (2, -0.05, CAST(0 AS oid), -0.25)," +
+				" (3, 0, NULL, 0.1), (4, NULL, CAST(3000000000 AS oid), NULL)");
+			// the decimals and oids are stored as numbers in the result blocks
+			rs = stmt.executeQuery("SELECT d, o, f FROM table_Test_Rnumerics ORDER BY id");
+			while (rs.next()) {
+				final BigDecimal bd = rs.getBigDecimal(1);
+				sb.append(rs.getString(1)).append(" ").append(bd)
+					.append(" scale ").append(bd == null ? -1 : bd.scale())
+					.append(" ").append(rs.getDouble(1))
+					.append(" | ").append(rs.getString(2)).append(" ").append(rs.getLong(2))
+					.append(" | ").append(rs.getString(3)).append(" ").append(rs.getDouble(3)).append("\n");
+			}
+			rs.close();
+			stmt.executeUpdate("DROP TABLE table_Test_Rnumerics");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Rnumerics",
+			"123.45 123.45 scale 2 123.45 | 12@0 12 | 1.5 1.5\n" +
+			"-0.05 -0.05 scale 2 -0.05 | 0@0 0 | -0.25 -0.25\n" +
+			"0.00 0.00 scale 2 0.0 | null 0 | 0.1 0.1\n" +
+			"null null scale -1 0.0 | 3000000000@0 3000000000 | null 0.0\n");
+	}
+
 	private void Test_Rpositioning() {
 		sb.setLength(0);	// clear the output log buffer
 
@@ -4391,6 +4973,43 @@ public final class JDBC_API_Tester {
 			"12. true	true\n");
 	}
 
+	private void Test_Rprefetch(String arg0) {
+		sb.setLength(0);	// clear the output log buffer
+
+		final Properties props = new Properties();
+		props.setProperty("prefetch", "2");
+		Connection conx = null;
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			conx = DriverManager.getConnection(arg0, props);
+			stmt = conx.createStatement();
+			stmt.setFetchSize(100);
+			rs = stmt.executeQuery("SELECT value FROM sys.generate_series(0, 1000)");
+			int rows = 0;
+			int wrong = 0;
+			while (rs.next()) {
+				if (rs.getInt(1) != rows)
+					wrong++;
+				rows++;
+				// add a warning while the next blocks are fetched in the background
+				if (rows == 150)
+					conx.setReadOnly(true);
+			}
+			sb.append("rows: ").append(rows).append(", out of order: ").append(wrong).append("\n");
+			for (SQLWarning w = conx.getWarnings(); w != null; w = w.getNextWarning())
+				sb.append("warning: ").append(w.getSQLState()).append(" ").append(w.getMessage()).append("\n");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+		closeConx(conx);
+
+		compareExpectedOutput("Test_Rprefetch",
+			"rows: 1000, out of order: 0\n" +
+			"warning: 01M08 cannot setReadOnly(true): read-only Connection mode not supported\n");
+	}
+
 	private void Test_Rsqldata() {
 		sb.setLength(0);	// clear the output log buffer
 
@@ -4717,6 +5336,116 @@ public final class JDBC_API_Tester {
 		rs.clearWarnings();
 	}
 
+	private void Test_Sbatchcancel() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = con.createStatement();
+			// padded so that each command is sent in a chunk of its own
+			final char[] pad = new char[5000];
+			Arrays.fill(pad, ' ');
+			final String padding = new String(pad);
+			for (int i = 0; i < 50; i++)
+				stmt.addBatch("CALL sys.sleep(300)" + padding);
+			final Statement running = stmt;
+			final Thread canceller = new Thread(() -> {
+				try {
+					Thread.sleep(500);
+					running.cancel();
+				} catch (InterruptedException | SQLException e) {
+					// the batch then runs to completion and the test fails
+				}
+			});
+			canceller.start();
+			try {
+				stmt.executeBatch();
+				sb.append("1. executeBatch() should have been cancelled\n");
+			} catch (SQLException e) {
+				sb.append("1. cancelled: ").append(e.getSQLState()).append("\n");
+				if (e.getCause() instanceof BatchUpdateException) {
+					final int[] counts = ((BatchUpdateException) e.getCause()).getUpdateCounts();
+					sb.append("2. counts: ").append(counts.length).append(", first: ").append(counts[0]).append(", last: ").append(counts[counts.length - 1]).append("\n");
+				}
+			}
+			try {
+				canceller.join();
+			} catch (InterruptedException e) {
+				// ignore
+			}
+
+			rs = stmt.executeQuery("SELECT 1");
+			if (rs.next())
+				sb.append("3. usable: ").append(rs.getInt(1)).append("\n");
+			rs.close();
+
+			for (int i = 0; i < 50; i++)
+				stmt.addBatch("CALL sys.sleep(300)" + padding);
+			stmt.setQueryTimeout(1);
+			try {
+				stmt.executeBatch();
+				sb.append("4. executeBatch() should have timed out\n");
+			} catch (SQLTimeoutException e) {
+				final int[] counts = ((BatchUpdateException) e.getCause()).getUpdateCounts();
+				sb.append("4. timed out: ").append(e.getSQLState()).append(", last: ").append(counts[counts.length - 1]).append("\n");
+			}
+			stmt.setQueryTimeout(0);
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Sbatchcancel",
+			"1. cancelled: HY008\n" +
+			"2. counts: 50, first: -2, last: -3\n" +
+			"3. usable: 1\n" +
+			"4. timed out: HYT00, last: -3\n");
+	}
+
+	private void Test_Sbatchchunks() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = con.createStatement();
+			// padded so that each command is sent in a chunk of its own
+			final char[] pad = new char[5000];
+			Arrays.fill(pad, ' ');
+			final String padding = new String(pad);
+			stmt.addBatch("CREATE TABLE Test_Sbatchchunks (id int)" + padding);
+			stmt.addBatch("INSERT INTO Test_Sbatchchunks VALUES (1)" + padding);
+			stmt.addBatch("INSERT INTO Test_Sbatchchunks_missing VALUES (1)" + padding);
+			stmt.addBatch("INSERT INTO Test_Sbatchchunks VALUES (2), (3)" + padding);
+			stmt.addBatch("SELECT 1" + padding);
+			stmt.addBatch("INSERT INTO Test_Sbatchchunks VALUES (4)" + padding);
+			try {
+				stmt.executeBatch();
+				sb.append("1. executeBatch() should have failed\n");
+			} catch (BatchUpdateException e) {
+				sb.append("1. counts: ").append(Arrays.toString(e.getUpdateCounts())).append("\n");
+				for (SQLException ex = e.getNextException(); ex != null; ex = ex.getNextException())
+					sb.append(ex.getSQLState()).append("\n");
+			}
+
+			rs = stmt.executeQuery("SELECT COUNT(*) FROM Test_Sbatchchunks");
+			if (rs.next())
+				sb.append("2. rows: ").append(rs.getInt(1)).append("\n");
+			rs.close();
+			stmt.executeUpdate("DROP TABLE Test_Sbatchchunks");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Sbatchchunks",
+			"1. counts: [-2, 1, -3, 2, -3, 1]\n" +
+			"42S02\n" +
+			"M1M17\n" +
+			"2. rows: 4\n");
+	}
+
 	private void Test_Sbatching() {
 		sb.setLength(0);	// clear the output log buffer
 
@@ -4842,6 +5571,79 @@ public final class JDBC_API_Tester {
 			"0. true	true\n");
 	}
 
+	private void Test_Scancel() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = con.createStatement();
+			// cancel() on a statement which is not executing does nothing
+			stmt.cancel();
+			sb.append("1. cancel() while idle done\n");
+			// a query which completes in time is not affected by the client side deadline
+			stmt.setQueryTimeout(30);
+			rs = stmt.executeQuery("SELECT 1");
+			rs.next();
+			sb.append("2. result within timeout: ").append(rs.getInt(1)).append("\n");
+			rs.close();
+			stmt.setQueryTimeout(0);
+			stmt.close();
+			try {
+				stmt.cancel();
+			} catch (SQLException e) {
+				sb.append("3. cancel() after close: ").append(e.getSQLState()).append("\n");
+			}
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Scancel",
+			"1. cancel() while idle done\n" +
+			"2. result within timeout: 1\n" +
+			"3. cancel() after close: M1M20\n");
+	}
+
+	private void Test_ScloseOnCompletion() {
+		sb.setLength(0);	// clear the output log buffer
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = con.createStatement();
+			// without closeOnCompletion the Statement stays open
+			rs = stmt.executeQuery("SELECT 1");
+			rs.close();
+			sb.append("1. closed after ResultSet close: ").append(stmt.isClosed()).append("\n");
+
+			stmt.closeOnCompletion();
+			sb.append("2. isCloseOnCompletion: ").append(stmt.isCloseOnCompletion()).append("\n");
+			// a result without ResultSet does not close the Statement
+			stmt.execute("SET SCHEMA sys");
+			sb.append("3. closed after update: ").append(stmt.isClosed()).append("\n");
+			rs = stmt.executeQuery("SELECT 1");
+			rs.next();
+			sb.append("4. closed while ResultSet open: ").append(stmt.isClosed()).append("\n");
+			rs.close();
+			sb.append("5. closed after ResultSet close: ").append(stmt.isClosed()).append("\n");
+			stmt = null;
+			rs = null;
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_ScloseOnCompletion",
+			"1. closed after ResultSet close: false\n" +
+			"2. isCloseOnCompletion: true\n" +
+			"3. closed after update: false\n" +
+			"4. closed while ResultSet open: false\n" +
+			"5. closed after ResultSet close: true\n");
+	}
+
 	private void Test_SgeneratedKeys() {
 		sb.setLength(0);	// clear the output log buffer
 
@@ -4925,6 +5727,52 @@ public final class JDBC_API_Tester {
 				"4. even more results?... nope :)\n");
 	}
 
+	private void Test_Smultibyte() {
+		sb.setLength(0);	// clear the output log buffer
+
+		// The query is sent as "s" + query + "\n;" in UTF-8, encoded in
+		// pieces of 8192 characters and sent in blocks of 8190 bytes.
+		// "SELECT '" is 8 bytes, each \u00e9 is 2 bytes and each \u20ac 3.
+		final String pair = "\ud83d\ude00";	// U+1F600, 4 bytes
+		final StringBuilder val = new StringBuilder(8200);
+		// message bytes 9 up to 8188
+		for (int i = 0; i < 4089; i++)
+			val.append('\u00e9');
+		val.append('a');
+		// message bytes 8188 up to 8192, straddling the block boundary
+		val.append(pair);
+		// query characters 4100 up to 8191
+		for (int i = 0; i < 4091; i++)
+			val.append('\u20ac');
+		// query characters 8191 and 8192, straddling the encoded pieces
+		val.append(pair);
+		val.append("\u00e9x");
+		final String value = val.toString();
+
+		Statement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = con.createStatement();
+			rs = stmt.executeQuery("SELECT '" + value + "'");
+			if (rs.next()) {
+				final String result = rs.getString(1);
+				sb.append("1. length: ").append(result.length()).append(", equal: ").append(value.equals(result)).append("\n");
+			}
+			rs.close();
+			// the connection still works after it
+			rs = stmt.executeQuery("SELECT 1");
+			if (rs.next())
+				sb.append("2. next query: ").append(rs.getInt(1)).append("\n");
+		} catch (SQLException e) {
+			sb.append("FAILED: ").append(e.getMessage()).append("\n");
+		}
+		closeStmtResSet(stmt, rs);
+
+		compareExpectedOutput("Test_Smultibyte",
+			"1. length: 8187, equal: true\n" +
+			"2. next query: 1\n");
+	}
+
 	private void Test_Wrapper() {
 		sb.setLength(0);	// clear the output log buffer
 
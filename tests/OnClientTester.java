@@ -151,6 +151,8 @@ public final class OnClientTester {
 				test_LargeUpload();
 			if (isSelected("LargeDownload"))
 				test_LargeDownload();
+			if (isSelected("UploadBeyondWriteBuffer"))
+				test_UploadBeyondWriteBuffer();
 			if (isSelected("DownloadCrLf"))
 				test_DownloadCrLf();
 			if (isSelected("UploadFromStream"))
@@ -610,6 +612,33 @@ public final class OnClientTester {
 		exitTest();
 	}
 
+	private void test_UploadBeyondWriteBuffer() throws SQLException, Failure {
+		initTest("test_UploadBeyondWriteBuffer");
+		prepare();
+		// the upload of about 1 MB is many times the write buffer of 8 KiB,
+		// and also larger than the default write buffer
+		final String url = jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "write_buffer=8";
+		final MonetConnection savedConn = conn;
+		final Statement savedStmt = stmt;
+		try (Connection c = DriverManager.getConnection(url)) {
+			conn = c.unwrap(MonetConnection.class);
+			stmt = conn.createStatement();
+			int n = 100_000;
+			MyUploadHandler handler = new MyUploadHandler(n);
+			conn.setUploadHandler(handler);
+			handler.setChunkSize(64 * 1024);
+			update("COPY INTO foo FROM 'banana' ON CLIENT");
+			assertEq("cancellation callback called", false, handler.isCancelled());
+			// the query right after the upload gets its own response
+			assertQueryInt("SELECT COUNT(*) FROM foo", n);
+			assertQueryInt("SELECT MAX(i) FROM foo", n);
+		} finally {
+			conn = savedConn;
+			stmt = savedStmt;
+		}
+		exitTest();
+	}
+
 	private void test_LargeDownload() throws SQLException, Failure {
 		initTest("test_LargeDownload");
 		test_Download(4_000_000);